@@ -0,0 +1,298 @@
+package fr.olympus.prometheus.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor generating the registry index of a module at compile time.
+ * Every class annotated with {@code @EntityAnnotation} or {@code @EvolutionAnnotation} is listed in a generated
+ * {@code RegistryIndex} implementation, with a direct constructor reference when the no-arg constructor is public,
+ * and the index is declared as a service so that {@code AutoRegistrar} can skip classpath scanning.
+ * <p>
+ * The name of the generated class can be set with the {@code prometheus.index} compiler option.
+ * It defaults to {@code PrometheusRegistryIndex_<hash>} in the deepest package common to all annotated classes,
+ * the hash of the indexed class names keeping apart the indexes of two modules sharing a package.
+ */
+@SupportedAnnotationTypes({RegistryIndexProcessor.ENTITY_ANNOTATION, RegistryIndexProcessor.EVOLUTION_ANNOTATION})
+@SupportedOptions(RegistryIndexProcessor.INDEX_OPTION)
+public final class RegistryIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Compiler option defining the fully qualified name of the generated index.
+     */
+    static final String INDEX_OPTION = "prometheus.index";
+
+    /**
+     * Qualified names of the processed annotations. The processor does not depend on the library, types are resolved by name.
+     */
+    static final String ENTITY_ANNOTATION = "fr.olympus.prometheus.entity.EntityAnnotation";
+    static final String EVOLUTION_ANNOTATION = "fr.olympus.prometheus.evolution.EvolutionAnnotation";
+
+    /**
+     * Qualified names of the interfaces the annotated classes must implement, and of the generated index interface.
+     */
+    private static final String ENTITY_INTERFACE = "fr.olympus.prometheus.entity.IEntity";
+    private static final String EVOLUTION_INTERFACE = "fr.olympus.prometheus.evolution.EvolutionCondition";
+    private static final String INDEX_INTERFACE = "fr.olympus.prometheus.register.RegistryIndex";
+
+    /**
+     * Prefix of the simple name of the generated index when no name is given through {@link #INDEX_OPTION}.
+     */
+    private static final String DEFAULT_INDEX_NAME = "PrometheusRegistryIndex";
+
+    /**
+     * Package of the generated index when the annotated classes share no package.
+     */
+    private static final String DEFAULT_INDEX_PACKAGE = "prometheus.generated";
+
+    /**
+     * Annotated entity classes collected over all rounds.
+     */
+    private final List<IndexedClass> entities = new ArrayList<>();
+
+    /**
+     * Annotated evolution condition classes collected over all rounds.
+     */
+    private final List<IndexedClass> evolutions = new ArrayList<>();
+
+    /**
+     * Whether the index has already been written.
+     */
+    private boolean written;
+
+    /**
+     * Constructs a RegistryIndexProcessor, called by the compiler.
+     */
+    public RegistryIndexProcessor() {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) return false;
+        int known = entities.size() + evolutions.size();
+        collect(roundEnv, ENTITY_ANNOTATION, ENTITY_INTERFACE, entities);
+        collect(roundEnv, EVOLUTION_ANNOTATION, EVOLUTION_INTERFACE, evolutions);
+        if (entities.size() + evolutions.size() == known) return false;
+        if (written) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Annotated classes generated after the registry index has been written cannot be indexed");
+            return false;
+        }
+        // The index is written before the last round, so it is compiled with the module without warnings
+        writeIndex();
+        written = true;
+        return false;
+    }
+
+    /**
+     * Collects and validates the classes annotated with an annotation.
+     * @param roundEnv The current round.
+     * @param annotationName The qualified name of the annotation.
+     * @param interfaceName The qualified name of the interface the annotated classes must implement.
+     * @param out The list receiving the annotated classes.
+     */
+    private void collect(RoundEnvironment roundEnv, String annotationName, String interfaceName, List<IndexedClass> out) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        Messager messager = processingEnv.getMessager();
+
+        TypeElement annotation = elements.getTypeElement(annotationName);
+        if (annotation == null) return;
+        TypeElement required = elements.getTypeElement(interfaceName);
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@" + annotation.getSimpleName() + " is only allowed on classes", element);
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (required != null && !types.isAssignable(type.asType(), types.erasure(required.asType()))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@" + annotation.getSimpleName() + " on non-" + required.getSimpleName() + ": " + type.getQualifiedName(), element);
+                continue;
+            }
+            if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Cannot instantiate abstract class: " + type.getQualifiedName(), element);
+                continue;
+            }
+            ExecutableElement constructor = noArgConstructor(type);
+            if (constructor == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "No-arg constructor required for auto-register: " + type.getQualifiedName(), element);
+                continue;
+            }
+            boolean direct = isAccessible(type) && constructor.getModifiers().contains(Modifier.PUBLIC);
+            out.add(new IndexedClass(type, elements.getBinaryName(type).toString(), type.getQualifiedName().toString(), direct));
+        }
+    }
+
+    /**
+     * Finds the no-arg constructor of a class.
+     * @param type The class.
+     * @return The no-arg constructor, or null if the class has none.
+     */
+    private static ExecutableElement noArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) return constructor;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a class can be referenced from any package.
+     * @param type The class.
+     * @return true if the class and all its enclosing classes are public, and nested classes are static.
+     */
+    private static boolean isAccessible(TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement currentType) {
+            if (!currentType.getModifiers().contains(Modifier.PUBLIC)) return false;
+            if (currentType.getNestingKind() == NestingKind.MEMBER && !currentType.getModifiers().contains(Modifier.STATIC)) return false;
+            if (currentType.getNestingKind() == NestingKind.LOCAL || currentType.getNestingKind() == NestingKind.ANONYMOUS) return false;
+            current = currentType.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the index source file and its service declaration.
+     */
+    private void writeIndex() {
+        Filer filer = processingEnv.getFiler();
+        String qualifiedName = indexName();
+        int dot = qualifiedName.lastIndexOf('.');
+        String packageName = dot < 0 ? "" : qualifiedName.substring(0, dot);
+        String simpleName = qualifiedName.substring(dot + 1);
+
+        Comparator<IndexedClass> byName = Comparator.comparing(IndexedClass::binaryName);
+        entities.sort(byName);
+        evolutions.sort(byName);
+        Element[] origins = new Element[entities.size() + evolutions.size()];
+        for (int i = 0; i < entities.size(); i++) {
+            origins[i] = entities.get(i).type();
+        }
+        for (int i = 0; i < evolutions.size(); i++) {
+            origins[entities.size() + i] = evolutions.get(i).type();
+        }
+
+        try {
+            try (Writer writer = filer.createSourceFile(qualifiedName, origins).openWriter()) {
+                if (!packageName.isEmpty()) {
+                    writer.write("package " + packageName + ";\n\n");
+                }
+                writer.write("/**\n * Registry index generated by the Prometheus annotation processor, do not edit.\n */\n");
+                writer.write("@javax.annotation.processing.Generated(\"" + RegistryIndexProcessor.class.getName() + "\")\n");
+                writer.write("public final class " + simpleName + " implements " + INDEX_INTERFACE + " {\n\n");
+                writer.write("    @Override\n");
+                writer.write("    public void collect(" + INDEX_INTERFACE + ".Collector collector) {\n");
+                for (IndexedClass entity : entities) {
+                    writer.write("        collector.entity(\"" + entity.binaryName() + "\", " + entity.supplier() + ");\n");
+                }
+                for (IndexedClass evolution : evolutions) {
+                    writer.write("        collector.evolution(\"" + evolution.binaryName() + "\", " + evolution.supplier() + ");\n");
+                }
+                writer.write("    }\n}\n");
+            }
+            try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + INDEX_INTERFACE, origins).openWriter()) {
+                writer.write(qualifiedName + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write registry index " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the fully qualified name of the generated index.
+     * @return The name given through {@link #INDEX_OPTION}, or a name derived from the common package of the annotated classes.
+     */
+    private String indexName() {
+        String option = processingEnv.getOptions().get(INDEX_OPTION);
+        if (option != null && !option.isBlank()) return option.trim();
+
+        String common = null;
+        List<IndexedClass> all = new ArrayList<>(entities);
+        all.addAll(evolutions);
+        Elements elements = processingEnv.getElementUtils();
+        for (IndexedClass indexed : all) {
+            String packageName = elements.getPackageOf(indexed.type()).getQualifiedName().toString();
+            common = common == null ? packageName : commonPackage(common, packageName);
+        }
+        return (common == null || common.isEmpty() ? DEFAULT_INDEX_PACKAGE : common) + "." + DEFAULT_INDEX_NAME + "_" + moduleHash(all);
+    }
+
+    /**
+     * Hashes the names of the indexed classes, which differ between two modules since a class belongs to one module.
+     * @param all The indexed classes.
+     * @return The hash, in base 36.
+     */
+    private static String moduleHash(List<IndexedClass> all) {
+        long hash = 1125899906842597L;
+        for (String name : all.stream().map(IndexedClass::binaryName).sorted().toList()) {
+            for (int i = 0; i < name.length(); i++) {
+                hash = 31 * hash + name.charAt(i);
+            }
+            hash = 31 * hash + ';';
+        }
+        return Long.toUnsignedString(hash, 36);
+    }
+
+    /**
+     * Gets the deepest package containing two packages.
+     * @param first The first package name.
+     * @param second The second package name.
+     * @return The common package name, empty if the packages share no segment.
+     */
+    private static String commonPackage(String first, String second) {
+        String[] a = first.split("\\.");
+        String[] b = second.split("\\.");
+        StringBuilder common = new StringBuilder();
+        for (int i = 0; i < Math.min(a.length, b.length) && a[i].equals(b[i]); i++) {
+            if (i > 0) common.append('.');
+            common.append(a[i]);
+        }
+        return common.toString();
+    }
+
+    /**
+     * Annotated class listed in the index.
+     * @param type The class element.
+     * @param binaryName The binary name of the class, used to load it.
+     * @param qualifiedName The canonical name of the class, used in source code.
+     * @param direct Whether the no-arg constructor can be referenced directly from the index.
+     */
+    private record IndexedClass(TypeElement type, String binaryName, String qualifiedName, boolean direct) {
+
+        /**
+         * Gets the supplier expression of the class.
+         * @return A constructor reference, or null when the constructor is not accessible.
+         */
+        String supplier() {
+            return direct ? qualifiedName + "::new" : "null";
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.EntityIdGenerators;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.register.RegisterType;
+import fr.olympus.prometheus.resources.PrometheusData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * World shared by the benchmarks of a fork.
+ * Prometheus is a singleton, so it is initialized once per JVM and every benchmark runs in its own fork.
+ */
+public final class BenchWorld {
+
+    /**
+     * Package of the benchmark entities and evolutions.
+     */
+    public static final String ENTITIES_PACKAGE = "fr.olympus.prometheus.bench.entities";
+
+    /**
+     * Registry ids of the mobs, one per group from g0 to g7.
+     */
+    public static final String[] MOB_IDS = {
+            "bench:mob0", "bench:mob1", "bench:mob2", "bench:mob3",
+            "bench:mob4", "bench:mob5", "bench:mob6", "bench:mob7"
+    };
+
+    private BenchWorld() {
+    }
+
+    /**
+     * Initializes Prometheus with a fast id generator and registers the benchmark entities, if not done yet.
+     * @return The data of the instance.
+     */
+    public static PrometheusData init() {
+        return init(PrometheusConfig.builder().idGenerator(EntityIdGenerators.fastRandom()).build());
+    }
+
+    /**
+     * Initializes Prometheus and registers the benchmark entities, if not done yet.
+     * @param config The configuration used if Prometheus is not initialized.
+     * @return The data of the instance.
+     */
+    public static PrometheusData init(PrometheusConfig config) {
+        if (!Prometheus.isInitialized()) {
+            Prometheus.init(config);
+            Prometheus.autoRegister(RegisterType.ALL, ENTITIES_PACKAGE);
+        }
+        return Prometheus.getData();
+    }
+
+    /**
+     * Spawns mobs spread evenly over the first groups.
+     * @param data The data of the instance.
+     * @param worldSize The number of mobs to spawn.
+     * @param groupCount The number of groups, from 1 to 8.
+     * @return The spawned mobs.
+     * @throws IllegalArgumentException if groupCount is out of range.
+     */
+    public static List<IEntity> populate(PrometheusData data, int worldSize, int groupCount) {
+        if (groupCount < 1 || groupCount > MOB_IDS.length) {
+            throw new IllegalArgumentException("Group count must be between 1 and " + MOB_IDS.length + ": " + groupCount);
+        }
+        List<IEntity> entities = new ArrayList<>(worldSize);
+        for (int i = 0; i < groupCount; i++) {
+            int count = worldSize / groupCount + (i < worldSize % groupCount ? 1 : 0);
+            entities.addAll(data.createEntities(MOB_IDS[i], count));
+        }
+        return entities;
+    }
+
+    /**
+     * Destroys every loaded entity.
+     * @param data The data of the instance.
+     */
+    public static void clear(PrometheusData data) {
+        for (IEntity entity : new ArrayList<>(data.getLoadedEntities())) {
+            data.destroyEntity(entity);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Churn of a world of worldSize mobs: each operation kills the churn oldest mobs and spawns churn new ones,
+ * applied immediately or recorded by the command buffer and applied by one flush.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBufferBenchmark {
+
+    @Param({"100000"})
+    public int worldSize;
+
+    @Param({"100", "10000"})
+    public int churn;
+
+    private PrometheusData data;
+
+    private ArrayDeque<IEntity> loaded;
+
+    private int spawns;
+
+    @Setup
+    public void setup(BenchmarkParams params) {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        loaded = new ArrayDeque<>(BenchWorld.populate(data, worldSize, 8));
+        data.setDeferred(params.getBenchmark().endsWith(".deferred"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.setDeferred(false);
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public int immediate() {
+        churn();
+        return data.getLoadedEntitiesCount();
+    }
+
+    @Benchmark
+    public int deferred() {
+        churn();
+        return data.flushDeferred();
+    }
+
+    private void churn() {
+        for (int i = 0; i < churn; i++) {
+            data.destroyEntity(loaded.poll());
+        }
+        List<IEntity> spawned = data.createEntities(BenchWorld.MOB_IDS[spawns++ & 7], churn);
+        loaded.addAll(spawned);
+    }
+}
@@ -0,0 +1,142 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.EntityIdGenerators;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the concurrent storage with the number of threads spawning, killing and looking up entities,
+ * in a world of worldSize mobs. Compare the throughput of the 1, 2, 4 and 8 thread variants,
+ * and the mixed group where writers and readers share the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentStoreBenchmark {
+
+    @Param({"1000", "100000"})
+    public int worldSize;
+
+    @Param({"16", "64"})
+    public int concurrencyLevel;
+
+    private PrometheusData data;
+
+    private UUID[] uuids;
+
+    @Setup
+    public void setup() {
+        data = BenchWorld.init(PrometheusConfig.builder()
+                .idGenerator(EntityIdGenerators.fastRandom())
+                .concurrent(true)
+                .concurrencyLevel(concurrencyLevel)
+                .build());
+        BenchWorld.clear(data);
+        List<IEntity> entities = BenchWorld.populate(data, worldSize, 8);
+        uuids = new UUID[entities.size()];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = entities.get(i).currentUUID();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchWorld.clear(data);
+    }
+
+    private IEntity spawnKill() {
+        IEntity entity = data.createEntity("bench:mob0");
+        data.destroyEntity(entity);
+        return entity;
+    }
+
+    private IEntity lookup() {
+        return data.getLoadedEntityWithUUID(uuids[ThreadLocalRandom.current().nextInt(uuids.length)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public IEntity spawnKill1() {
+        return spawnKill();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public IEntity spawnKill2() {
+        return spawnKill();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public IEntity spawnKill4() {
+        return spawnKill();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public IEntity spawnKill8() {
+        return spawnKill();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public IEntity lookup1() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public IEntity lookup2() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public IEntity lookup4() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public IEntity lookup8() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public IEntity mixedSpawnKill() {
+        return spawnKill();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public IEntity mixedLookup() {
+        return lookup();
+    }
+}
@@ -0,0 +1,79 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.bench.entities.LootMob;
+import fr.olympus.prometheus.entity.DropEngine;
+import fr.olympus.prometheus.entity.DropResult;
+import fr.olympus.prometheus.entity.DropTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops of a mass kill of killCount mobs sharing the same drops: resolved one kill at a time,
+ * for all the killed entities at once, and from the compiled table when the kills are only counted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DropBenchmark {
+
+    @Param({"1000", "100000"})
+    public int killCount;
+
+    private List<LootMob> killed;
+
+    private DropTable table;
+
+    private DropEngine engine;
+
+    private DropResult result;
+
+    @Setup
+    public void setup() {
+        killed = new ArrayList<>(killCount);
+        for (int i = 0; i < killCount; i++) {
+            killed.add(new LootMob());
+        }
+        table = DropTable.of(killed.get(0).getDrops());
+        engine = new DropEngine(42);
+        result = new DropResult();
+    }
+
+    @Benchmark
+    public DropResult resolveEach() {
+        DropResult total = new DropResult();
+        for (LootMob mob : killed) {
+            total.addAll(engine.resolve(mob));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public DropResult resolveAll() {
+        result.clear();
+        engine.resolveAll(killed, result);
+        return result;
+    }
+
+    @Benchmark
+    public DropResult resolveTable() {
+        result.clear();
+        engine.resolve(table, killCount, result);
+        return result;
+    }
+}
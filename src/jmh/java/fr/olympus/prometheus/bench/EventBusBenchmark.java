@@ -0,0 +1,129 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.bench.entities.Mob0;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.event.EntityEvent;
+import fr.olympus.prometheus.event.EntityEventBus;
+import fr.olympus.prometheus.event.EntityEventListener;
+import fr.olympus.prometheus.event.EntityEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publication of lifecycle events: without subscription, published and polled by one thread,
+ * published one by one or in batches, and published by three threads while another one polls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"65536"})
+    public int capacity;
+
+    private EntityEventBus inactive;
+
+    private EntityEventBus bus;
+
+    private EntityEventBus.Subscription subscription;
+
+    private IEntity entity;
+
+    private List<IEntity> batch;
+
+    private long received;
+
+    @Setup
+    public void setup() {
+        inactive = new EntityEventBus(capacity);
+        bus = new EntityEventBus(capacity);
+        subscription = bus.subscribe(new EntityEventListener() {
+            @Override
+            public void onEvent(EntityEvent event) {
+                received++;
+            }
+        });
+        entity = mob();
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(mob());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscription.close();
+    }
+
+    private static IEntity mob() {
+        Mob0 mob = new Mob0();
+        mob.setRegistryMeta("bench:mob0", new String[]{"mob", "g0"}, UUID.randomUUID());
+        return mob;
+    }
+
+    @Benchmark
+    public EntityEventBus publishInactive() {
+        inactive.publish(EntityEventType.STATS, entity, null);
+        return inactive;
+    }
+
+    @Benchmark
+    public int publishPoll() {
+        bus.publish(EntityEventType.STATS, entity, null);
+        return subscription.poll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int publishBatchPoll() {
+        for (int i = 0; i < BATCH; i++) {
+            bus.publish(EntityEventType.STATS, batch.get(i), null);
+        }
+        return subscription.poll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int publishAllPoll() {
+        bus.publishAll(EntityEventType.SPAWN, batch);
+        return subscription.poll();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public EntityEventBus contendedPublish() {
+        bus.publish(EntityEventType.STATS, entity, null);
+        return bus;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int contendedPoll() {
+        return subscription.poll();
+    }
+}
@@ -0,0 +1,78 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.bench.entities.Grow;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.evolution.EvolutionEngine;
+import fr.olympus.prometheus.evolution.EvolutionEntity;
+import fr.olympus.prometheus.evolution.EvolutionTransition;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evolutions of worldSize larvae into adults, one by one through {@link EvolutionEntity#evolveTo(String)}
+ * or in one pass of the {@link EvolutionEngine}.
+ * An evolution spawns a new entity, so every iteration starts from a fresh world of larvae and measures one batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EvolutionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int worldSize;
+
+    private PrometheusData data;
+
+    private final EvolutionEngine engine = new EvolutionEngine();
+
+    private List<IEntity> larvae;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        data = BenchWorld.init();
+        data.getEvolutionGraph();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        BenchWorld.clear(data);
+        larvae = data.createEntities("bench:larva", worldSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public int evolveTo() {
+        int evolved = 0;
+        for (IEntity larva : larvae) {
+            if (((EvolutionEntity) larva).evolveTo(Grow.ID)) evolved++;
+        }
+        return evolved;
+    }
+
+    @Benchmark
+    public List<EvolutionTransition> evolveAll() {
+        return engine.evolveAll();
+    }
+}
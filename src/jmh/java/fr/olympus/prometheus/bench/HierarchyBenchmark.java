@@ -0,0 +1,138 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parent/child links among worldSize unlinked mobs: trees of fanout children per node over three levels,
+ * looked up, visited, moved and killed with their descendants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchyBenchmark {
+
+    private static final int TREES = 16;
+
+    @Param({"100000"})
+    public int worldSize;
+
+    @Param({"4", "8"})
+    public int fanout;
+
+    private PrometheusData data;
+
+    private List<IEntity> roots;
+
+    private IEntity leaf;
+
+    private IEntity leafParent;
+
+    private IEntity otherParent;
+
+    private IEntity doomed;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        BenchWorld.populate(data, worldSize, 8);
+        roots = new ArrayList<>(TREES);
+        for (int i = 0; i < TREES; i++) {
+            roots.add(tree());
+        }
+        IEntity child = data.getChildren(roots.get(0)).get(0);
+        leafParent = data.getChildren(child).get(0);
+        leaf = data.getChildren(leafParent).get(0);
+        otherParent = data.getChildren(roots.get(1)).get(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        if (doomed == null || !doomed.isAlive()) {
+            doomed = tree();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchWorld.clear(data);
+    }
+
+    /**
+     * Spawns a tree of three levels below its root.
+     * @return The root of the tree.
+     */
+    private IEntity tree() {
+        IEntity root = data.createEntity(BenchWorld.MOB_IDS[0]);
+        List<IEntity> level = List.of(root);
+        for (int depth = 0; depth < 3; depth++) {
+            List<IEntity> children = new ArrayList<>(level.size() * fanout);
+            for (IEntity parent : level) {
+                for (IEntity child : data.createEntities(BenchWorld.MOB_IDS[depth + 1], fanout)) {
+                    data.attachChild(parent, child);
+                    children.add(child);
+                }
+            }
+            level = children;
+        }
+        return root;
+    }
+
+    @Benchmark
+    public IEntity getParent() {
+        return data.getParent(leaf);
+    }
+
+    @Benchmark
+    public void forEachChild(Blackhole blackhole) {
+        data.forEachChild(roots.get(next++ & (TREES - 1)), blackhole::consume);
+    }
+
+    @Benchmark
+    public void forEachDescendant(Blackhole blackhole) {
+        data.forEachDescendant(roots.get(next++ & (TREES - 1)), blackhole::consume);
+    }
+
+    @Benchmark
+    public IEntity moveChild() {
+        data.attachChild(otherParent, leaf);
+        data.attachChild(leafParent, leaf);
+        return leaf;
+    }
+
+    @Benchmark
+    public IEntity detachAttach() {
+        data.detachChild(leaf);
+        data.attachChild(leafParent, leaf);
+        return leaf;
+    }
+
+    @Benchmark
+    public int killWithDescendants() {
+        return data.killWithDescendants(doomed);
+    }
+}
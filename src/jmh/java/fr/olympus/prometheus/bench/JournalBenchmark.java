@@ -0,0 +1,99 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.entity.StatableEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import fr.olympus.prometheus.snapshot.WorldJournal;
+import fr.olympus.prometheus.snapshot.WorldSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autosave of a world of worldSize mobs after changeCount of them changed a statistic:
+ * a journal commit, compacted with the default threshold, against a full snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"100000"})
+    public int worldSize;
+
+    @Param({"100", "1000"})
+    public int changeCount;
+
+    private PrometheusData data;
+
+    private Path directory;
+
+    private WorldJournal journal;
+
+    private List<IEntity> entities;
+
+    private int next;
+
+    private long health;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        entities = BenchWorld.populate(data, worldSize, 8);
+        directory = Files.createTempDirectory("prometheus-journal");
+        journal = WorldJournal.open(directory.resolve("world.snapshot"), directory.resolve("world.journal"));
+    }
+
+    @Setup(Level.Invocation)
+    public void change() {
+        Map<String, Number> stats = Map.of("health", ++health);
+        for (int i = 0; i < changeCount; i++) {
+            ((StatableEntity) entities.get(next)).mergeStats(stats);
+            next = (next + 1) % entities.size();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        BenchWorld.clear(data);
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int commit() throws IOException {
+        return journal.commit();
+    }
+
+    @Benchmark
+    public int fullSnapshot() throws IOException {
+        data.drainChanges();
+        return WorldSnapshot.save(directory.resolve("full.snapshot"));
+    }
+}
@@ -0,0 +1,101 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.EntityIdGenerators;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.metrics.SpawnBatchEvent;
+import fr.olympus.prometheus.resources.GroupQuery;
+import fr.olympus.prometheus.resources.PrometheusData;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the instrumentation on the hot paths: spawns and destroys, single and batched, and group queries,
+ * with the metrics disabled or enabled, and with or without a Flight Recorder recording of the batch spawn events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private PrometheusData data;
+
+    private Recording jfr;
+
+    private GroupQuery query;
+
+    private List<IEntity> out;
+
+    @Setup
+    public void setup() {
+        data = BenchWorld.init(PrometheusConfig.builder()
+                .idGenerator(EntityIdGenerators.fastRandom())
+                .metrics(metrics)
+                .build());
+        BenchWorld.clear(data);
+        BenchWorld.populate(data, 10000, 8);
+        query = data.compileGroupQuery("g3");
+        out = new ArrayList<>();
+        if (recording) {
+            jfr = new Recording();
+            jfr.enable(SpawnBatchEvent.class);
+            jfr.setToDisk(false);
+            jfr.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jfr != null) jfr.close();
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public IEntity createDestroy() {
+        IEntity entity = data.createEntity(BenchWorld.MOB_IDS[0]);
+        data.destroyEntity(entity);
+        return entity;
+    }
+
+    @Benchmark
+    public List<IEntity> createDestroyBatch() {
+        List<IEntity> entities = data.createEntities(BenchWorld.MOB_IDS[1], BATCH);
+        for (IEntity entity : entities) {
+            data.destroyEntity(entity);
+        }
+        return entities;
+    }
+
+    @Benchmark
+    public List<IEntity> query() {
+        out.clear();
+        data.collectLoadedEntitiesInGroups(out, query);
+        return out;
+    }
+}
@@ -0,0 +1,186 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.resources.GroupQuery;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Every query of {@link PrometheusData}, in a world of worldSize mobs spread over groupCount groups.
+ * Group queries select the group g0, holding 1/groupCount of the world, id queries select the mobs of g0 and g1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int worldSize;
+
+    @Param({"1", "8"})
+    public int groupCount;
+
+    private PrometheusData data;
+
+    private GroupQuery query;
+
+    private UUID[] uuids;
+
+    private int next;
+
+    private final UUID missing = new UUID(-1, -1);
+
+    private final List<IEntity> out = new ArrayList<>();
+
+    private final Counter counter = new Counter();
+
+    @Setup
+    public void setup() {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        List<IEntity> entities = BenchWorld.populate(data, worldSize, groupCount);
+        uuids = new UUID[entities.size()];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = entities.get((int) ((i * 0x9E3779B97F4A7C15L >>> 1) % uuids.length)).currentUUID();
+        }
+        query = data.compileGroupQuery("mob", "g0");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public List<String> isInGroups() {
+        return data.isInGroups("mob", "g0");
+    }
+
+    @Benchmark
+    public List<IEntity> getLoadedEntities() {
+        return data.getLoadedEntities();
+    }
+
+    @Benchmark
+    public int getLoadedEntitiesCount() {
+        return data.getLoadedEntitiesCount();
+    }
+
+    @Benchmark
+    public List<IEntity> getLoadedEntitiesInGroups() {
+        return data.getLoadedEntitiesInGroups("mob", "g0");
+    }
+
+    @Benchmark
+    public GroupQuery compileGroupQuery() {
+        return data.compileGroupQuery("mob", "g0");
+    }
+
+    @Benchmark
+    public int collectLoadedEntitiesInGroups() {
+        out.clear();
+        data.collectLoadedEntitiesInGroups(out, query);
+        return out.size();
+    }
+
+    @Benchmark
+    public int forEachInGroupsCompiled() {
+        counter.count = 0;
+        data.forEachInGroups(query, counter);
+        return counter.count;
+    }
+
+    @Benchmark
+    public int forEachInGroups() {
+        counter.count = 0;
+        data.forEachInGroups(counter, "mob", "g0");
+        return counter.count;
+    }
+
+    @Benchmark
+    public List<IEntity> getLoadedEntitiesWithId() {
+        return data.getLoadedEntitiesWithId("bench:mob0");
+    }
+
+    @Benchmark
+    public List<IEntity> getLoadedEntitiesWithIds() {
+        return data.getLoadedEntitiesWithIds("bench:mob0", "bench:mob1");
+    }
+
+    @Benchmark
+    public int collectLoadedEntitiesWithId() {
+        out.clear();
+        data.collectLoadedEntitiesWithId(out, "bench:mob0");
+        return out.size();
+    }
+
+    @Benchmark
+    public int forEachWithId() {
+        counter.count = 0;
+        data.forEachWithId("bench:mob0", counter);
+        return counter.count;
+    }
+
+    @Benchmark
+    public int forEachWithIds() {
+        counter.count = 0;
+        data.forEachWithIds(counter, "bench:mob0", "bench:mob1");
+        return counter.count;
+    }
+
+    @Benchmark
+    public Map<String, Integer> getLoadedEntitiesCountByRegistryId() {
+        return data.getLoadedEntitiesCountByRegistryId();
+    }
+
+    @Benchmark
+    public int getLoadedEntitiesCountWithId() {
+        return data.getLoadedEntitiesCountWithId("bench:mob0");
+    }
+
+    @Benchmark
+    public IEntity getLoadedEntityWithUUID() {
+        UUID uuid = uuids[next];
+        next = next + 1 == uuids.length ? 0 : next + 1;
+        return data.getLoadedEntityWithUUID(uuid);
+    }
+
+    @Benchmark
+    public IEntity getLoadedEntityWithUUIDMissing() {
+        return data.getLoadedEntityWithUUID(missing);
+    }
+
+    /**
+     * Action counting the visited entities, reused so that the forEach queries allocate nothing for it.
+     */
+    private static final class Counter implements Consumer<IEntity> {
+
+        private int count;
+
+        @Override
+        public void accept(IEntity entity) {
+            count++;
+        }
+    }
+}
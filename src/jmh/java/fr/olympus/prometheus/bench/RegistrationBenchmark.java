@@ -0,0 +1,65 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.EntityIdGenerators;
+import fr.olympus.prometheus.register.AutoRegistrar;
+import fr.olympus.prometheus.register.RegisterType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration of the benchmark entities by {@link AutoRegistrar}, from the index generated at compile time,
+ * from a scan cache, or from a classpath scan.
+ * Each fork initializes Prometheus with the configuration of its source, so the first measured registration is not a cold start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({"index", "cache", "scan"})
+    public String source;
+
+    private Path cache;
+
+    @Setup
+    public void setup() throws IOException {
+        PrometheusConfig.Builder config = PrometheusConfig.builder()
+                .idGenerator(EntityIdGenerators.fastRandom())
+                .registryIndex(source.equals("index"));
+        if (source.equals("cache")) {
+            cache = Files.createTempFile("prometheus-scan", ".cache");
+            Files.delete(cache);
+            config.scanCache(cache);
+        }
+        BenchWorld.init(config.build());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (cache != null) Files.deleteIfExists(cache);
+    }
+
+    @Benchmark
+    public void register() {
+        AutoRegistrar.register(RegisterType.ALL, BenchWorld.ENTITIES_PACKAGE);
+    }
+}
@@ -0,0 +1,107 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.entity.PrimitiveStatableEntity;
+import fr.olympus.prometheus.entity.StatRegistry;
+import fr.olympus.prometheus.resources.PrometheusData;
+import fr.olympus.prometheus.system.EntitySystem;
+import fr.olympus.prometheus.system.SystemScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One tick of eight systems, each adding to a statistic of the mobs of its group.
+ * Independent systems only touch their own group and run in one parallel stage,
+ * chained systems also write the shared mob group and run in eight stages, one after the other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    @Param({"10000", "100000"})
+    public int worldSize;
+
+    @Param({"independent", "chained"})
+    public String layout;
+
+    @Param({"true", "false"})
+    public boolean deferStructuralChanges;
+
+    private PrometheusData data;
+
+    private SystemScheduler scheduler;
+
+    @Setup
+    public void setup() {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        BenchWorld.populate(data, worldSize, 8);
+        scheduler = new SystemScheduler();
+        scheduler.setDeferStructuralChanges(deferStructuralChanges);
+        for (int i = 0; i < 8; i++) {
+            scheduler.add(new GroupSystem("g" + i, layout.equals("chained")));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public SystemScheduler tick() {
+        scheduler.tick();
+        return scheduler;
+    }
+
+    /**
+     * System adding one to the ticks statistic of the mobs of a group.
+     */
+    private static final class GroupSystem implements EntitySystem {
+
+        private static final int TICKS = StatRegistry.register("ticks");
+
+        private final String[] groups;
+
+        private final String[] writeGroups;
+
+        private final Consumer<IEntity> action = entity -> ((PrimitiveStatableEntity) entity).getStatBlock().addLong(TICKS, 1);
+
+        private GroupSystem(String group, boolean chained) {
+            this.groups = new String[]{group};
+            this.writeGroups = chained ? new String[]{group, "mob"} : groups;
+        }
+
+        @Override
+        public String[] getReadGroups() {
+            return groups;
+        }
+
+        @Override
+        public String[] getWriteGroups() {
+            return writeGroups;
+        }
+
+        @Override
+        public void update(PrometheusData data, long tick) {
+            data.forEachInGroups(action, groups);
+        }
+    }
+}
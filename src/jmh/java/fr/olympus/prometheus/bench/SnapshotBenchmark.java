@@ -0,0 +1,94 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.entity.StatableEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import fr.olympus.prometheus.snapshot.WorldSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a snapshot of worldSize mobs with three statistics each.
+ * Each save runs on the full world and each load on an empty one, restoring that state is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotBenchmark {
+
+    private static final Map<String, Number> STATS = Map.of("health", 20L, "attack", 3L, "speed", 0.25d);
+
+    @Param({"100000", "1000000"})
+    public int worldSize;
+
+    private PrometheusData data;
+
+    private Path directory;
+
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        data = BenchWorld.init();
+        directory = Files.createTempDirectory("prometheus-snapshot");
+        snapshot = directory.resolve("world.snapshot");
+        BenchWorld.clear(data);
+        for (IEntity entity : BenchWorld.populate(data, worldSize, 8)) {
+            ((StatableEntity) entity).mergeStats(STATS);
+        }
+        WorldSnapshot.save(snapshot);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation(BenchmarkParams params) throws IOException {
+        boolean loading = params.getBenchmark().endsWith(".load");
+        if (loading && data.getLoadedEntitiesCount() > 0) {
+            BenchWorld.clear(data);
+        } else if (!loading && data.getLoadedEntitiesCount() == 0) {
+            WorldSnapshot.load(snapshot);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchWorld.clear(data);
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int save() throws IOException {
+        return WorldSnapshot.save(directory.resolve("save.snapshot"));
+    }
+
+    @Benchmark
+    public List<IEntity> load() throws IOException {
+        return WorldSnapshot.load(snapshot);
+    }
+}
@@ -0,0 +1,85 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawn and destruction of entities, in a world already holding worldSize mobs.
+ * Every benchmark destroys what it spawns, so the world keeps its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+
+    /**
+     * Size of the spawned batches.
+     */
+    private static final int BATCH = 1000;
+
+    @Param({"1000", "100000"})
+    public int worldSize;
+
+    @Param({"1", "8"})
+    public int groupCount;
+
+    @Param({"bench:mob0", "bench:pooled"})
+    public String registryId;
+
+    private PrometheusData data;
+
+    @Setup
+    public void setup() {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        BenchWorld.populate(data, worldSize, groupCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public IEntity createDestroy() {
+        IEntity entity = data.createEntity(registryId);
+        data.destroyEntity(entity);
+        return entity;
+    }
+
+    @Benchmark
+    public IEntity createKill() {
+        IEntity entity = data.createEntity(registryId);
+        entity.kill();
+        return entity;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<IEntity> createEntitiesDestroy() {
+        List<IEntity> entities = data.createEntities(registryId, BATCH);
+        for (IEntity entity : entities) {
+            data.destroyEntity(entity);
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,75 @@
+package fr.olympus.prometheus.bench;
+
+import fr.olympus.prometheus.entity.StatableEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistic merges of a loaded entity, with primitive statistics or with a map,
+ * with and without the change tracking fed by every merge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+
+    private static final Map<String, Number> STATS = Map.of("health", 1L, "attack", 2L, "speed", 0.5d);
+
+    @Param({"bench:mob0", "bench:map"})
+    public String registryId;
+
+    @Param({"false", "true"})
+    public boolean changeTracking;
+
+    private PrometheusData data;
+
+    private StatableEntity entity;
+
+    @Setup
+    public void setup() {
+        data = BenchWorld.init();
+        BenchWorld.clear(data);
+        data.setChangeTracking(changeTracking);
+        entity = (StatableEntity) data.createEntity(registryId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.setChangeTracking(false);
+        BenchWorld.clear(data);
+    }
+
+    @Benchmark
+    public StatableEntity mergeStats() {
+        entity.mergeStats(STATS);
+        return entity;
+    }
+
+    @Benchmark
+    public StatableEntity replaceStats() {
+        entity.replaceStats(STATS);
+        return entity;
+    }
+
+    @Benchmark
+    public Map<String, Number> getStatsValues() {
+        return entity.getStatsValues();
+    }
+}
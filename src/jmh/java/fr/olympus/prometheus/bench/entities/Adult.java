@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity spawned by the evolution of a {@link Larva}.
+ */
+@EntityAnnotation(id = "bench:adult", groups = {"adult"})
+public class Adult extends BenchMob {
+
+    /**
+     * Constructs an Adult.
+     */
+    public Adult() {
+        super("Adult");
+    }
+}
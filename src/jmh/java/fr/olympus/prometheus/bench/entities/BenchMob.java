@@ -0,0 +1,31 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.Entity;
+import fr.olympus.prometheus.entity.PrimitiveStatableEntity;
+import fr.olympus.prometheus.entity.StatBlock;
+
+/**
+ * Base class of the benchmark entities, with primitive statistics.
+ */
+public abstract class BenchMob extends Entity implements PrimitiveStatableEntity {
+
+    private final StatBlock stats = new StatBlock();
+
+    /**
+     * Constructs a BenchMob.
+     * @param name The name of the entity.
+     */
+    protected BenchMob(String name) {
+        super(name);
+    }
+
+    @Override
+    public StatBlock getStatBlock() {
+        return stats;
+    }
+
+    @Override
+    public void reset() {
+        stats.clear();
+    }
+}
@@ -0,0 +1,33 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.evolution.EvolutionAnnotation;
+import fr.olympus.prometheus.evolution.EvolutionCondition;
+import fr.olympus.prometheus.evolution.EvolutionEntity;
+
+/**
+ * Evolution condition always met, from {@link Larva} to {@link Adult}.
+ */
+@EvolutionAnnotation(id = Grow.ID, stateless = true)
+public class Grow implements EvolutionCondition {
+
+    /**
+     * Identifier of the condition.
+     */
+    public static final String ID = "bench:grow";
+
+    /**
+     * Constructs a Grow condition.
+     */
+    public Grow() {
+    }
+
+    @Override
+    public <T extends EvolutionEntity> boolean canEvolve(T entity) {
+        return true;
+    }
+
+    @Override
+    public String getEntityId() {
+        return "bench:adult";
+    }
+}
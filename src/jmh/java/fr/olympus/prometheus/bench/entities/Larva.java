@@ -0,0 +1,35 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+import fr.olympus.prometheus.evolution.EvolutionEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark entity evolving into an {@link Adult} through {@link Grow}.
+ */
+@EntityAnnotation(id = "bench:larva", groups = {"larva"})
+public class Larva extends BenchMob implements EvolutionEntity {
+
+    private static final List<String> NEXT = List.of(Grow.ID);
+
+    private final List<String> previous = new ArrayList<>();
+
+    /**
+     * Constructs a Larva.
+     */
+    public Larva() {
+        super("Larva");
+    }
+
+    @Override
+    public List<String> getNextEvolutions() {
+        return NEXT;
+    }
+
+    @Override
+    public List<String> getPreviousEvolutions() {
+        return previous;
+    }
+}
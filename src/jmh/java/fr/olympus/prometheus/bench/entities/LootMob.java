@@ -0,0 +1,37 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.DroppableEntity;
+import fr.olympus.prometheus.entity.EntityAnnotation;
+import fr.olympus.prometheus.entity.EntityDrop;
+
+import java.util.Map;
+
+/**
+ * Benchmark entity with drops, all instances sharing the same drops map.
+ */
+@EntityAnnotation(id = "bench:loot", groups = {"mob", "loot"})
+public class LootMob extends BenchMob implements DroppableEntity {
+
+    private static final Map<String, EntityDrop> DROPS = Map.of(
+            "bench:bone", new EntityDrop(1, 3, 0.75),
+            "bench:gold", new EntityDrop(1, 0.05),
+            "bench:leather", new EntityDrop(0, 2, 0.5),
+            "bench:meat", new EntityDrop(2)
+    );
+
+    /**
+     * Constructs a LootMob.
+     */
+    public LootMob() {
+        super("Loot mob");
+    }
+
+    @Override
+    public Map<String, EntityDrop> getDrops() {
+        return DROPS;
+    }
+
+    @Override
+    public void drop() {
+    }
+}
@@ -0,0 +1,29 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.Entity;
+import fr.olympus.prometheus.entity.EntityAnnotation;
+import fr.olympus.prometheus.entity.StatableEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Benchmark entity keeping its statistics in a map, as the entities written before {@link fr.olympus.prometheus.entity.StatBlock}.
+ */
+@EntityAnnotation(id = "bench:map", groups = {"mob", "map"})
+public class MapMob extends Entity implements StatableEntity {
+
+    private final Map<String, Number> stats = new HashMap<>();
+
+    /**
+     * Constructs a MapMob.
+     */
+    public MapMob() {
+        super("Map mob");
+    }
+
+    @Override
+    public Map<String, Number> getStatsValues() {
+        return stats;
+    }
+}
@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g0.
+ */
+@EntityAnnotation(id = "bench:mob0", groups = {"mob", "g0"})
+public class Mob0 extends BenchMob {
+
+    /**
+     * Constructs a Mob0.
+     */
+    public Mob0() {
+        super("Mob 0");
+    }
+}
@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g1.
+ */
+@EntityAnnotation(id = "bench:mob1", groups = {"mob", "g1"})
+public class Mob1 extends BenchMob {
+
+    /**
+     * Constructs a Mob1.
+     */
+    public Mob1() {
+        super("Mob 1");
+    }
+}
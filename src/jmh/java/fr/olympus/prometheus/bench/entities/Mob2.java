@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g2.
+ */
+@EntityAnnotation(id = "bench:mob2", groups = {"mob", "g2"})
+public class Mob2 extends BenchMob {
+
+    /**
+     * Constructs a Mob2.
+     */
+    public Mob2() {
+        super("Mob 2");
+    }
+}
@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g3.
+ */
+@EntityAnnotation(id = "bench:mob3", groups = {"mob", "g3"})
+public class Mob3 extends BenchMob {
+
+    /**
+     * Constructs a Mob3.
+     */
+    public Mob3() {
+        super("Mob 3");
+    }
+}
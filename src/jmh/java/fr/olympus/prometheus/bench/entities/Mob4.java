@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g4.
+ */
+@EntityAnnotation(id = "bench:mob4", groups = {"mob", "g4"})
+public class Mob4 extends BenchMob {
+
+    /**
+     * Constructs a Mob4.
+     */
+    public Mob4() {
+        super("Mob 4");
+    }
+}
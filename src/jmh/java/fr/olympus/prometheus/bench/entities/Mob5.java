@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g5.
+ */
+@EntityAnnotation(id = "bench:mob5", groups = {"mob", "g5"})
+public class Mob5 extends BenchMob {
+
+    /**
+     * Constructs a Mob5.
+     */
+    public Mob5() {
+        super("Mob 5");
+    }
+}
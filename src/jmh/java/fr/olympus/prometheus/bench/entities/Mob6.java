@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g6.
+ */
+@EntityAnnotation(id = "bench:mob6", groups = {"mob", "g6"})
+public class Mob6 extends BenchMob {
+
+    /**
+     * Constructs a Mob6.
+     */
+    public Mob6() {
+        super("Mob 6");
+    }
+}
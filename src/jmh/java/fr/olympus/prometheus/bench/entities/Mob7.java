@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity of the group g7.
+ */
+@EntityAnnotation(id = "bench:mob7", groups = {"mob", "g7"})
+public class Mob7 extends BenchMob {
+
+    /**
+     * Constructs a Mob7.
+     */
+    public Mob7() {
+        super("Mob 7");
+    }
+}
@@ -0,0 +1,17 @@
+package fr.olympus.prometheus.bench.entities;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+
+/**
+ * Benchmark entity reused through an entity pool.
+ */
+@EntityAnnotation(id = "bench:pooled", groups = {"mob", "pooled"}, poolCapacity = 1024)
+public class PooledMob extends BenchMob {
+
+    /**
+     * Constructs a PooledMob.
+     */
+    public PooledMob() {
+        super("Pooled mob");
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * JMH benchmarks of Prometheus, run with the {@code jmh} Gradle task:
+ * <pre>
+ * gradle jmh
+ * gradle jmh -PjmhArgs="QueryBenchmark -p worldSize=100000 -p groupCount=8"
+ * gradle jmh -PjmhArgs="SpawnBenchmark.createDestroy -prof jfr"
+ * </pre>
+ * The task always adds the GC profiler, which reports the allocation rate and the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}), and writes the results to {@code build/reports/jmh/results.json}.
+ * The world benchmarks are parameterized by the number of loaded entities ({@code worldSize})
+ * and by the number of groups they are spread over ({@code groupCount}).
+ */
+package fr.olympus.prometheus.bench;
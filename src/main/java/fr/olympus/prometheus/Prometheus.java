@@ -1,5 +1,6 @@
 package fr.olympus.prometheus;
 
+import fr.olympus.prometheus.metrics.MetricsSnapshot;
 import fr.olympus.prometheus.register.AutoRegistrar;
 import fr.olympus.prometheus.register.RegisterType;
 import fr.olympus.prometheus.resources.PrometheusData;
@@ -17,22 +18,38 @@ public class Prometheus {
      */
     private static final AtomicReference<Prometheus> INSTANCE = new AtomicReference<>();
 
+    private final PrometheusConfig config;
+
     private final PrometheusData data;
 
     /**
      * Private constructor to prevent instantiation
+     * @param config Configuration of the instance
      */
-    private Prometheus() {
-        this.data = new PrometheusData();
+    private Prometheus(PrometheusConfig config) {
+        this.config = config;
+        this.data = new PrometheusData(config);
     }
 
     /**
-     * Get the singleton instance of Prometheus
+     * Initialize the singleton instance of Prometheus with the default configuration
      * @return Prometheus instance
      * @throws IllegalStateException if Prometheus is already initialized
      */
     public static Prometheus init(){
-        Prometheus create = new Prometheus();
+        return init(PrometheusConfig.defaults());
+    }
+
+    /**
+     * Initialize the singleton instance of Prometheus with the given configuration
+     * @param config Configuration of the instance, see {@link PrometheusConfig}
+     * @return Prometheus instance
+     * @throws IllegalArgumentException if config is null
+     * @throws IllegalStateException if Prometheus is already initialized
+     */
+    public static Prometheus init(PrometheusConfig config){
+        if(config == null) throw new IllegalArgumentException("config cannot be null");
+        Prometheus create = new Prometheus(config);
         if(!INSTANCE.compareAndSet(null, create)){
             throw new IllegalStateException("Prometheus is already initialized");
         }
@@ -61,6 +78,33 @@ public class Prometheus {
         return instance;
     }
 
+    /**
+     * Get the configuration given at initialization
+     * @return PrometheusConfig instance
+     */
+    public static PrometheusConfig getConfig(){
+        return getInstance().config;
+    }
+
+    /**
+     * Check if Prometheus is initialized
+     * @return true if {@link #init()} has been called, false otherwise
+     */
+    public static boolean isInitialized(){
+        return INSTANCE.get() != null;
+    }
+
+    /**
+     * Get a snapshot of the metrics: spawn, kill, evolution, query, flush and registration counters and latencies,
+     * and the number of loaded entities by registry id.
+     * All values are 0 if metrics are disabled, see {@link PrometheusConfig.Builder#metrics(boolean)}.
+     * @return The metrics snapshot
+     */
+    public static MetricsSnapshot getMetrics(){
+        PrometheusData data = getData();
+        return data.getMetrics().snapshot(data.getLoadedEntitiesCountByRegistryId());
+    }
+
     /**
      * Get the PrometheusData instance
      * @return PrometheusData instance
@@ -0,0 +1,278 @@
+package fr.olympus.prometheus;
+
+import fr.olympus.prometheus.entity.EntityIdGenerator;
+import fr.olympus.prometheus.entity.EntityIdGenerators;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of a Prometheus instance, given to {@link Prometheus#init(PrometheusConfig)}.
+ * Instances are immutable and created through {@link #builder()}.
+ */
+public final class PrometheusConfig {
+
+    /**
+     * Whether the loaded entities storage is thread-safe.
+     */
+    private final boolean concurrent;
+
+    /**
+     * Expected number of threads updating the loaded entities concurrently.
+     */
+    private final int concurrencyLevel;
+
+    /**
+     * Generator of the UUIDs of spawned entities.
+     */
+    private final EntityIdGenerator idGenerator;
+
+    /**
+     * Whether auto-registration uses the compile-time registry indexes when they are available.
+     */
+    private final boolean registryIndexEnabled;
+
+    /**
+     * File caching the classpath scan results, or null if the scan is not cached.
+     */
+    private final Path scanCache;
+
+    /**
+     * Number of threads used by auto-registration.
+     */
+    private final int registrationThreads;
+
+    /**
+     * Number of slots of the ring buffer of the entity event bus.
+     */
+    private final int eventBufferSize;
+
+    /**
+     * Whether counters and latency histograms are recorded.
+     */
+    private final boolean metricsEnabled;
+
+    private PrometheusConfig(Builder builder) {
+        this.concurrent = builder.concurrent;
+        this.concurrencyLevel = builder.concurrencyLevel;
+        this.idGenerator = builder.idGenerator;
+        this.registryIndexEnabled = builder.registryIndexEnabled;
+        this.scanCache = builder.scanCache;
+        this.registrationThreads = builder.registrationThreads;
+        this.eventBufferSize = builder.eventBufferSize;
+        this.metricsEnabled = builder.metricsEnabled;
+    }
+
+    /**
+     * Gets the default configuration: single-threaded storage and secure random UUIDs.
+     * @return The default configuration.
+     */
+    public static PrometheusConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Creates a new builder initialized with the default values.
+     * @return A new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Checks if the loaded entities storage is thread-safe.
+     * @return true if spawns, kills and queries can be called from several threads at the same time, false otherwise.
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Gets the expected number of threads updating the loaded entities concurrently.
+     * Only used when the storage is concurrent.
+     * @return The concurrency level.
+     */
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    /**
+     * Gets the generator of the UUIDs of spawned entities.
+     * @return The UUID generator.
+     */
+    public EntityIdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Checks if auto-registration uses the compile-time registry indexes when they are available.
+     * @return true if the indexes replace the scan of the packages they cover, false if the base packages are always scanned.
+     */
+    public boolean isRegistryIndexEnabled() {
+        return registryIndexEnabled;
+    }
+
+    /**
+     * Gets the file caching the classpath scan results of auto-registration.
+     * @return The cache file, or null if the classpath is fully scanned on every registration.
+     */
+    public Path getScanCache() {
+        return scanCache;
+    }
+
+    /**
+     * Gets the number of threads used by auto-registration to scan the classpath, load and validate the annotated classes.
+     * @return The number of registration threads, 1 if registration runs on the calling thread.
+     */
+    public int getRegistrationThreads() {
+        return registrationThreads;
+    }
+
+    /**
+     * Gets the number of slots of the ring buffer of the entity event bus.
+     * @return The size of the event buffer.
+     */
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+
+    /**
+     * Checks if counters and latency histograms are recorded.
+     * @return true if metrics are recorded, false otherwise.
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Builder of {@link PrometheusConfig}.
+     */
+    public static final class Builder {
+
+        private boolean concurrent;
+        private int concurrencyLevel = Runtime.getRuntime().availableProcessors() * 4;
+        private EntityIdGenerator idGenerator = EntityIdGenerators.secureRandom();
+        private boolean registryIndexEnabled;
+        private Path scanCache;
+        private int registrationThreads = 1;
+        private int eventBufferSize = 1 << 16;
+        private boolean metricsEnabled = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets whether the loaded entities storage is thread-safe.
+         * The concurrent storage is split in lock-striped segments, so threads spawning, killing and querying
+         * different entities rarely contend. The single-threaded storage is faster when only one thread uses it.
+         * @param concurrent true to use the concurrent storage, false to use the single-threaded storage.
+         * @return This builder.
+         */
+        public Builder concurrent(boolean concurrent) {
+            this.concurrent = concurrent;
+            return this;
+        }
+
+        /**
+         * Sets the expected number of threads updating the loaded entities concurrently.
+         * Defaults to four times the number of available processors.
+         * @param concurrencyLevel The concurrency level, rounded up to a power of two.
+         * @return This builder.
+         * @throws IllegalArgumentException if concurrencyLevel is lower than 1.
+         */
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel < 1) throw new IllegalArgumentException("Concurrency level must be at least 1");
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        /**
+         * Sets the generator of the UUIDs of spawned entities.
+         * Defaults to {@link EntityIdGenerators#secureRandom()}, see {@link EntityIdGenerators} for faster generators.
+         * @param idGenerator The UUID generator.
+         * @return This builder.
+         * @throws IllegalArgumentException if idGenerator is null.
+         */
+        public Builder idGenerator(EntityIdGenerator idGenerator) {
+            if (idGenerator == null) throw new IllegalArgumentException("Id generator cannot be null");
+            this.idGenerator = idGenerator;
+            return this;
+        }
+
+        /**
+         * Sets whether auto-registration uses the registry indexes generated by the Prometheus annotation processor.
+         * Disabled by default. When enabled, the indexed classes are registered and the base packages in which an index
+         * has a class are not scanned, the other base packages still are. Enable it only if every module with annotated classes
+         * in an indexed package is compiled with the processor, the classes of the other modules would be missed.
+         * @param registryIndexEnabled true to use the indexes when available, false to always scan the base packages.
+         * @return This builder.
+         */
+        public Builder registryIndex(boolean registryIndexEnabled) {
+            this.registryIndexEnabled = registryIndexEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the file caching the classpath scan results of auto-registration, disabled by default.
+         * The cache stores the annotated classes of each classpath entry with a fingerprint of the entry,
+         * so later registrations only scan the jars and directories that changed.
+         * The cache is not used when the classes are registered from compile-time registry indexes.
+         * @param scanCache The cache file, created if missing, or null to disable the cache.
+         * @return This builder.
+         */
+        public Builder scanCache(Path scanCache) {
+            this.scanCache = scanCache;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used by auto-registration, 1 by default.
+         * With more than one thread, the classpath is scanned and the annotated classes are loaded, validated and
+         * turned into registry entries on a worker pool created for each registration. The entries are still
+         * published at once and in a deterministic order, so the result does not depend on the number of threads.
+         * @param registrationThreads The number of registration threads.
+         * @return This builder.
+         * @throws IllegalArgumentException if registrationThreads is lower than 1.
+         */
+        public Builder registrationThreads(int registrationThreads) {
+            if (registrationThreads < 1) throw new IllegalArgumentException("Registration threads must be at least 1");
+            this.registrationThreads = registrationThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of slots of the ring buffer of the entity event bus, 65536 by default.
+         * The ring is allocated by the first subscription, and must hold the events published between two polls of a subscription,
+         * see {@link fr.olympus.prometheus.event.EntityEventBus}.
+         * @param eventBufferSize The size of the event buffer, rounded up to a power of two.
+         * @return This builder.
+         * @throws IllegalArgumentException if eventBufferSize is lower than 2 or greater than 2^30.
+         */
+        public Builder eventBufferSize(int eventBufferSize) {
+            if (eventBufferSize < 2 || eventBufferSize > 1 << 30) {
+                throw new IllegalArgumentException("Event buffer size must be between 2 and 2^30: " + eventBufferSize);
+            }
+            this.eventBufferSize = eventBufferSize;
+            return this;
+        }
+
+        /**
+         * Sets whether counters and latency histograms are recorded, enabled by default, see {@link Prometheus#getMetrics()}.
+         * Recording costs a striped counter increment per spawn and kill, and two clock reads per timed query.
+         * Flight Recorder events do not depend on this setting, they are enabled through the recording settings.
+         * @param metricsEnabled true to record metrics, false to disable them.
+         * @return This builder.
+         */
+        public Builder metrics(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        /**
+         * Builds the configuration.
+         * @return The configuration.
+         */
+        public PrometheusConfig build() {
+            return new PrometheusConfig(this);
+        }
+    }
+}
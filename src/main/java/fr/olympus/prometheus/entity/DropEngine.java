@@ -0,0 +1,95 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Resolves the drops of {@link DroppableEntity} instances with a seeded {@link SplittableRandom}.
+ * Drops are compiled into {@link DropTable} instances and rolled in the iteration order of the entities,
+ * so an engine created with the same seed resolves the same kills into the same drops, for example when replaying a game.
+ * <p>
+ * An engine is not thread-safe: each thread uses its own engine, created with {@link #split()} to stay reproducible.
+ */
+public final class DropEngine {
+
+    /**
+     * Random generator of this engine.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Constructs a DropEngine with a random seed.
+     */
+    public DropEngine() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Constructs a DropEngine with a seed.
+     * @param seed The seed of the random generator.
+     */
+    public DropEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private DropEngine(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates a new engine whose random generator is split from this one.
+     * Splitting an engine created with a seed gives reproducible engines, for example one per worker thread.
+     * @return A new independent engine.
+     */
+    public DropEngine split() {
+        return new DropEngine(random.split());
+    }
+
+    /**
+     * Resolves the drops of one kill.
+     * @param entity The killed entity.
+     * @return The dropped quantities.
+     */
+    public DropResult resolve(DroppableEntity entity) {
+        DropResult result = new DropResult();
+        DropTable.of(entity.getDrops()).roll(random, result);
+        return result;
+    }
+
+    /**
+     * Resolves the drops of several kills of the same entity type.
+     * @param table The compiled drops of the entity type.
+     * @param kills The number of kills.
+     * @param out The result receiving the dropped quantities.
+     * @throws IllegalArgumentException if kills is negative.
+     */
+    public void resolve(DropTable table, int kills, DropResult out) {
+        table.roll(random, kills, out);
+    }
+
+    /**
+     * Resolves the drops of many kills at once, for example an area spell, and aggregates them into one result.
+     * @param entities The killed entities.
+     * @return The total dropped quantities.
+     */
+    public DropResult resolveAll(Collection<? extends DroppableEntity> entities) {
+        DropResult result = new DropResult();
+        resolveAll(entities, result);
+        return result;
+    }
+
+    /**
+     * Resolves the drops of many kills at once and adds them to a result.
+     * Entities sharing the same drops map are compiled once per call.
+     * @param entities The killed entities.
+     * @param out The result receiving the dropped quantities.
+     */
+    public void resolveAll(Collection<? extends DroppableEntity> entities, DropResult out) {
+        Map<Map<String, EntityDrop>, DropTable> tables = new IdentityHashMap<>();
+        for (DroppableEntity entity : entities) {
+            tables.computeIfAbsent(entity.getDrops(), DropTable::of).roll(random, out);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Quantities of materials dropped by one or several kills, see {@link DropEngine}.
+ * Quantities are stored as primitive longs and materials are kept in the order they first dropped.
+ * This class is not thread-safe.
+ */
+public final class DropResult {
+
+    /**
+     * Index of each material in the arrays.
+     */
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * Materials, in the order they first dropped.
+     */
+    private String[] materials = new String[8];
+
+    /**
+     * Quantities, by material index.
+     */
+    private long[] quantities = new long[8];
+
+    /**
+     * Number of materials.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty DropResult.
+     */
+    public DropResult() {
+    }
+
+    /**
+     * Adds a quantity of a material.
+     * @param material The material identifier.
+     * @param quantity The quantity to add.
+     * @throws IllegalArgumentException if material is null.
+     */
+    public void add(String material, long quantity) {
+        if (material == null) throw new IllegalArgumentException("Material cannot be null");
+        Integer index = indexes.get(material);
+        if (index == null) {
+            if (size == materials.length) {
+                materials = Arrays.copyOf(materials, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            index = size++;
+            indexes.put(material, index);
+            materials[index] = material;
+        }
+        quantities[index] += quantity;
+    }
+
+    /**
+     * Adds every quantity of another result.
+     * @param other The result to add.
+     */
+    public void addAll(DropResult other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.materials[i], other.quantities[i]);
+        }
+    }
+
+    /**
+     * Gets the quantity of a material.
+     * @param material The material identifier.
+     * @return The dropped quantity, 0 if the material never dropped.
+     */
+    public long get(String material) {
+        Integer index = indexes.get(material);
+        return index == null ? 0 : quantities[index];
+    }
+
+    /**
+     * Calls an action for every dropped material, without boxing.
+     * @param action The action receiving each material and its quantity.
+     */
+    public void forEach(ObjLongConsumer<String> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(materials[i], quantities[i]);
+        }
+    }
+
+    /**
+     * Gets a copy of this result as a map.
+     * @return A map of material identifiers to their quantities, in the order they first dropped.
+     */
+    public Map<String, Long> asMap() {
+        Map<String, Long> map = new LinkedHashMap<>(size * 2);
+        forEach(map::put);
+        return map;
+    }
+
+    /**
+     * Gets the number of dropped materials.
+     * @return The number of materials.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if nothing dropped.
+     * @return true if no material dropped, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every material, keeping the allocated capacity.
+     */
+    public void clear() {
+        indexes.clear();
+        Arrays.fill(materials, 0, size, null);
+        Arrays.fill(quantities, 0, size, 0);
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DropResult" + asMap();
+    }
+}
@@ -0,0 +1,125 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Drops of an entity compiled into primitive arrays, see {@link DropEngine}.
+ * Materials are sorted by name, so rolling a table with the same seed always gives the same result,
+ * whatever the iteration order of the map it was compiled from. Tables are immutable and thread-safe.
+ */
+public final class DropTable {
+
+    /**
+     * Material identifiers, sorted.
+     */
+    private final String[] materials;
+
+    /**
+     * Drop chance of each material, between 0.0 and 1.0.
+     */
+    private final double[] chances;
+
+    /**
+     * Minimal quantity of each material.
+     */
+    private final int[] minimums;
+
+    /**
+     * Number of possible quantities of each material, minus one.
+     */
+    private final int[] spans;
+
+    private DropTable(String[] materials, double[] chances, int[] minimums, int[] spans) {
+        this.materials = materials;
+        this.chances = chances;
+        this.minimums = minimums;
+        this.spans = spans;
+    }
+
+    /**
+     * Compiles the drops of an entity.
+     * @param drops Map of material identifiers to their drop information, see {@link DroppableEntity#getDrops()}.
+     * @return The compiled drop table.
+     * @throws IllegalArgumentException if drops is null or contains a null key or value.
+     */
+    public static DropTable of(Map<String, EntityDrop> drops) {
+        if (drops == null) throw new IllegalArgumentException("Drops cannot be null");
+        TreeMap<String, EntityDrop> sorted = new TreeMap<>();
+        for (Map.Entry<String, EntityDrop> entry : drops.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException("Drops cannot contain null materials or drops");
+            }
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+
+        int size = sorted.size();
+        String[] materials = new String[size];
+        double[] chances = new double[size];
+        int[] minimums = new int[size];
+        int[] spans = new int[size];
+        int i = 0;
+        for (Map.Entry<String, EntityDrop> entry : sorted.entrySet()) {
+            EntityDrop drop = entry.getValue();
+            materials[i] = entry.getKey();
+            chances[i] = drop.getDropChance();
+            minimums[i] = drop.getMinimalQuantity();
+            spans[i] = drop.getMaximalQuantity() - drop.getMinimalQuantity();
+            i++;
+        }
+        return new DropTable(materials, chances, minimums, spans);
+    }
+
+    /**
+     * Rolls the drops of one kill.
+     * @param random The random generator.
+     * @param out The result receiving the dropped quantities.
+     */
+    public void roll(SplittableRandom random, DropResult out) {
+        roll(random, 1, out);
+    }
+
+    /**
+     * Rolls the drops of several kills and adds the total quantities to a result.
+     * Quantities are summed per material before being added, so the result is updated once per material.
+     * @param random The random generator.
+     * @param kills The number of kills.
+     * @param out The result receiving the dropped quantities.
+     * @throws IllegalArgumentException if kills is negative.
+     */
+    public void roll(SplittableRandom random, int kills, DropResult out) {
+        if (kills < 0) throw new IllegalArgumentException("Kills cannot be negative: " + kills);
+        for (int material = 0; material < materials.length; material++) {
+            double chance = chances[material];
+            if (chance <= 0) continue;
+            int minimum = minimums[material];
+            int span = spans[material];
+            long total = 0;
+            for (int kill = 0; kill < kills; kill++) {
+                if (chance < 1 && random.nextDouble() >= chance) continue;
+                total += span == 0 ? minimum : minimum + random.nextInt(span + 1);
+            }
+            if (total != 0) {
+                out.add(materials[material], total);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of materials of this table.
+     * @return The number of materials.
+     */
+    public int size() {
+        return materials.length;
+    }
+
+    /**
+     * Gets a material of this table.
+     * @param index The index of the material, between 0 and {@link #size()}.
+     * @return The material identifier.
+     */
+    public String material(int index) {
+        return materials[index];
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Map;
 
 /**
  * Interface for make AbstractEntity droppable
+ * The drops can be resolved with a seeded {@link DropEngine}, one kill at a time or for many kills at once.
  */
 public interface DroppableEntity{
 
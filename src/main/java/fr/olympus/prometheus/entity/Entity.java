@@ -53,16 +53,30 @@ public abstract class Entity implements IEntity {
     }
 
     /**
-     * Sets the registry metadata for the entity.
+     * Sets the registry metadata for the entity, with a random UUID.
      *
      * @param registryId The unique identifier in the registry.
      * @throws IllegalArgumentException if registryId is null or blank.
      */
     public void setRegistryMeta(String registryId, String[] groups) {
+        setRegistryMeta(registryId, groups, UUID.randomUUID());
+    }
+
+    /**
+     * Sets the registry metadata for the entity.
+     *
+     * @param registryId The unique identifier in the registry.
+     * @param groups The groups of the entity.
+     * @param uuid The UUID of the entity.
+     * @throws IllegalArgumentException if registryId is null or blank, or if uuid is null.
+     */
+    @Override
+    public void setRegistryMeta(String registryId, String[] groups, UUID uuid) {
         if (registryId == null || registryId.isBlank())
             throw new IllegalArgumentException("Registry ID cannot be null or blank");
+        if (uuid == null) throw new IllegalArgumentException("UUID cannot be null");
         this.registryId = registryId;
-        this.currentUUID = UUID.randomUUID();
+        this.currentUUID = uuid;
         this.groups = groups;
     }
 
@@ -79,7 +93,9 @@ public abstract class Entity implements IEntity {
      * @param alive A boolean value indicating whether the entity is alive (true) or dead (false).
      */
     public void setAlive(boolean alive) {
+        if (this.isAlive == alive) return;
         this.isAlive = alive;
+        markDirty();
     }
 
 
@@ -25,4 +25,11 @@ public @interface EntityAnnotation {
      */
     String[] groups() default {};
 
+    /**
+     * Gets the maximal number of destroyed instances kept for reuse by later spawns.
+     * Pooled entities must restore their initial state in {@link IEntity#reset()}.
+     * @return The capacity of the entity pool, 0 to disable pooling.
+     */
+    int poolCapacity() default 0;
+
 }
@@ -0,0 +1,30 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.UUID;
+
+/**
+ * Generator of the UUIDs assigned to spawned entities.
+ * Implementations must be thread-safe and never return the same UUID twice.
+ * Built-in generators are available in {@link EntityIdGenerators}.
+ */
+@FunctionalInterface
+public interface EntityIdGenerator {
+
+    /**
+     * Generates a new UUID.
+     * @return A UUID that has never been returned by this generator.
+     */
+    UUID nextId();
+
+    /**
+     * Generates several UUIDs at once, for bulk spawns.
+     * Implementations can override this method to amortize their per-call cost.
+     * @param out The array receiving the generated UUIDs.
+     * @param count The number of UUIDs to generate, from index 0.
+     */
+    default void nextIds(UUID[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = nextId();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Built-in {@link EntityIdGenerator} implementations.
+ */
+public final class EntityIdGenerators {
+
+    /**
+     * Generator backed by {@link UUID#randomUUID()}.
+     */
+    private static final EntityIdGenerator SECURE_RANDOM = UUID::randomUUID;
+
+    /**
+     * Generator of random version 4 UUIDs backed by {@link ThreadLocalRandom}.
+     */
+    private static final EntityIdGenerator FAST_RANDOM = () -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return version4(random.nextLong(), random.nextLong());
+    };
+
+    /**
+     * Generator of time-ordered version 7 UUIDs.
+     */
+    private static final EntityIdGenerator TIME_ORDERED = () -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    };
+
+    // Prevent instantiation
+    private EntityIdGenerators() {
+    }
+
+    /**
+     * Gets the generator backed by {@link UUID#randomUUID()}, which uses a {@link java.security.SecureRandom}.
+     * This is the default generator, it is unpredictable but slow and contended when many threads spawn entities.
+     * @return The secure random generator.
+     */
+    public static EntityIdGenerator secureRandom() {
+        return SECURE_RANDOM;
+    }
+
+    /**
+     * Gets a generator of random version 4 UUIDs backed by {@link ThreadLocalRandom}.
+     * It is much faster than {@link #secureRandom()} and does not contend between threads, but its UUIDs are predictable.
+     * @return The fast random generator.
+     */
+    public static EntityIdGenerator fastRandom() {
+        return FAST_RANDOM;
+    }
+
+    /**
+     * Gets a generator of time-ordered version 7 UUIDs.
+     * The 48 most significant bits hold the Unix time in milliseconds, the other bits are random,
+     * so UUIDs generated in different milliseconds sort by creation time.
+     * @return The time-ordered generator.
+     */
+    public static EntityIdGenerator timeOrdered() {
+        return TIME_ORDERED;
+    }
+
+    /**
+     * Creates a generator of monotonic sequential ids.
+     * The most significant 64 bits are a random prefix chosen once for the generator, the least significant 64 bits are
+     * a counter starting at 1. Sequential ids are the cheapest to generate and keep id-keyed indexes local.
+     * @return A new sequential generator.
+     */
+    public static EntityIdGenerator sequential() {
+        return sequential(ThreadLocalRandom.current().nextLong(), 1);
+    }
+
+    /**
+     * Creates a generator of monotonic sequential ids with a fixed prefix.
+     * Use a start value above every id already in use, for example when ids are restored from a save.
+     * @param prefix The most significant 64 bits of every generated UUID.
+     * @param start The least significant 64 bits of the first generated UUID.
+     * @return A new sequential generator.
+     */
+    public static EntityIdGenerator sequential(long prefix, long start) {
+        AtomicLong counter = new AtomicLong(start);
+        return new EntityIdGenerator() {
+            @Override
+            public UUID nextId() {
+                return new UUID(prefix, counter.getAndIncrement());
+            }
+
+            @Override
+            public void nextIds(UUID[] out, int count) {
+                long first = counter.getAndAdd(count);
+                for (int i = 0; i < count; i++) {
+                    out[i] = new UUID(prefix, first + i);
+                }
+            }
+        };
+    }
+
+    /**
+     * Builds a version 4 UUID from random bits.
+     * @param msb The random most significant bits.
+     * @param lsb The random least significant bits.
+     * @return The UUID with the version and variant bits set.
+     */
+    private static UUID version4(long msb, long lsb) {
+        msb = (msb & ~0xF000L) | 0x4000L;
+        lsb = (lsb & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
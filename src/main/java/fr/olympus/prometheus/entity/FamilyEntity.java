@@ -19,4 +19,15 @@ public interface FamilyEntity{
      */
     List<UUID> getChildUUIDs();
 
+    /**
+     * Checks if killing this entity also kills its descendants in the hierarchy of the loaded entities.
+     * The children returned by {@link #getChildUUIDs()} are attached to this entity when it is loaded,
+     * see {@link fr.olympus.prometheus.resources.PrometheusData#attachChild(IEntity, IEntity)}.
+     * By default, the children of a killed entity survive it and lose their parent.
+     * @return true to kill the descendants with this entity, false otherwise.
+     */
+    default boolean isCascadingKill() {
+        return false;
+    }
+
 }
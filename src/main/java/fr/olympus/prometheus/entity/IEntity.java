@@ -2,6 +2,7 @@ package fr.olympus.prometheus.entity;
 
 import fr.olympus.prometheus.Prometheus;
 
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -31,6 +32,25 @@ public interface IEntity {
      */
     void setRegistryMeta(String registryId, String[] groups);
 
+    /**
+     * Sets the metadata for the entity registry and the UUID of the entity.
+     * Called by spawns with a UUID produced by the configured {@link EntityIdGenerator}, and by restores with the saved UUID:
+     * {@link #currentUUID()} must return this UUID afterwards.
+     * By default, this method calls {@link #setRegistryMeta(String, String[])}, so it only works for entities choosing the same UUID:
+     * implementations override it to take the given UUID.
+     *
+     * @param registryId A string representing the unique identifier for the entity registry.
+     * @param groups     An array of strings representing the groups to which the entity belongs.
+     * @param uuid       The UUID to assign to the entity.
+     * @throws IllegalStateException if the entity does not take the given UUID.
+     */
+    default void setRegistryMeta(String registryId, String[] groups, UUID uuid) {
+        setRegistryMeta(registryId, groups);
+        if (!Objects.equals(uuid, currentUUID())) {
+            throw new IllegalStateException("Entity " + registryId + " cannot take a given UUID, override setRegistryMeta(String, String[], UUID)");
+        }
+    }
+
     /**
      * Checks if the entity is alive.
      *
@@ -52,11 +72,29 @@ public interface IEntity {
      */
     UUID currentUUID();
 
+    /**
+     * Marks the entity as changed, so the next commit of the change journal saves it.
+     * Implementations call it when their saved state changes, for example after writing their {@link StatBlock} directly.
+     * Does nothing when change tracking is disabled, see {@link fr.olympus.prometheus.resources.PrometheusData#setChangeTracking(boolean)}.
+     */
+    default void markDirty() {
+        if (Prometheus.isInitialized()) {
+            Prometheus.getData().markDirty(this);
+        }
+    }
+
     /**
      * Kills the entity, marking it as dead and performing any necessary cleanup operations.
+     * The entity is unloaded immediately, or on the next flush when changes are deferred,
+     * see {@link fr.olympus.prometheus.resources.PrometheusData#setDeferred(boolean)}.
+     * The descendants of a {@link FamilyEntity#isCascadingKill() cascading} family entity are killed in the same batch.
      */
     default void kill() {
         if (!isAlive()) throw new IllegalStateException("Entity is already dead");
+        if (this instanceof FamilyEntity family && family.isCascadingKill()) {
+            Prometheus.getData().killWithDescendants(this);
+            return;
+        }
         setAlive(false);
         if (this instanceof DroppableEntity droppable) {
             droppable.drop();
@@ -64,6 +102,16 @@ public interface IEntity {
         Prometheus.getData().destroyEntity(this);
     }
 
+    /**
+     * Resets the entity to its initial state so that it can be reused by a later spawn.
+     * Only called for entities of a pooled registry id, after the entity has been destroyed.
+     * The registry metadata, the UUID and the alive status are assigned again by the spawn, they do not need to be reset.
+     * By default, this method does nothing.
+     */
+    default void reset() {
+
+    }
+
     /**
      * Gets the entity group to which this entity belongs.
      *
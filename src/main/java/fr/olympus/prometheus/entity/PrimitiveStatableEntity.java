@@ -0,0 +1,48 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.Map;
+
+/**
+ * Statable entity storing its statistics in a primitive {@link StatBlock} instead of a map.
+ * The map API of {@link StatableEntity} stays available as an adapter over the block,
+ * and merging two primitive statable entities (for example during evolution) neither boxes nor hashes.
+ * Writing the block directly is not tracked by the change journal, call {@link IEntity#markDirty()} afterwards,
+ * and publishes no {@link fr.olympus.prometheus.event.EntityEventType#STATS} event.
+ */
+public interface PrimitiveStatableEntity extends StatableEntity {
+
+    /**
+     * Gets the primitive statistics of this entity.
+     * @return The statistics block of this entity.
+     */
+    StatBlock getStatBlock();
+
+    /**
+     * Gets a map view over the statistics block.
+     * @return A map of statistic names to their values, backed by {@link #getStatBlock()}.
+     */
+    @Override
+    default Map<String, Number> getStatsValues() {
+        return getStatBlock().asMap();
+    }
+
+    /**
+     * Merges new statistics into the statistics block, see {@link StatBlock#merge(Map)}.
+     * @param newStats Map of new statistic names to their corresponding numeric values to be merged into the existing stats.
+     */
+    @Override
+    default void mergeStats(Map<String, Number> newStats) {
+        getStatBlock().merge(newStats);
+        StatChanges.changed(this);
+    }
+
+    /**
+     * Replaces the statistics block with new statistics, see {@link StatBlock#replace(Map)}.
+     * @param newStats Map of new statistic names to their corresponding numeric values that will replace the existing stats.
+     */
+    @Override
+    default void replaceStats(Map<String, Number> newStats) {
+        getStatBlock().replace(newStats);
+        StatChanges.changed(this);
+    }
+}
@@ -0,0 +1,466 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Primitive storage of the statistics of an entity.
+ * Statistics are addressed by the slots of the {@link StatRegistry} and stored in primitive arrays,
+ * so reading, adding, merging and replacing values neither boxes nor hashes.
+ * A value is either integral (stored as a long) or decimal (stored as a double), like in {@link StatableEntity}.
+ * The arrays grow on demand up to the highest slot set, and the present slots are tracked in a bitmap,
+ * so merging, copying, clearing and iterating a block only visit its present statistics.
+ * This class is not thread-safe.
+ */
+public final class StatBlock {
+
+    /**
+     * Kind of an absent statistic.
+     */
+    private static final byte ABSENT = 0;
+
+    /**
+     * Kind of an integral statistic.
+     */
+    private static final byte LONG = 1;
+
+    /**
+     * Kind of a decimal statistic.
+     */
+    private static final byte DOUBLE = 2;
+
+    private static final byte[] NO_KINDS = new byte[0];
+    private static final long[] NO_LONGS = new long[0];
+    private static final double[] NO_DOUBLES = new double[0];
+
+    /**
+     * Kind of each statistic, by slot.
+     */
+    private byte[] kinds;
+
+    /**
+     * Integral values, by slot.
+     */
+    private long[] longs;
+
+    /**
+     * Decimal values, by slot.
+     */
+    private double[] doubles;
+
+    /**
+     * Bitmap of the present statistics, one bit per slot.
+     */
+    private long[] present;
+
+    /**
+     * Number of present statistics.
+     */
+    private int count;
+
+    /**
+     * Map adapter over this block, created on first use.
+     */
+    private MapView map;
+
+    /**
+     * Constructs an empty StatBlock, its storage is allocated when the first statistic is set.
+     */
+    public StatBlock() {
+        this.kinds = NO_KINDS;
+        this.longs = NO_LONGS;
+        this.doubles = NO_DOUBLES;
+        this.present = NO_LONGS;
+    }
+
+    /**
+     * Checks if a statistic is present.
+     * @param slot The slot of the statistic.
+     * @return true if the statistic has a value, false otherwise.
+     */
+    public boolean has(int slot) {
+        return slot >= 0 && slot < kinds.length && kinds[slot] != ABSENT;
+    }
+
+    /**
+     * Checks if a statistic holds a decimal value.
+     * @param slot The slot of the statistic.
+     * @return true if the statistic is present and decimal, false otherwise.
+     */
+    public boolean isDecimal(int slot) {
+        return slot >= 0 && slot < kinds.length && kinds[slot] == DOUBLE;
+    }
+
+    /**
+     * Gets a statistic as a long, decimal values are truncated.
+     * @param slot The slot of the statistic.
+     * @return The value of the statistic, or 0 if it is absent.
+     */
+    public long getLong(int slot) {
+        if (!has(slot)) return 0;
+        return kinds[slot] == DOUBLE ? (long) doubles[slot] : longs[slot];
+    }
+
+    /**
+     * Gets a statistic as a double.
+     * @param slot The slot of the statistic.
+     * @return The value of the statistic, or 0 if it is absent.
+     */
+    public double getDouble(int slot) {
+        if (!has(slot)) return 0;
+        return kinds[slot] == DOUBLE ? doubles[slot] : longs[slot];
+    }
+
+    /**
+     * Sets a statistic to an integral value.
+     * @param slot The slot of the statistic.
+     * @param value The new value.
+     */
+    public void setLong(int slot, long value) {
+        ensureSlot(slot);
+        if (kinds[slot] == ABSENT) add(slot);
+        kinds[slot] = LONG;
+        longs[slot] = value;
+    }
+
+    /**
+     * Sets a statistic to a decimal value.
+     * @param slot The slot of the statistic.
+     * @param value The new value.
+     */
+    public void setDouble(int slot, double value) {
+        ensureSlot(slot);
+        if (kinds[slot] == ABSENT) add(slot);
+        kinds[slot] = DOUBLE;
+        doubles[slot] = value;
+    }
+
+    /**
+     * Adds an integral amount to a statistic. An absent statistic is set to the amount.
+     * @param slot The slot of the statistic.
+     * @param amount The amount to add.
+     */
+    public void addLong(int slot, long amount) {
+        ensureSlot(slot);
+        switch (kinds[slot]) {
+            case LONG -> longs[slot] += amount;
+            case DOUBLE -> doubles[slot] += amount;
+            default -> setLong(slot, amount);
+        }
+    }
+
+    /**
+     * Adds a decimal amount to a statistic. An integral statistic becomes decimal, an absent statistic is set to the amount.
+     * @param slot The slot of the statistic.
+     * @param amount The amount to add.
+     */
+    public void addDouble(int slot, double amount) {
+        ensureSlot(slot);
+        switch (kinds[slot]) {
+            case LONG -> {
+                kinds[slot] = DOUBLE;
+                doubles[slot] = longs[slot] + amount;
+            }
+            case DOUBLE -> doubles[slot] += amount;
+            default -> setDouble(slot, amount);
+        }
+    }
+
+    /**
+     * Removes a statistic.
+     * @param slot The slot of the statistic.
+     * @return true if the statistic was present, false otherwise.
+     */
+    public boolean remove(int slot) {
+        if (!has(slot)) return false;
+        kinds[slot] = ABSENT;
+        longs[slot] = 0;
+        doubles[slot] = 0;
+        present[slot >>> 6] &= ~(1L << slot);
+        count--;
+        return true;
+    }
+
+    /**
+     * Removes every statistic.
+     */
+    public void clear() {
+        if (count == 0) return;
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            kinds[slot] = ABSENT;
+            longs[slot] = 0;
+            doubles[slot] = 0;
+        }
+        Arrays.fill(present, 0);
+        count = 0;
+    }
+
+    /**
+     * Gets the first present statistic at or after a slot, to iterate the present statistics:
+     * {@code for (int slot = block.nextSlot(0); slot >= 0; slot = block.nextSlot(slot + 1))}.
+     * @param from The slot to start from.
+     * @return The slot of the next present statistic, or -1 if there is none.
+     */
+    public int nextSlot(int from) {
+        if (from < 0) from = 0;
+        int word = from >>> 6;
+        if (word >= present.length) return -1;
+        long bits = present[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == present.length) return -1;
+            bits = present[word];
+        }
+    }
+
+    /**
+     * Gets the number of present statistics.
+     * @return The number of present statistics.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Merges the statistics of another block into this one.
+     * Present values are summed, as a double if any side is decimal, otherwise as a long. Absent values are copied.
+     * @param other The block to merge into this one.
+     */
+    public void merge(StatBlock other) {
+        for (int slot = other.nextSlot(0); slot >= 0; slot = other.nextSlot(slot + 1)) {
+            if (other.kinds[slot] == DOUBLE) {
+                addDouble(slot, other.doubles[slot]);
+            } else {
+                addLong(slot, other.longs[slot]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the statistics of this block with the statistics of another block.
+     * @param other The block to copy.
+     */
+    public void replace(StatBlock other) {
+        if (other == this) return;
+        clear();
+        for (int slot = other.nextSlot(0); slot >= 0; slot = other.nextSlot(slot + 1)) {
+            if (other.kinds[slot] == DOUBLE) {
+                setDouble(slot, other.doubles[slot]);
+            } else {
+                setLong(slot, other.longs[slot]);
+            }
+        }
+    }
+
+    /**
+     * Merges a map of statistics into this block, with the same rules as {@link #merge(StatBlock)}.
+     * Maps created by {@link #asMap()} are merged without boxing.
+     * @param stats Map of statistic names to their values.
+     */
+    public void merge(Map<String, Number> stats) {
+        if (stats instanceof MapView view) {
+            merge(view.block());
+            return;
+        }
+        for (Map.Entry<String, Number> entry : stats.entrySet()) {
+            int slot = StatRegistry.register(entry.getKey());
+            Number value = entry.getValue();
+            if (value instanceof Double || value instanceof Float) {
+                addDouble(slot, value.doubleValue());
+            } else {
+                addLong(slot, value.longValue());
+            }
+        }
+    }
+
+    /**
+     * Replaces the statistics of this block with a map of statistics.
+     * Maps created by {@link #asMap()} are copied without boxing.
+     * @param stats Map of statistic names to their values.
+     */
+    public void replace(Map<String, Number> stats) {
+        if (stats instanceof MapView view) {
+            replace(view.block());
+            return;
+        }
+        clear();
+        for (Map.Entry<String, Number> entry : stats.entrySet()) {
+            set(StatRegistry.register(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * Gets a map view over this block, for code using the {@link StatableEntity} map API.
+     * The view is backed by this block: reading it boxes values, writing it updates the block.
+     * @return A map of statistic names to their values.
+     */
+    public Map<String, Number> asMap() {
+        if (map == null) {
+            map = new MapView();
+        }
+        return map;
+    }
+
+    /**
+     * Gets a statistic as a boxed number.
+     * @param slot The slot of the statistic.
+     * @return A Long or a Double, or null if the statistic is absent.
+     */
+    private Number get(int slot) {
+        if (!has(slot)) return null;
+        return kinds[slot] == DOUBLE ? (Number) doubles[slot] : (Number) longs[slot];
+    }
+
+    /**
+     * Sets a statistic from a boxed number.
+     * @param slot The slot of the statistic.
+     * @param value The new value, decimal if it is a Double or a Float.
+     */
+    private void set(int slot, Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            setDouble(slot, value.doubleValue());
+        } else {
+            setLong(slot, value.longValue());
+        }
+    }
+
+    /**
+     * Marks a slot as present.
+     * @param slot The slot, already held by the arrays.
+     */
+    private void add(int slot) {
+        present[slot >>> 6] |= 1L << slot;
+        count++;
+    }
+
+    /**
+     * Grows the arrays so they can hold the given slot, doubling their size without going past the registered statistics.
+     * @param slot The slot to hold.
+     */
+    private void ensureSlot(int slot) {
+        if (slot < kinds.length) return;
+        int capacity = Math.max(slot + 1, Math.min(Math.max(kinds.length * 2, 4), StatRegistry.size()));
+        kinds = Arrays.copyOf(kinds, capacity);
+        longs = Arrays.copyOf(longs, capacity);
+        doubles = Arrays.copyOf(doubles, capacity);
+        int words = ((capacity - 1) >>> 6) + 1;
+        if (words > present.length) {
+            present = Arrays.copyOf(present, words);
+        }
+    }
+
+    /**
+     * Map adapter over the block.
+     */
+    private final class MapView extends AbstractMap<String, Number> {
+
+        /**
+         * Entry set of the view, created on first use.
+         */
+        private Set<Map.Entry<String, Number>> entries;
+
+        /**
+         * Gets the block backing this view.
+         * @return The block.
+         */
+        StatBlock block() {
+            return StatBlock.this;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return has(StatRegistry.slotOf(key));
+        }
+
+        @Override
+        public Number get(Object key) {
+            return StatBlock.this.get(StatRegistry.slotOf(key));
+        }
+
+        @Override
+        public Number put(String key, Number value) {
+            if (value == null) throw new NullPointerException("Stat value cannot be null");
+            int slot = StatRegistry.register(key);
+            Number previous = StatBlock.this.get(slot);
+            set(slot, value);
+            return previous;
+        }
+
+        @Override
+        public Number remove(Object key) {
+            int slot = StatRegistry.slotOf(key);
+            Number previous = StatBlock.this.get(slot);
+            StatBlock.this.remove(slot);
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            StatBlock.this.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Number>> entrySet() {
+            if (entries == null) {
+                entries = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Map.Entry<String, Number>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return count;
+                    }
+                };
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Iterator over the present statistics of the block.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, Number>> {
+
+        /**
+         * Next present slot, or -1 at the end.
+         */
+        private int next = nextSlot(0);
+
+        /**
+         * Slot returned by the last call to next, or -1.
+         */
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public Map.Entry<String, Number> next() {
+            if (next < 0) throw new NoSuchElementException();
+            last = next;
+            next = nextSlot(last + 1);
+            return new AbstractMap.SimpleImmutableEntry<>(StatRegistry.nameOf(last), get(last));
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            StatBlock.this.remove(last);
+            last = -1;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package fr.olympus.prometheus.entity;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.event.EntityEventType;
+import fr.olympus.prometheus.resources.PrometheusData;
+
+import java.util.UUID;
+
+/**
+ * Notifications of the statistic changes made through {@link StatableEntity} and {@link PrimitiveStatableEntity}.
+ */
+final class StatChanges {
+
+    // Prevent instantiation
+    private StatChanges() {
+    }
+
+    /**
+     * Marks an entity as dirty and publishes a {@link EntityEventType#STATS} event, after its statistics have been merged or replaced.
+     * Entities that are not loaded, for example while they are restored, are neither marked nor published.
+     * @param owner The object whose statistics changed, ignored if it is not an entity.
+     */
+    static void changed(Object owner) {
+        if (!(owner instanceof IEntity entity) || !Prometheus.isInitialized()) return;
+        PrometheusData data = Prometheus.getData();
+        UUID uuid = entity.currentUUID();
+        if (uuid == null || data.getLoadedEntityWithUUID(uuid) != entity) return;
+        entity.markDirty();
+        data.getEventBus().publish(EntityEventType.STATS, entity, null);
+    }
+}
@@ -0,0 +1,78 @@
+package fr.olympus.prometheus.entity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global interning table of statistic names.
+ * Each statistic name gets a small integer slot the first time it is registered, slots are never reused.
+ * Slots are meant to be resolved once, typically in a static field of the entity class, and then used with {@link StatBlock}.
+ */
+public final class StatRegistry {
+
+    /**
+     * Slots by statistic name.
+     */
+    private static final Map<String, Integer> SLOTS = new ConcurrentHashMap<>();
+
+    /**
+     * Statistic names by slot.
+     */
+    private static volatile String[] names = new String[0];
+
+    // Prevent instantiation
+    private StatRegistry() {
+    }
+
+    /**
+     * Registers a statistic name, or gets its slot if it is already registered.
+     * @param name The statistic name.
+     * @return The slot of the statistic.
+     * @throws IllegalArgumentException if name is null.
+     */
+    public static int register(String name) {
+        if (name == null) throw new IllegalArgumentException("Stat name cannot be null");
+        Integer slot = SLOTS.get(name);
+        if (slot != null) return slot;
+        synchronized (StatRegistry.class) {
+            slot = SLOTS.get(name);
+            if (slot != null) return slot;
+            int created = names.length;
+            String[] grown = Arrays.copyOf(names, created + 1);
+            grown[created] = name;
+            names = grown;
+            SLOTS.put(name, created);
+            return created;
+        }
+    }
+
+    /**
+     * Gets the slot of an already registered statistic name.
+     * @param name The statistic name.
+     * @return The slot of the statistic, or -1 if the name has never been registered.
+     */
+    public static int slotOf(Object name) {
+        if (name == null) return -1;
+        Integer slot = SLOTS.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the name of a statistic slot.
+     * @param slot The slot of the statistic.
+     * @return The statistic name.
+     * @throws IndexOutOfBoundsException if the slot has never been registered.
+     */
+    public static String nameOf(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Gets the number of registered statistics.
+     * @return The number of registered statistics.
+     */
+    public static int size() {
+        return names.length;
+    }
+}
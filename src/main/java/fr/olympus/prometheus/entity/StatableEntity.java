@@ -4,6 +4,7 @@ import java.util.Map;
 
 /**
  * Interface representing an entity that has associated statistics. This interface provides methods to retrieve, merge, and replace statistics values.
+ * Entities updating their statistics every tick should implement {@link PrimitiveStatableEntity}, which avoids boxing.
  */
 public interface StatableEntity {
 
@@ -30,6 +31,7 @@ public interface StatableEntity {
                 }
             });
         }
+        StatChanges.changed(this);
     }
 
     /**
@@ -40,6 +42,7 @@ public interface StatableEntity {
         Map<String, Number> currentStats = getStatsValues();
         currentStats.clear();
         currentStats.putAll(newStats);
+        StatChanges.changed(this);
     }
 
 }
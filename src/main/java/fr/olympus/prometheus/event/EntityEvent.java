@@ -0,0 +1,114 @@
+package fr.olympus.prometheus.event;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.UUID;
+
+/**
+ * Lifecycle event delivered to an {@link EntityEventListener}.
+ * Events are not allocated: each subscription reuses one instance, which is only valid during the call of the listener.
+ * The UUID, registry id and groups are those of the entity when the event was published.
+ */
+public final class EntityEvent {
+
+    private long sequence;
+    private EntityEventType type;
+    private IEntity entity;
+    private IEntity source;
+    private UUID uuid;
+    private String registryId;
+    private String[] groups;
+
+    /**
+     * Constructs an EntityEvent.
+     */
+    EntityEvent() {
+    }
+
+    /**
+     * Fills the event with a published event.
+     * @param sequence The sequence number.
+     * @param type The type.
+     * @param entity The entity.
+     * @param source The source entity, or null.
+     * @param uuid The UUID of the entity.
+     * @param registryId The registry id of the entity.
+     * @param groups The groups of the entity.
+     */
+    void set(long sequence, EntityEventType type, IEntity entity, IEntity source, UUID uuid, String registryId, String[] groups) {
+        this.sequence = sequence;
+        this.type = type;
+        this.entity = entity;
+        this.source = source;
+        this.uuid = uuid;
+        this.registryId = registryId;
+        this.groups = groups;
+    }
+
+    /**
+     * Gets the position of the event in the stream of the bus, events are delivered in increasing order.
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the type of the event.
+     * @return The type.
+     */
+    public EntityEventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the entity of the event.
+     * Pooled entities may already have been reused when the event is delivered, prefer {@link #getUUID()} to identify them.
+     * @return The entity.
+     */
+    public IEntity getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets the source of the event: the evolved entity of an {@link EntityEventType#EVOLVE} event.
+     * @return The source entity, or null for other events.
+     */
+    public IEntity getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the UUID of the entity when the event was published.
+     * @return The UUID.
+     */
+    public UUID getUUID() {
+        return uuid;
+    }
+
+    /**
+     * Gets the registry id of the entity when the event was published.
+     * @return The registry id.
+     */
+    public String getRegistryId() {
+        return registryId;
+    }
+
+    /**
+     * Checks if the entity belonged to a group when the event was published.
+     * @param group The name of the group.
+     * @return true if the entity belonged to the group, false otherwise.
+     */
+    public boolean hasGroup(String group) {
+        if (groups == null) return false;
+        for (String g : groups) {
+            if (g.equals(group)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityEvent{" + sequence + " " + type + " " + registryId + " " + uuid + "}";
+    }
+}
@@ -0,0 +1,428 @@
+package fr.olympus.prometheus.event;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bus of the lifecycle events of the loaded entities: spawns, deaths, evolutions and statistic changes.
+ * <p>
+ * Events are written into a preallocated ring buffer without locking and without allocating, and every subscription
+ * reads the ring at its own pace: {@link Subscription#poll()} delivers the events published since the previous poll in one batch,
+ * typically once per tick. Events are published only while the bus has subscriptions.
+ * A subscription polled too late to read an event before it is overwritten skips it and is notified through
+ * {@link EntityEventListener#onOverrun(long)}: the ring must be large enough for the events published between two polls.
+ * Once every subscription has read an event, its slot drops the references to the entities, so the ring does not keep dead entities alive.
+ */
+public final class EntityEventBus {
+
+    /**
+     * Sequence of a slot being written.
+     */
+    private static final long WRITING = Long.MIN_VALUE;
+
+    /**
+     * Sequence of a slot whose entity references are being dropped.
+     */
+    private static final long RELEASING = Long.MIN_VALUE + 1;
+
+    /**
+     * Number of busy spins on a slot before yielding the processor.
+     */
+    private static final int SPINS = 100;
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Number of slots of the ring buffer, a power of two.
+     */
+    private final int capacity;
+
+    private final int mask;
+
+    /**
+     * Slots of the ring buffer, allocated by the first subscription.
+     */
+    private volatile Slot[] ring;
+
+    /**
+     * Next sequence number to claim.
+     */
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * Sequence number below which the slots no longer reference entities.
+     */
+    private final AtomicLong released = new AtomicLong();
+
+    /**
+     * Open subscriptions.
+     */
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Whether the bus has open subscriptions, read by every publication.
+     */
+    private volatile boolean active;
+
+    /**
+     * Constructs an EntityEventBus.
+     * @param capacity The number of slots of the ring buffer, rounded up to a power of two.
+     * @throws IllegalArgumentException if capacity is lower than 2.
+     */
+    public EntityEventBus(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("Event buffer size must be at least 2");
+        if (capacity > 1 << 30) throw new IllegalArgumentException("Event buffer size is too large: " + capacity);
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+    }
+
+    /**
+     * Subscribes to every event.
+     * @param listener The listener receiving the events.
+     * @return The subscription, which only receives the events published after this call.
+     */
+    public Subscription subscribe(EntityEventListener listener) {
+        return subscribe(listener, EntityEventFilter.all());
+    }
+
+    /**
+     * Subscribes to the events matching a filter.
+     * @param listener The listener receiving the events.
+     * @param filter The filter of the delivered events.
+     * @return The subscription, which only receives the events published after this call.
+     * @throws IllegalArgumentException if listener or filter is null.
+     */
+    public synchronized Subscription subscribe(EntityEventListener listener, EntityEventFilter filter) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+        if (filter == null) throw new IllegalArgumentException("Filter cannot be null");
+        if (ring == null) {
+            Slot[] slots = new Slot[capacity];
+            long base = next.get();
+            for (long sequence = base; sequence < base + capacity; sequence++) {
+                slots[(int) sequence & mask] = new Slot(sequence - capacity);
+            }
+            ring = slots;
+        }
+        Subscription subscription = new Subscription(listener, filter, next.get());
+        subscriptions.add(subscription);
+        active = true;
+        return subscription;
+    }
+
+    /**
+     * Polls every open subscription, on the calling thread.
+     * @return The number of delivered events, summed over the subscriptions.
+     */
+    public int dispatch() {
+        int delivered = 0;
+        for (Subscription subscription : subscriptions) {
+            delivered += subscription.poll();
+        }
+        return delivered;
+    }
+
+    /**
+     * Checks if the bus has open subscriptions.
+     * @return true if published events are recorded, false if they are ignored.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Gets the number of slots of the ring buffer.
+     * @return The capacity of the ring buffer.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of events published since the bus has been created.
+     * @return The number of published events.
+     */
+    public long getPublishedCount() {
+        return next.get();
+    }
+
+    /**
+     * Publishes an event, does nothing if the bus has no subscription.
+     * The entity is read before a slot is claimed, so an exception thrown by the entity leaves the ring unchanged.
+     * @param type The type of the event.
+     * @param entity The entity of the event.
+     * @param source The source entity of an evolution, or null.
+     */
+    public void publish(EntityEventType type, IEntity entity, IEntity source) {
+        if (!active) return;
+        UUID uuid = entity.currentUUID();
+        String registryId = entity.getRegistryId();
+        String[] groups = entity.entityGroup();
+        write(next.getAndIncrement(), type, entity, source, uuid, registryId, groups);
+    }
+
+    /**
+     * Publishes an event of the same type for several entities, claiming their slots at once.
+     * If an entity throws while it is read, the slots of the remaining entities are published as skipped events,
+     * which are not delivered, and the exception is rethrown. Does nothing if the bus has no subscription.
+     * @param type The type of the events.
+     * @param entities The entities of the events.
+     */
+    public void publishAll(EntityEventType type, List<? extends IEntity> entities) {
+        if (!active || entities.isEmpty()) return;
+        long sequence = next.getAndAdd(entities.size());
+        long end = sequence + entities.size();
+        try {
+            for (IEntity entity : entities) {
+                write(sequence, type, entity, null, entity.currentUUID(), entity.getRegistryId(), entity.entityGroup());
+                sequence++;
+            }
+        } finally {
+            for (; sequence < end; sequence++) {
+                write(sequence, null, null, null, null, null, null);
+            }
+        }
+    }
+
+    /**
+     * Writes an event into its slot and publishes it.
+     * The slot is claimed once it holds the event of the previous lap, so a producer lapping the ring waits for the writer of that event.
+     * The slot is marked as being written first, so that a subscription reading it at the same time discards what it read.
+     * @param sequence The claimed sequence number.
+     * @param type The type of the event, or null for a skipped event.
+     * @param entity The entity of the event.
+     * @param source The source entity of an evolution, or null.
+     * @param uuid The UUID of the entity.
+     * @param registryId The registry id of the entity.
+     * @param groups The groups of the entity.
+     */
+    private void write(long sequence, EntityEventType type, IEntity entity, IEntity source, UUID uuid, String registryId, String[] groups) {
+        Slot slot = ring[(int) sequence & mask];
+        long previous = sequence - capacity;
+        for (int spins = 0; slot.sequence != previous || !SEQUENCE.compareAndSet(slot, previous, WRITING); spins++) {
+            backOff(spins);
+        }
+        VarHandle.storeStoreFence();
+        slot.type = type;
+        slot.entity = entity;
+        slot.source = source;
+        slot.uuid = uuid;
+        slot.registryId = registryId;
+        slot.groups = groups;
+        slot.sequence = sequence;
+    }
+
+    /**
+     * Waits for another thread to finish with a slot, yielding then parking once spinning lasts,
+     * so a waiting producer does not keep the processor from the thread it waits for.
+     * @param spins The number of failed attempts so far.
+     */
+    private static void backOff(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else if (spins < SPINS * 2) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1);
+        }
+    }
+
+    /**
+     * Drops the entity references of the slots read by every subscription.
+     * A slot is marked as being released while its references are cleared, a writer reusing it waits for the two stores.
+     * @param end The sequence number up to which the slots can be released, excluded.
+     */
+    private void release(long end) {
+        long start = released.get();
+        if (start >= end || !released.compareAndSet(start, end)) return;
+        Slot[] slots = ring;
+        for (long sequence = Math.max(start, end - capacity); sequence < end; sequence++) {
+            Slot slot = slots[(int) sequence & mask];
+            if (SEQUENCE.compareAndSet(slot, sequence, RELEASING)) {
+                slot.entity = null;
+                slot.source = null;
+                slot.sequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * Checks if a slot of the ring still references an entity, as the entity or the source of its event.
+     * @param entity The entity.
+     * @return true if a slot references the entity, false otherwise.
+     */
+    boolean isReferenced(IEntity entity) {
+        Slot[] slots = ring;
+        if (slots == null) return false;
+        for (Slot slot : slots) {
+            if (slot.entity == entity || slot.source == entity) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the sequence number up to which every open subscription has read the ring.
+     * @return The lowest cursor of the subscriptions, or the next sequence number if there is none.
+     */
+    private long consumed() {
+        long end = next.get();
+        for (Subscription subscription : subscriptions) {
+            end = Math.min(end, subscription.cursor);
+        }
+        return end;
+    }
+
+    /**
+     * Slot of the ring buffer. The fields are written before the sequence, which publishes them.
+     */
+    private static final class Slot {
+
+        /**
+         * Sequence number of the event in the slot, {@link #WRITING} while it is written, {@link #RELEASING} while its references are dropped.
+         */
+        private volatile long sequence;
+
+        private EntityEventType type;
+        private IEntity entity;
+        private IEntity source;
+        private UUID uuid;
+        private String registryId;
+        private String[] groups;
+
+        /**
+         * Constructs an empty slot.
+         * @param sequence The sequence number of the lap before the first event written into the slot.
+         */
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Subscription of a listener to the bus, reading the ring buffer with its own cursor.
+     * Polling a subscription from one thread while other threads publish is safe, subscriptions can be polled from different threads.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final EntityEventListener listener;
+        private final EntityEventFilter filter;
+
+        /**
+         * Event reused for every delivery.
+         */
+        private final EntityEvent event = new EntityEvent();
+
+        /**
+         * Sequence number of the next event to read.
+         */
+        private volatile long cursor;
+
+        /**
+         * Number of events overwritten before being read.
+         */
+        private long lost;
+
+        private volatile boolean closed;
+
+        private Subscription(EntityEventListener listener, EntityEventFilter filter, long cursor) {
+            this.listener = listener;
+            this.filter = filter;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Delivers the events published since the previous poll to the listener, in publication order.
+         * Stops at the first event still being written, it is delivered by a later poll unless the ring has lapped it meanwhile.
+         * Events published by the listener itself are delivered by the next poll.
+         * An exception thrown by the listener ends the poll, the event that caused it is not delivered again.
+         * @return The number of delivered events.
+         */
+        public synchronized int poll() {
+            if (closed) return 0;
+            Slot[] slots = ring;
+            long end = next.get();
+            long position = cursor;
+            long skipped = 0;
+            int delivered = 0;
+            try {
+                while (position < end) {
+                    Slot slot = slots[(int) position & mask];
+                    long sequence = slot.sequence;
+                    if (sequence == position) {
+                        event.set(position, slot.type, slot.entity, slot.source, slot.uuid, slot.registryId, slot.groups);
+                        VarHandle.acquireFence();
+                        sequence = slot.sequence;
+                    }
+                    if (sequence == position) {
+                        position++;
+                        if (event.getType() != null && filter.matches(event)) {
+                            listener.onEvent(event);
+                            delivered++;
+                        }
+                    } else if (sequence > position || next.get() - position > capacity) {
+                        long oldest = Math.max(position + 1, next.get() - capacity);
+                        skipped += oldest - position;
+                        position = oldest;
+                    } else {
+                        break;
+                    }
+                }
+            } finally {
+                cursor = position;
+                event.set(0, null, null, null, null, null, null);
+                release(consumed());
+            }
+            if (skipped > 0) {
+                lost += skipped;
+                listener.onOverrun(skipped);
+            }
+            if (delivered > 0) {
+                listener.onBatchEnd(delivered);
+            }
+            return delivered;
+        }
+
+        /**
+         * Gets the number of events published but not read yet.
+         * @return The number of pending events, matching the filter or not.
+         */
+        public long getPendingCount() {
+            return Math.max(0, next.get() - cursor);
+        }
+
+        /**
+         * Gets the number of events overwritten before this subscription read them.
+         * @return The number of lost events.
+         */
+        public synchronized long getLostCount() {
+            return lost;
+        }
+
+        /**
+         * Closes the subscription, the listener receives no more events.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            synchronized (EntityEventBus.this) {
+                subscriptions.remove(this);
+                active = !subscriptions.isEmpty();
+                if (ring != null) release(consumed());
+            }
+        }
+    }
+}
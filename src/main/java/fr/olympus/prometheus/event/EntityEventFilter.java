@@ -0,0 +1,96 @@
+package fr.olympus.prometheus.event;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filter of the events delivered to a subscription, by event type, registry id and group.
+ * Filters are immutable, each method returns a new filter adding a condition. An event must match every condition.
+ */
+public final class EntityEventFilter {
+
+    private static final EntityEventFilter ALL = new EntityEventFilter(EnumSet.allOf(EntityEventType.class), null, null);
+
+    private final Set<EntityEventType> types;
+    private final Set<String> registryIds;
+    private final String[] groups;
+
+    private EntityEventFilter(Set<EntityEventType> types, Set<String> registryIds, String[] groups) {
+        this.types = types;
+        this.registryIds = registryIds;
+        this.groups = groups;
+    }
+
+    /**
+     * Gets the filter accepting every event.
+     * @return The filter.
+     */
+    public static EntityEventFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Restricts the filter to some event types.
+     * @param types The accepted event types.
+     * @return The new filter.
+     * @throws IllegalArgumentException if no type is given.
+     */
+    public EntityEventFilter types(EntityEventType... types) {
+        if (types == null || types.length == 0) throw new IllegalArgumentException("At least one event type is required");
+        EnumSet<EntityEventType> accepted = EnumSet.noneOf(EntityEventType.class);
+        for (EntityEventType type : types) {
+            if (this.types.contains(type)) accepted.add(type);
+        }
+        return new EntityEventFilter(accepted, registryIds, groups);
+    }
+
+    /**
+     * Restricts the filter to the entities of some registry ids.
+     * @param registryIds The accepted registry ids.
+     * @return The new filter.
+     * @throws IllegalArgumentException if no registry id is given.
+     */
+    public EntityEventFilter registryIds(String... registryIds) {
+        if (registryIds == null || registryIds.length == 0) throw new IllegalArgumentException("At least one registry id is required");
+        Set<String> accepted = new HashSet<>(Arrays.asList(registryIds));
+        if (this.registryIds != null) {
+            accepted.retainAll(this.registryIds);
+        }
+        return new EntityEventFilter(types, accepted, groups);
+    }
+
+    /**
+     * Restricts the filter to the entities belonging to all of some groups.
+     * @param groups The required groups.
+     * @return The new filter.
+     * @throws IllegalArgumentException if no group is given.
+     */
+    public EntityEventFilter groups(String... groups) {
+        if (groups == null || groups.length == 0) throw new IllegalArgumentException("At least one group is required");
+        String[] required = groups.clone();
+        if (this.groups != null) {
+            required = new String[this.groups.length + groups.length];
+            System.arraycopy(this.groups, 0, required, 0, this.groups.length);
+            System.arraycopy(groups, 0, required, this.groups.length, groups.length);
+        }
+        return new EntityEventFilter(types, registryIds, required);
+    }
+
+    /**
+     * Checks if an event matches the filter.
+     * @param event The event.
+     * @return true if the event matches every condition of the filter.
+     */
+    public boolean matches(EntityEvent event) {
+        if (!types.contains(event.getType())) return false;
+        if (registryIds != null && !registryIds.contains(event.getRegistryId())) return false;
+        if (groups != null) {
+            for (String group : groups) {
+                if (!event.hasGroup(group)) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package fr.olympus.prometheus.event;
+
+/**
+ * Receiver of the lifecycle events of a subscription to the {@link EntityEventBus}.
+ * Events are delivered in batches, on the thread polling the subscription.
+ */
+@FunctionalInterface
+public interface EntityEventListener {
+
+    /**
+     * Called for each event matching the filter of the subscription.
+     * @param event The event, only valid during this call.
+     */
+    void onEvent(EntityEvent event);
+
+    /**
+     * Called after the events of a poll have been delivered, if at least one event has been delivered.
+     * By default, this method does nothing.
+     * @param count The number of delivered events.
+     */
+    default void onBatchEnd(int count) {
+
+    }
+
+    /**
+     * Called when events have been overwritten before the subscription read them, because it was polled too late.
+     * By default, this method does nothing.
+     * @param lost The number of lost events, matching the filter or not.
+     */
+    default void onOverrun(long lost) {
+
+    }
+}
@@ -0,0 +1,33 @@
+package fr.olympus.prometheus.event;
+
+/**
+ * Types of the lifecycle events published on the {@link EntityEventBus}.
+ */
+public enum EntityEventType {
+
+    /**
+     * An entity has been loaded: spawned, created in a batch or restored.
+     */
+    SPAWN,
+
+    /**
+     * A dead entity has been removed from the loaded entities, after {@link fr.olympus.prometheus.entity.IEntity#kill()}.
+     */
+    DEATH,
+
+    /**
+     * A living entity has been removed from the loaded entities, for example with
+     * {@link fr.olympus.prometheus.resources.PrometheusData#destroyEntity(fr.olympus.prometheus.entity.IEntity)}.
+     */
+    DESTROY,
+
+    /**
+     * An entity has evolved: the event entity is the spawned entity and the event source is the evolved one.
+     */
+    EVOLVE,
+
+    /**
+     * The statistics of an entity have been merged or replaced.
+     */
+    STATS
+}
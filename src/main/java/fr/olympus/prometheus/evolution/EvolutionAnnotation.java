@@ -18,4 +18,13 @@ public @interface EvolutionAnnotation {
      */
     String id();
 
+    /**
+     * Gets whether the evolution condition is stateless.
+     * A stateless condition is instantiated once and the same instance is shared by every evolution check,
+     * so it must not keep any state and must be safe to call from several threads.
+     * Stateful conditions are instantiated on every lookup.
+     * @return true if a single shared instance is used, false to create a new instance on every lookup.
+     */
+    boolean stateless() default false;
+
 }
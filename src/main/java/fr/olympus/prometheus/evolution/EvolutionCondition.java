@@ -2,6 +2,7 @@ package fr.olympus.prometheus.evolution;
 
 /**
  * Interface representing a condition for evolution.
+ * Conditions declared stateless through {@link EvolutionAnnotation#stateless()} are shared between all entities and threads.
  */
 public interface EvolutionCondition {
     /**
@@ -0,0 +1,170 @@
+package fr.olympus.prometheus.evolution;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.metrics.EvolutionPassEvent;
+import fr.olympus.prometheus.metrics.PrometheusMetrics;
+import fr.olympus.prometheus.resources.PrometheusData;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch evolution of the loaded {@link EvolutionEntity} instances.
+ * A pass runs in two phases:
+ * <ol>
+ *     <li>The conditions of every candidate are checked in parallel on a {@link ForkJoinPool}, without changing the world.
+ *     For each entity, the first of its evolutions whose condition is met is selected,
+ *     see {@link fr.olympus.prometheus.resources.PrometheusData#getNextEvolutions(EvolutionEntity)}.</li>
+ *     <li>The selected evolutions are applied on the calling thread, in the order of the candidates,
+ *     through {@link EvolutionEntity#applyEvolution(String, EvolutionCondition)}.</li>
+ * </ol>
+ * Conditions must therefore not change the entities they check. Entities spawned by a pass are not evolved by the same pass,
+ * and the result of a pass does not depend on the number of threads.
+ */
+public final class EvolutionEngine {
+
+    /**
+     * Number of candidates below which a task checks its candidates itself instead of forking.
+     */
+    private static final int SPLIT_THRESHOLD = 256;
+
+    /**
+     * Pool running the checks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs an EvolutionEngine running its checks on the common pool.
+     */
+    public EvolutionEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs an EvolutionEngine.
+     * @param pool The pool running the checks.
+     * @throws IllegalArgumentException if pool is null.
+     */
+    public EvolutionEngine(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null");
+        this.pool = pool;
+    }
+
+    /**
+     * Evolves every loaded entity implementing {@link EvolutionEntity} whose evolution condition is met.
+     * The candidates are the loaded entities when the pass starts, in the order of {@link fr.olympus.prometheus.resources.PrometheusData#getLoadedEntities()}.
+     * @return The applied evolutions, in the order of the candidates.
+     */
+    public List<EvolutionTransition> evolveAll() {
+        Object[] loaded = Prometheus.getData().getLoadedEntities().toArray();
+        List<EvolutionEntity> candidates = new ArrayList<>(loaded.length);
+        for (Object entity : loaded) {
+            if (entity instanceof EvolutionEntity evolutionEntity) {
+                candidates.add(evolutionEntity);
+            }
+        }
+        return evolve(candidates);
+    }
+
+    /**
+     * Evolves the given entities whose evolution condition is met.
+     * @param entities The candidates, evolved in the iteration order of the collection.
+     * @return The applied evolutions, in the order of the candidates.
+     * @throws IllegalArgumentException if entities is null or contains null.
+     */
+    public List<EvolutionTransition> evolveAll(Collection<? extends EvolutionEntity> entities) {
+        if (entities == null) throw new IllegalArgumentException("Entities cannot be null");
+        List<EvolutionEntity> candidates = new ArrayList<>(entities);
+        if (candidates.contains(null)) throw new IllegalArgumentException("Entities cannot contain null");
+        return evolve(candidates);
+    }
+
+    /**
+     * Runs a pass over a snapshot of candidates.
+     * @param candidates The candidates.
+     * @return The applied evolutions, in the order of the candidates.
+     */
+    private List<EvolutionTransition> evolve(List<EvolutionEntity> candidates) {
+        PrometheusMetrics metrics = Prometheus.getData().getMetrics();
+        long start = metrics.start();
+        EvolutionPassEvent event = new EvolutionPassEvent();
+        event.begin();
+        int size = candidates.size();
+        String[] selectedIds = new String[size];
+        EvolutionCondition[] selected = new EvolutionCondition[size];
+
+        CheckTask check = new CheckTask(candidates, selectedIds, selected, 0, size);
+        if (size <= SPLIT_THRESHOLD) {
+            check.compute();
+        } else {
+            pool.invoke(check);
+        }
+
+        List<EvolutionTransition> transitions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (selected[i] == null) continue;
+            EvolutionEntity source = candidates.get(i);
+            IEntity result = source.applyEvolution(selectedIds[i], selected[i]);
+            if (result != null) {
+                transitions.add(new EvolutionTransition(source, selectedIds[i], result));
+            }
+        }
+        metrics.recordEvolutions(size, transitions.size(), start);
+        if (event.shouldCommit()) {
+            event.candidates = size;
+            event.evolved = transitions.size();
+            event.commit();
+        }
+        return transitions;
+    }
+
+    /**
+     * Selects the evolution of a range of candidates, splitting the range while it is large.
+     */
+    private static final class CheckTask extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<EvolutionEntity> candidates;
+        private final transient String[] selectedIds;
+        private final transient EvolutionCondition[] selected;
+        private final int from;
+        private final int to;
+
+        private CheckTask(List<EvolutionEntity> candidates, String[] selectedIds, EvolutionCondition[] selected, int from, int to) {
+            this.candidates = candidates;
+            this.selectedIds = selectedIds;
+            this.selected = selected;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CheckTask(candidates, selectedIds, selected, from, middle),
+                        new CheckTask(candidates, selectedIds, selected, middle, to));
+                return;
+            }
+            PrometheusData data = Prometheus.getData();
+            for (int i = from; i < to; i++) {
+                EvolutionEntity entity = candidates.get(i);
+                for (String conditionId : data.getNextEvolutions(entity)) {
+                    EvolutionCondition condition = entity.getEvolutionCondition(conditionId);
+                    if (entity.canEvolveTo(condition)) {
+                        selectedIds[i] = conditionId;
+                        selected[i] = condition;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,10 @@ package fr.olympus.prometheus.evolution;
 import fr.olympus.prometheus.Prometheus;
 import fr.olympus.prometheus.entity.IEntity;
 import fr.olympus.prometheus.entity.StatableEntity;
+import fr.olympus.prometheus.event.EntityEventType;
+import fr.olympus.prometheus.metrics.EvolutionEvent;
+import fr.olympus.prometheus.metrics.PrometheusMetrics;
+import fr.olympus.prometheus.resources.PrometheusData;
 
 import java.util.List;
 
@@ -25,6 +29,18 @@ public interface EvolutionEntity extends IEntity {
      */
     List<String> getPreviousEvolutions();
 
+    /**
+     * Checks if {@link #getNextEvolutions()} changes at runtime.
+     * By default, every entity of a registry id is assumed to declare the evolutions of a freshly created instance,
+     * so evolution checks answer from the {@link fr.olympus.prometheus.resources.EvolutionGraph evolution graph} in constant time.
+     * Entities adding or removing evolutions at runtime return true to be checked against their own list.
+     *
+     * @return true if the evolutions of this entity can differ from the ones of its registry id, false otherwise.
+     */
+    default boolean hasRuntimeEvolutions() {
+        return false;
+    }
+
     /**
      * Checks if this entity can evolve to the given evolution condition.
      *
@@ -38,16 +54,17 @@ public interface EvolutionEntity extends IEntity {
 
     /**
      * Gets the evolution condition associated with the given evolution condition ID.
+     * The ID is checked against {@link #getNextEvolutions()} through {@link fr.olympus.prometheus.resources.PrometheusData#hasEvolution(EvolutionEntity, String)},
+     * which answers from the evolution graph once it is built.
      *
      * @param evolutionConditionID the unique identifier of the evolution condition to retrieve.
      * @return the evolution condition associated with the given evolution condition ID, or null if no such evolution condition exists.
      */
     default EvolutionCondition getEvolutionCondition(String evolutionConditionID) {
-        String condition = getNextEvolutions().stream().filter(id -> id.equals(evolutionConditionID))
-                .findFirst()
-                .orElse(null);
-        if (condition == null) return null;
-        return Prometheus.getData().getEvolutionCondition(condition);
+        if (evolutionConditionID == null) return null;
+        PrometheusData data = Prometheus.getData();
+        if (!data.hasEvolution(this, evolutionConditionID)) return null;
+        return data.getEvolutionCondition(evolutionConditionID);
     }
 
     /**
@@ -57,20 +74,42 @@ public interface EvolutionEntity extends IEntity {
      * @return true if this entity was successfully evolved to the given evolution condition ID, false otherwise.
      */
     default boolean evolveTo(String evolutionConditionID) {
+        PrometheusMetrics metrics = Prometheus.getData().getMetrics();
+        long start = metrics.start();
+        EvolutionEvent event = new EvolutionEvent();
+        event.begin();
         EvolutionCondition evolutionCondition = getEvolutionCondition(evolutionConditionID);
-        if (canEvolveTo(evolutionCondition)) {
-            String registryId = evolutionCondition.getEntityId();
-            if (registryId == null) return false;
-            IEntity newEntity = Prometheus.getData().createEntity(registryId);
-            if (this instanceof StatableEntity statableEntity && newEntity instanceof StatableEntity newStatableEntity) {
-                newStatableEntity.mergeStats(statableEntity.getStatsValues());
-            }
-            mergeData(newEntity);
-            getPreviousEvolutions().add(evolutionConditionID);
+        boolean evolved = canEvolveTo(evolutionCondition) && applyEvolution(evolutionConditionID, evolutionCondition) != null;
+        metrics.recordEvolutions(1, evolved ? 1 : 0, start);
+        if (event.shouldCommit()) {
+            event.registryId = getRegistryId();
+            event.conditionId = evolutionConditionID;
+            event.evolved = evolved;
+            event.commit();
+        }
+        return evolved;
+    }
 
-            return true;
+    /**
+     * Applies an evolution without checking its condition: spawns the entity of the condition, merges the statistics
+     * and the data of this entity into it, and records the evolution in {@link #getPreviousEvolutions()}.
+     * Used by {@link #evolveTo(String)} and by {@link EvolutionEngine} once the condition has been checked.
+     *
+     * @param evolutionConditionID the unique identifier of the evolution condition.
+     * @param evolutionCondition the evolution condition, already checked against this entity.
+     * @return the spawned entity, or null if the condition defines no entity.
+     */
+    default IEntity applyEvolution(String evolutionConditionID, EvolutionCondition evolutionCondition) {
+        String registryId = evolutionCondition.getEntityId();
+        if (registryId == null) return null;
+        IEntity newEntity = Prometheus.getData().createEntity(registryId);
+        if (this instanceof StatableEntity statableEntity && newEntity instanceof StatableEntity newStatableEntity) {
+            newStatableEntity.mergeStats(statableEntity.getStatsValues());
         }
-        return false;
+        mergeData(newEntity);
+        getPreviousEvolutions().add(evolutionConditionID);
+        Prometheus.getData().getEventBus().publish(EntityEventType.EVOLVE, newEntity, this);
+        return newEntity;
     }
 
     /**
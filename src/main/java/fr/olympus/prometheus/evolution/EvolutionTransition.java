@@ -0,0 +1,12 @@
+package fr.olympus.prometheus.evolution;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+/**
+ * Evolution applied by an {@link EvolutionEngine} pass.
+ * @param source The entity that evolved.
+ * @param conditionId The unique identifier of the evolution condition that was met.
+ * @param result The entity spawned by the evolution.
+ */
+public record EvolutionTransition(EvolutionEntity source, String conditionId, IEntity result) {
+}
@@ -0,0 +1,41 @@
+package fr.olympus.prometheus.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of an evolution attempt through {@code EvolutionEntity.evolveTo}.
+ */
+@Name("fr.olympus.prometheus.Evolution")
+@Label("Prometheus Evolution")
+@Category("Prometheus")
+@Description("Evolution attempt of an entity")
+public final class EvolutionEvent extends Event {
+
+    /**
+     * Constructs a EvolutionEvent, recorded once committed.
+     */
+    public EvolutionEvent() {
+    }
+
+    /**
+     * Registry id of the evolving entity.
+     */
+    @Label("Registry Id")
+    public String registryId;
+
+    /**
+     * Id of the evolution condition.
+     */
+    @Label("Condition")
+    public String conditionId;
+
+    /**
+     * Whether the entity has evolved.
+     */
+    @Label("Evolved")
+    public boolean evolved;
+}
@@ -0,0 +1,35 @@
+package fr.olympus.prometheus.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of an evolution pass of an {@code EvolutionEngine}.
+ */
+@Name("fr.olympus.prometheus.EvolutionPass")
+@Label("Prometheus Evolution Pass")
+@Category("Prometheus")
+@Description("Evolution pass over many entities")
+public final class EvolutionPassEvent extends Event {
+
+    /**
+     * Constructs a EvolutionPassEvent, recorded once committed.
+     */
+    public EvolutionPassEvent() {
+    }
+
+    /**
+     * Number of checked entities.
+     */
+    @Label("Candidates")
+    public int candidates;
+
+    /**
+     * Number of applied evolutions.
+     */
+    @Label("Evolved")
+    public int evolved;
+}
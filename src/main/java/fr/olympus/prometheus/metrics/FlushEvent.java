@@ -0,0 +1,35 @@
+package fr.olympus.prometheus.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a flush of the deferred spawns and kills.
+ */
+@Name("fr.olympus.prometheus.Flush")
+@Label("Prometheus Flush")
+@Category("Prometheus")
+@Description("Flush of the deferred spawns and kills")
+public final class FlushEvent extends Event {
+
+    /**
+     * Constructs a FlushEvent, recorded once committed.
+     */
+    public FlushEvent() {
+    }
+
+    /**
+     * Number of loaded entities.
+     */
+    @Label("Spawns")
+    public int spawns;
+
+    /**
+     * Number of destroyed entities.
+     */
+    @Label("Kills")
+    public int kills;
+}
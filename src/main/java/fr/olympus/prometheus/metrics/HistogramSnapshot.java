@@ -0,0 +1,46 @@
+package fr.olympus.prometheus.metrics;
+
+/**
+ * Snapshot of a {@link LatencyHistogram}.
+ * @param count The number of recorded durations.
+ * @param totalNanos The sum of the recorded durations, in nanoseconds.
+ * @param maxNanos The longest recorded duration, in nanoseconds.
+ * @param buckets The number of durations of each power-of-two bucket, see {@link LatencyHistogram}.
+ */
+public record HistogramSnapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+
+    /**
+     * Gets the average recorded duration.
+     * @return The average duration in nanoseconds, 0 if nothing has been recorded.
+     */
+    public double averageNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the recorded durations, precise to a factor of two.
+     * @param percentile The percentile, between 0.0 and 100.0.
+     * @return The upper bound of the bucket holding the percentile in nanoseconds, at most the longest duration, 0 if nothing has been recorded.
+     * @throws IllegalArgumentException if percentile is not between 0.0 and 100.0.
+     */
+    public long percentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                long bound = i == 0 ? 0 : i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(bound, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{count=" + count + ", avg=" + (long) averageNanos() + "ns, p50=" + percentileNanos(50)
+                + "ns, p99=" + percentileNanos(99) + "ns, max=" + maxNanos + "ns}";
+    }
+}
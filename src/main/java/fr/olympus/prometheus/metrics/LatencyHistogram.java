@@ -0,0 +1,66 @@
+package fr.olympus.prometheus.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with power-of-two buckets, recorded without locking.
+ * Bucket {@code i} counts the durations between 2^(i-1) and 2^i - 1 nanoseconds, bucket 0 counts the durations of 0 nanoseconds.
+ * Counters are striped, so threads recording at the same time rarely contend.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of buckets, enough for any positive long.
+     */
+    static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs an empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     * @param nanos The duration in nanoseconds, negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Takes a snapshot of the histogram. Durations recorded during the snapshot may be partially included.
+     * @return The snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        return new HistogramSnapshot(count, total.sum(), max.get(), counts);
+    }
+
+    /**
+     * Clears the histogram.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,26 @@
+package fr.olympus.prometheus.metrics;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the {@link PrometheusMetrics} of a Prometheus instance.
+ * @param spawns The number of loaded entities.
+ * @param deaths The number of killed entities removed from the loaded entities.
+ * @param destructions The number of living entities removed from the loaded entities.
+ * @param evolutionAttempts The number of evolution checks, one per entity given to an evolution.
+ * @param evolutions The number of applied evolutions.
+ * @param queries The number of timed queries of the loaded entities, by group or registry id.
+ * @param flushes The number of flushes of the deferred changes.
+ * @param registrations The number of auto-registrations.
+ * @param queryLatency The durations of the queries.
+ * @param evolutionLatency The durations of the evolutions, per call of {@code evolveTo} or evolution pass.
+ * @param flushLatency The durations of the flushes.
+ * @param registrationLatency The durations of the auto-registrations.
+ * @param loadedByRegistryId The number of loaded entities by registry id.
+ */
+public record MetricsSnapshot(long spawns, long deaths, long destructions, long evolutionAttempts, long evolutions,
+                              long queries, long flushes, long registrations,
+                              HistogramSnapshot queryLatency, HistogramSnapshot evolutionLatency,
+                              HistogramSnapshot flushLatency, HistogramSnapshot registrationLatency,
+                              Map<String, Integer> loadedByRegistryId) {
+}
@@ -0,0 +1,138 @@
+package fr.olympus.prometheus.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of a Prometheus instance, see {@link fr.olympus.prometheus.Prometheus#getMetrics()}.
+ * Counters are striped {@link LongAdder}s, so recording from several threads rarely contends.
+ * When metrics are disabled in the configuration, every record method returns immediately.
+ */
+public final class PrometheusMetrics {
+
+    private final boolean enabled;
+
+    private final LongAdder spawns = new LongAdder();
+    private final LongAdder deaths = new LongAdder();
+    private final LongAdder destructions = new LongAdder();
+    private final LongAdder evolutionAttempts = new LongAdder();
+    private final LongAdder evolutions = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder registrations = new LongAdder();
+
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+    private final LatencyHistogram evolutionLatency = new LatencyHistogram();
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LatencyHistogram registrationLatency = new LatencyHistogram();
+
+    /**
+     * Constructs a PrometheusMetrics.
+     * @param enabled true to record, false to ignore every record.
+     */
+    public PrometheusMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Checks if metrics are recorded.
+     * @return true if metrics are recorded, false if they are disabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the start time of a timed operation.
+     * @return The current value of {@link System#nanoTime()}, or 0 if metrics are disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records loaded entities.
+     * @param count The number of loaded entities.
+     */
+    public void recordSpawns(int count) {
+        if (enabled) spawns.add(count);
+    }
+
+    /**
+     * Records an entity removed from the loaded entities.
+     * @param dead true if the entity had been killed, false if it was destroyed while alive.
+     */
+    public void recordRemoval(boolean dead) {
+        if (!enabled) return;
+        if (dead) deaths.increment();
+        else destructions.increment();
+    }
+
+    /**
+     * Records a query of the loaded entities.
+     * @param start The start time returned by {@link #start()}.
+     */
+    public void recordQuery(long start) {
+        if (!enabled) return;
+        queries.increment();
+        queryLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records evolution checks.
+     * @param attempts The number of checked entities.
+     * @param evolved The number of applied evolutions.
+     * @param start The start time returned by {@link #start()}.
+     */
+    public void recordEvolutions(int attempts, int evolved, long start) {
+        if (!enabled) return;
+        evolutionAttempts.add(attempts);
+        evolutions.add(evolved);
+        evolutionLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a flush of the deferred changes.
+     * @param start The start time returned by {@link #start()}.
+     */
+    public void recordFlush(long start) {
+        if (!enabled) return;
+        flushes.increment();
+        flushLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records an auto-registration.
+     * @param start The start time returned by {@link #start()}.
+     */
+    public void recordRegistration(long start) {
+        if (!enabled) return;
+        registrations.increment();
+        registrationLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Takes a snapshot of the metrics. Values recorded during the snapshot may be partially included.
+     * @param loadedByRegistryId The number of loaded entities by registry id, included as is.
+     * @return The snapshot.
+     */
+    public MetricsSnapshot snapshot(Map<String, Integer> loadedByRegistryId) {
+        return new MetricsSnapshot(spawns.sum(), deaths.sum(), destructions.sum(), evolutionAttempts.sum(), evolutions.sum(),
+                queries.sum(), flushes.sum(), registrations.sum(),
+                queryLatency.snapshot(), evolutionLatency.snapshot(), flushLatency.snapshot(), registrationLatency.snapshot(),
+                loadedByRegistryId);
+    }
+
+    /**
+     * Clears the counters and the histograms.
+     */
+    public void reset() {
+        for (LongAdder counter : new LongAdder[]{spawns, deaths, destructions, evolutionAttempts, evolutions, queries, flushes, registrations}) {
+            counter.reset();
+        }
+        queryLatency.reset();
+        evolutionLatency.reset();
+        flushLatency.reset();
+        registrationLatency.reset();
+    }
+}
@@ -0,0 +1,48 @@
+package fr.olympus.prometheus.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of an auto-registration.
+ */
+@Name("fr.olympus.prometheus.Registration")
+@Label("Prometheus Registration")
+@Category("Prometheus")
+@Description("Auto-registration of annotated entity and evolution classes")
+public final class RegistrationEvent extends Event {
+
+    /**
+     * Constructs a RegistrationEvent, recorded once committed.
+     */
+    public RegistrationEvent() {
+    }
+
+    /**
+     * Source of the registered classes: index, cache or scan,
+     * or index+cache and index+scan when the indexes cover only some of the base packages.
+     */
+    @Label("Source")
+    public String source;
+
+    /**
+     * Scanned base packages.
+     */
+    @Label("Packages")
+    public String packages;
+
+    /**
+     * Number of registered entity classes.
+     */
+    @Label("Entities")
+    public int entities;
+
+    /**
+     * Number of registered evolution classes.
+     */
+    @Label("Evolutions")
+    public int evolutions;
+}
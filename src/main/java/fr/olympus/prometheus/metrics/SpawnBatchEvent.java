@@ -0,0 +1,41 @@
+package fr.olympus.prometheus.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a batch creation of entities.
+ */
+@Name("fr.olympus.prometheus.SpawnBatch")
+@Label("Prometheus Spawn Batch")
+@Category("Prometheus")
+@Description("Batch creation of entities of a registry id")
+public final class SpawnBatchEvent extends Event {
+
+    /**
+     * Constructs a SpawnBatchEvent, recorded once committed.
+     */
+    public SpawnBatchEvent() {
+    }
+
+    /**
+     * Registry id of the created entities.
+     */
+    @Label("Registry Id")
+    public String registryId;
+
+    /**
+     * Number of created entities.
+     */
+    @Label("Count")
+    public int count;
+
+    /**
+     * Whether the instances have been constructed in parallel.
+     */
+    @Label("Parallel")
+    public boolean parallel;
+}
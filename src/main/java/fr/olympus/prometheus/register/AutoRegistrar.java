@@ -5,16 +5,36 @@ import fr.olympus.prometheus.entity.EntityAnnotation;
 import fr.olympus.prometheus.entity.IEntity;
 import fr.olympus.prometheus.evolution.EvolutionAnnotation;
 import fr.olympus.prometheus.evolution.EvolutionCondition;
+import fr.olympus.prometheus.metrics.RegistrationEvent;
 import fr.olympus.prometheus.resources.PrometheusData;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ScanResult;
 
-import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Utility class for automatically registering materials, factories, and process recipes
  * by scanning specified base packages for annotated classes.
+ * Compile-time {@link RegistryIndex} implementations can replace the scan of the packages they cover,
+ * and the scan results can be cached on disk, see {@link fr.olympus.prometheus.PrometheusConfig.Builder#scanCache}.
  */
 public final class AutoRegistrar {
 
@@ -25,11 +45,21 @@ public final class AutoRegistrar {
 
     /**
      * Registers components based on the specified type and base packages.
+     * If the configuration enables the registry indexes, the classes listed by the {@link RegistryIndex} implementations
+     * generated by the Prometheus annotation processor are registered, and only the base packages in which no index has a class
+     * are scanned. A base package in which an index has a class is not scanned: every module with annotated classes
+     * in that package must then be compiled with the processor.
+     * <p>
+     * Every annotated class is loaded and validated before anything is registered, then all the entries are published
+     * at once through {@link PrometheusData#registerAll}: either every class is registered, or none is.
+     * With {@link fr.olympus.prometheus.PrometheusConfig.Builder#registrationThreads} greater than 1,
+     * scanning, loading and validation run on a worker pool.
      *
      * @param type         The type of components to register. see {@link RegisterType}.
      * @param basePackages The base packages to scan for components.
      * @throws IllegalArgumentException if type is null or basePackages is null/empty.
-     * @throws IllegalStateException    if any annotated class is invalid or cannot be instantiated.
+     * @throws IllegalStateException    if any annotated class is invalid or cannot be instantiated,
+     *                                  or if several classes declare the same id.
      */
     public static void register(RegisterType type, String... basePackages) {
         if (type == null) throw new IllegalArgumentException("type cannot be null.");
@@ -37,72 +67,399 @@ public final class AutoRegistrar {
             throw new IllegalArgumentException("basePackages required.");
 
         PrometheusData data = Prometheus.getData();
+        long start = data.getMetrics().start();
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
+        int threads = Prometheus.getConfig().getRegistrationThreads();
+        ExecutorService executor = threads > 1 ? newExecutor(threads) : null;
+        try {
+            Candidates candidates = new Candidates();
+            String[] remaining = basePackages;
+            if (Prometheus.getConfig().isRegistryIndexEnabled()) {
+                List<RegistryIndex> indexes = loadIndexes();
+                if (!indexes.isEmpty()) {
+                    remaining = indexedCandidates(indexes, type, basePackages, candidates);
+                    if (remaining.length == 0) {
+                        event.source = "index";
+                        publish(data, candidates, executor, event);
+                        return;
+                    }
+                }
+            }
+            String prefix = remaining == basePackages ? "" : "index+";
 
-        try (ScanResult scan = new ClassGraph()
-                .enableClassInfo()
-                .enableAnnotationInfo()
-                .acceptPackages(basePackages)
-                .scan()) {
-
-            if (type == RegisterType.ALL || type == RegisterType.ENTITY) {
+            Path cache = Prometheus.getConfig().getScanCache();
+            if (cache != null) {
+                event.source = prefix + "cache";
+                cachedCandidates(new ScanCache(cache, remaining).load(executor, threads), type, candidates);
+                publish(data, candidates, executor, event);
+                return;
+            }
 
-                for (ClassInfo ci : scan.getClassesWithAnnotation(EntityAnnotation.class.getName())) {
-                    Class<?> raw = ci.loadClass();
-                    if (!IEntity.class.isAssignableFrom(raw)) {
-                        throw new IllegalStateException("@EntityAnnotation on non-Entity: " + raw.getName());
+            ClassGraph classGraph = new ClassGraph()
+                    .enableClassInfo()
+                    .enableAnnotationInfo()
+                    .acceptPackages(remaining);
+            try (ScanResult scan = executor != null ? classGraph.scan(executor, threads) : classGraph.scan()) {
+                if (type == RegisterType.ALL || type == RegisterType.ENTITY) {
+                    for (ClassInfo ci : scan.getClassesWithAnnotation(EntityAnnotation.class.getName())) {
+                        candidates.addEntity(new Candidate(ci.getName(), ci::loadClass, null));
+                    }
+                }
+                if (type == RegisterType.ALL || type == RegisterType.EVOLUTION) {
+                    for (ClassInfo ci : scan.getClassesWithAnnotation(EvolutionAnnotation.class.getName())) {
+                        candidates.addEvolution(new Candidate(ci.getName(), ci::loadClass, null));
                     }
-                    @SuppressWarnings("unchecked")
-                    Class<? extends IEntity> clazz = (Class<? extends IEntity>) raw;
+                }
+                // Classes are loaded through the scan result, so they are published before it is closed
+                event.source = prefix + "scan";
+                publish(data, candidates, executor, event);
+            }
+        } finally {
+            if (executor != null) executor.shutdownNow();
+            data.getMetrics().recordRegistration(start);
+            if (event.shouldCommit()) {
+                event.packages = String.join(",", basePackages);
+                event.commit();
+            }
+        }
+    }
 
-                    EntityAnnotation ann = clazz.getAnnotation(EntityAnnotation.class);
+    /**
+     * Loads every {@link RegistryIndex} visible from the context class loader.
+     * @return The available indexes, empty if no module has been compiled with the annotation processor.
+     */
+    private static List<RegistryIndex> loadIndexes() {
+        List<RegistryIndex> indexes = new ArrayList<>();
+        for (RegistryIndex index : ServiceLoader.load(RegistryIndex.class)) {
+            indexes.add(index);
+        }
+        return indexes;
+    }
 
-                    EntityRegistryEntry entry = new EntityRegistryEntry(
-                            ann.id(),
-                            () -> newInstance(clazz),
-                            ann.groups()
-                    );
-                    data.registerEntity(entry);
+    /**
+     * Lists the indexed classes belonging to the base packages.
+     * Classes outside the base packages are not loaded.
+     *
+     * @param indexes      The available indexes.
+     * @param type         The type of components to register.
+     * @param basePackages The base packages of the components.
+     * @param candidates   The classes to register, receiving the indexed classes.
+     * @return The base packages in which no index has a class, they must still be scanned.
+     */
+    private static String[] indexedCandidates(List<RegistryIndex> indexes, RegisterType type, String[] basePackages, Candidates candidates) {
+        boolean entities = type == RegisterType.ALL || type == RegisterType.ENTITY;
+        boolean evolutions = type == RegisterType.ALL || type == RegisterType.EVOLUTION;
+        boolean[] covered = new boolean[basePackages.length];
+        for (RegistryIndex index : indexes) {
+            ClassLoader loader = index.getClass().getClassLoader();
+            index.collect(new RegistryIndex.Collector() {
+                @Override
+                public void entity(String className, Supplier<? extends IEntity> supplier) {
+                    if (cover(className, basePackages, covered) && entities) {
+                        candidates.addEntity(new Candidate(className, () -> loadClass(className, loader), supplier));
+                    }
                 }
-            }
 
-            if (type == RegisterType.ALL || type == RegisterType.EVOLUTION) {
-                for (ClassInfo ci : scan.getClassesWithAnnotation(EvolutionAnnotation.class.getName())) {
-                    Class<?> raw = ci.loadClass();
-                    if (!EvolutionCondition.class.isAssignableFrom(raw)) {
-                        throw new IllegalStateException("@EvolutionAnnotation on non-EvolutionCondition: " + raw.getName());
+                @Override
+                public void evolution(String className, Supplier<? extends EvolutionCondition> supplier) {
+                    if (cover(className, basePackages, covered) && evolutions) {
+                        candidates.addEvolution(new Candidate(className, () -> loadClass(className, loader), supplier));
                     }
-                    @SuppressWarnings("unchecked")
-                    Class<? extends EvolutionCondition> clazz = (Class<? extends EvolutionCondition>) raw;
+                }
+            });
+        }
+        List<String> remaining = new ArrayList<>();
+        for (int i = 0; i < basePackages.length; i++) {
+            if (!covered[i]) remaining.add(basePackages[i]);
+        }
+        return remaining.toArray(new String[0]);
+    }
 
-                    EvolutionAnnotation ann = clazz.getAnnotation(EvolutionAnnotation.class);
+    /**
+     * Marks the base packages containing an indexed class as covered by the indexes.
+     *
+     * @param className    The binary name of the indexed class.
+     * @param basePackages The base packages.
+     * @param covered      The coverage of the base packages, by position.
+     * @return true if the class belongs to one of the base packages, false otherwise.
+     */
+    private static boolean cover(String className, String[] basePackages, boolean[] covered) {
+        boolean found = false;
+        for (int i = 0; i < basePackages.length; i++) {
+            if (inPackage(className, basePackages[i])) {
+                covered[i] = true;
+                found = true;
+            }
+        }
+        return found;
+    }
 
-                    EvolutionRegistryEntry entry = new EvolutionRegistryEntry(
-                            ann.id(),
-                            () -> newInstance(clazz)
-                    );
-                    data.registerEvolution(entry);
-                }
+    /**
+     * Lists the classes found through the scan cache.
+     *
+     * @param classes    The annotated classes of the base packages.
+     * @param type       The type of components to register.
+     * @param candidates The classes to register, receiving the cached classes.
+     */
+    private static void cachedCandidates(ScanCache.Classes classes, RegisterType type, Candidates candidates) {
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader loader = contextLoader != null ? contextLoader : AutoRegistrar.class.getClassLoader();
+
+        if (type == RegisterType.ALL || type == RegisterType.ENTITY) {
+            for (String className : classes.entities()) {
+                candidates.addEntity(new Candidate(className, () -> loadClass(className, loader), null));
+            }
+        }
+        if (type == RegisterType.ALL || type == RegisterType.EVOLUTION) {
+            for (String className : classes.evolutions()) {
+                candidates.addEvolution(new Candidate(className, () -> loadClass(className, loader), null));
             }
         }
     }
 
     /**
-     * Creates a new instance of the specified class using its no-argument constructor.
+     * Builds the registry entries of the candidates and publishes them at once.
      *
-     * @param clazz The class to instantiate.
-     * @param <T>   The type of the class.
-     * @return A new instance of the specified class.
-     * @throws IllegalStateException if the class cannot be instantiated.
+     * @param data       The data receiving the registry entries.
+     * @param candidates The classes to register.
+     * @param executor   The worker pool building the entries, or null to build them on the calling thread.
+     * @param event      The Flight Recorder event of the registration, receiving the number of published entries.
+     * @throws IllegalStateException if any class is invalid, or if several classes declare the same id.
      */
-    private static <T> T newInstance(Class<T> clazz) {
+    @SuppressWarnings("unchecked")
+    private static void publish(PrometheusData data, Candidates candidates, ExecutorService executor, RegistrationEvent event) {
+        List<EntityRegistryEntry> entities = build(candidates.entities, executor,
+                candidate -> entityEntry(candidate.load(), (Supplier<? extends IEntity>) candidate.supplier()));
+        List<EvolutionRegistryEntry> evolutions = build(candidates.evolutions, executor,
+                candidate -> evolutionEntry(candidate.load(), (Supplier<? extends EvolutionCondition>) candidate.supplier()));
+
+        checkDuplicates("entity", candidates.entities, entities, EntityRegistryEntry::id);
+        checkDuplicates("evolution", candidates.evolutions, evolutions, EvolutionRegistryEntry::id);
+
+        data.registerAll(entities, evolutions);
+        event.entities = entities.size();
+        event.evolutions = evolutions.size();
+    }
+
+    /**
+     * Builds the registry entries of candidates, in parallel when an executor is given.
+     * The entries keep the order of the candidates, and if several classes are invalid,
+     * the failure of the first one in that order is reported whatever the scheduling.
+     *
+     * @param candidates The classes to build.
+     * @param executor   The worker pool, or null to build the entries on the calling thread.
+     * @param builder    The function building the entry of a class.
+     * @param <T>        The type of the entries.
+     * @return The entries, in the order of the candidates.
+     * @throws IllegalStateException if any class is invalid.
+     */
+    private static <T> List<T> build(List<Candidate> candidates, ExecutorService executor, Function<Candidate, T> builder) {
+        int size = candidates.size();
+        List<T> entries = new ArrayList<>(size);
+        if (executor == null || size < 2) {
+            for (Candidate candidate : candidates) {
+                entries.add(builder.apply(candidate));
+            }
+            return entries;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(size);
+        for (Candidate candidate : candidates) {
+            futures.add(executor.submit(() -> builder.apply(candidate)));
+        }
+        for (Future<T> future : futures) {
+            try {
+                entries.add(future.get());
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtime) throw runtime;
+                if (cause instanceof Error error) throw error;
+                throw new IllegalStateException("Cannot register: " + cause, cause);
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while registering", e);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Checks that no two classes declare the same id.
+     * The report lists every duplicate id in alphabetical order, each with its classes in alphabetical order,
+     * so it does not depend on the scan order.
+     *
+     * @param kind       The kind of entries, used in the report.
+     * @param candidates The classes of the entries.
+     * @param entries    The entries, in the order of the candidates.
+     * @param idOf       The function giving the id of an entry.
+     * @param <T>        The type of the entries.
+     * @throws IllegalStateException if several classes declare the same id.
+     */
+    private static <T> void checkDuplicates(String kind, List<Candidate> candidates, List<T> entries, Function<T, String> idOf) {
+        Map<String, List<String>> classesById = new HashMap<>(entries.size() * 2);
+        boolean duplicated = false;
+        for (int i = 0; i < entries.size(); i++) {
+            List<String> classes = classesById.computeIfAbsent(idOf.apply(entries.get(i)), id -> new ArrayList<>(1));
+            String className = candidates.get(i).className();
+            // A class listed twice, for example by two registry indexes, does not conflict with itself
+            if (!classes.contains(className)) {
+                classes.add(className);
+                duplicated |= classes.size() > 1;
+            }
+        }
+        if (!duplicated) return;
+
+        StringJoiner report = new StringJoiner("; ", "Duplicate " + kind + " ids: ", "");
+        new TreeMap<>(classesById).forEach((id, classes) -> {
+            if (classes.size() > 1) {
+                report.add(id + " declared by " + String.join(", ", classes.stream().sorted().toList()));
+            }
+        });
+        throw new IllegalStateException(report.toString());
+    }
+
+    /**
+     * Creates the worker pool of a parallel registration.
+     *
+     * @param threads The number of worker threads.
+     * @return A fixed thread pool of daemon threads.
+     */
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "prometheus-register-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Builds the registry entry of a class annotated with {@link EntityAnnotation}.
+     *
+     * @param raw      The annotated class.
+     * @param supplier A supplier of instances, or null to resolve the no-arg constructor of the class once.
+     * @return The registry entry of the class.
+     * @throws IllegalStateException if the class does not implement {@link IEntity} or is not annotated.
+     */
+    private static EntityRegistryEntry entityEntry(Class<?> raw, Supplier<? extends IEntity> supplier) {
+        if (!IEntity.class.isAssignableFrom(raw)) {
+            throw new IllegalStateException("@EntityAnnotation on non-Entity: " + raw.getName());
+        }
+        @SuppressWarnings("unchecked")
+        Class<? extends IEntity> clazz = (Class<? extends IEntity>) raw;
+
+        EntityAnnotation ann = clazz.getAnnotation(EntityAnnotation.class);
+        if (ann == null) throw new IllegalStateException("Missing @EntityAnnotation on: " + raw.getName());
+
+        return new EntityRegistryEntry(
+                ann.id(),
+                supplier != null ? supplier : InstanceFactories.of(clazz),
+                ann.groups(),
+                ann.poolCapacity()
+        );
+    }
+
+    /**
+     * Builds the registry entry of a class annotated with {@link EvolutionAnnotation}.
+     *
+     * @param raw      The annotated class.
+     * @param supplier A supplier of instances, or null to resolve the no-arg constructor of the class once.
+     * @return The registry entry of the class.
+     * @throws IllegalStateException if the class does not implement {@link EvolutionCondition} or is not annotated.
+     */
+    private static EvolutionRegistryEntry evolutionEntry(Class<?> raw, Supplier<? extends EvolutionCondition> supplier) {
+        if (!EvolutionCondition.class.isAssignableFrom(raw)) {
+            throw new IllegalStateException("@EvolutionAnnotation on non-EvolutionCondition: " + raw.getName());
+        }
+        @SuppressWarnings("unchecked")
+        Class<? extends EvolutionCondition> clazz = (Class<? extends EvolutionCondition>) raw;
+
+        EvolutionAnnotation ann = clazz.getAnnotation(EvolutionAnnotation.class);
+        if (ann == null) throw new IllegalStateException("Missing @EvolutionAnnotation on: " + raw.getName());
+
+        return new EvolutionRegistryEntry(
+                ann.id(),
+                supplier != null ? supplier : InstanceFactories.of(clazz),
+                ann.stateless()
+        );
+    }
+
+    /**
+     * Checks if a class belongs to a base package or to one of its sub-packages.
+     *
+     * @param className   The binary name of the class.
+     * @param basePackage The base package, empty for every package.
+     * @return true if the class belongs to the base package, false otherwise.
+     */
+    private static boolean inPackage(String className, String basePackage) {
+        return basePackage.isEmpty()
+                || (className.startsWith(basePackage) && className.length() > basePackage.length()
+                && className.charAt(basePackage.length()) == '.');
+    }
+
+    /**
+     * Loads a class by name.
+     *
+     * @param className The binary name of the class.
+     * @param loader    The class loader to use.
+     * @return The loaded class.
+     * @throws IllegalStateException if the class cannot be found.
+     */
+    private static Class<?> loadClass(String className, ClassLoader loader) {
         try {
-            Constructor<T> c = clazz.getDeclaredConstructor();
-            c.setAccessible(true);
-            return c.newInstance();
-        } catch (NoSuchMethodException e) {
-            throw new IllegalStateException("No-arg constructor required for auto-register: " + clazz.getName(), e);
-        } catch (Exception e) {
-            throw new IllegalStateException("Cannot instantiate: " + clazz.getName(), e);
+            return Class.forName(className, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Registered class not found: " + className, e);
+        }
+    }
+
+    /**
+     * Annotated class waiting to be registered.
+     *
+     * @param className The binary name of the class.
+     * @param loader    The loader of the class.
+     * @param supplier  A supplier of instances given by a registry index, or null.
+     */
+    private record Candidate(String className, Callable<Class<?>> loader, Supplier<?> supplier) {
+
+        /**
+         * Loads the class.
+         *
+         * @return The class.
+         * @throws IllegalStateException if the class cannot be loaded.
+         */
+        Class<?> load() {
+            try {
+                return loader.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot load: " + className, e);
+            }
+        }
+    }
+
+    /**
+     * Annotated classes waiting to be registered, by kind.
+     */
+    private static final class Candidates {
+        private final List<Candidate> entities = new ArrayList<>();
+        private final List<Candidate> evolutions = new ArrayList<>();
+
+        /**
+         * Names of the listed classes, a class found both by an index and by a scan of an overlapping package is listed once.
+         */
+        private final Set<String> names = new HashSet<>();
+
+        private void addEntity(Candidate candidate) {
+            if (names.add(candidate.className())) entities.add(candidate);
+        }
+
+        private void addEvolution(Candidate candidate) {
+            if (names.add(candidate.className())) evolutions.add(candidate);
         }
     }
 }
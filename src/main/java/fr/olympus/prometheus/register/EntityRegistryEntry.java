@@ -10,19 +10,34 @@ import java.util.function.Supplier;
  * @param id The unique identifier for the entity.
  * @param supplier A supplier that provides instances of the entity when requested.
  * @param groups An array of group identifiers that this entity belongs to, used for categorization and retrieval purposes.
+ * @param poolCapacity The maximal number of destroyed instances kept for reuse, 0 to disable pooling.
  */
-public record EntityRegistryEntry(String id, Supplier<? extends IEntity> supplier, String[] groups) {
+public record EntityRegistryEntry(String id, Supplier<? extends IEntity> supplier, String[] groups, int poolCapacity) {
 
     /**
      * Constructs a new EntityRegistryEntry with the specified unique identifier and supplier.
      * @param id The unique identifier for the entity.
      * @param supplier A supplier that provides instances of the entity when requested.
-      * @throws IllegalArgumentException if id is null or if supplier is null.
+     * @param groups An array of group identifiers that this entity belongs to.
+     * @param poolCapacity The maximal number of destroyed instances kept for reuse, 0 to disable pooling.
+      * @throws IllegalArgumentException if id is null, if supplier is null, if groups is null or if poolCapacity is negative.
      */
     public EntityRegistryEntry {
         if (id == null) throw new IllegalArgumentException("Entity id cannot be null");
         if (supplier == null) throw new IllegalArgumentException("Entity supplier cannot be null");
         if (groups == null) throw new IllegalArgumentException("Entity groups cannot be null");
+        if (poolCapacity < 0) throw new IllegalArgumentException("Entity pool capacity cannot be negative");
+    }
+
+    /**
+     * Constructs a new EntityRegistryEntry without pooling.
+     * @param id The unique identifier for the entity.
+     * @param supplier A supplier that provides instances of the entity when requested.
+     * @param groups An array of group identifiers that this entity belongs to.
+      * @throws IllegalArgumentException if id is null, if supplier is null or if groups is null.
+     */
+    public EntityRegistryEntry(String id, Supplier<? extends IEntity> supplier, String[] groups) {
+        this(id, supplier, groups, 0);
     }
 
     /**
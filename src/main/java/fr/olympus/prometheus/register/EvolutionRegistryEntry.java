@@ -8,22 +8,38 @@ import java.util.function.Supplier;
  * Represents an entry in the evolution registry, containing the evolution condition's unique identifier and a supplier for creating instances of the evolution condition.
  * @param id The unique identifier for the evolution condition.
  * @param supplier A supplier that provides instances of the evolution condition when requested.
+ * @param stateless Whether a single instance of the evolution condition is created and shared by every lookup.
  */
-public record EvolutionRegistryEntry(String id, Supplier<? extends EvolutionCondition> supplier) {
+public record EvolutionRegistryEntry(String id, Supplier<? extends EvolutionCondition> supplier, boolean stateless) {
 
     /**
-     * Constructs a new EvolutionRegistryEntry with the specified unique identifier and supplier.
+     * Constructs a new EvolutionRegistryEntry with the specified unique identifier, supplier and statelessness.
+     * The supplier of a stateless entry is wrapped so that it is called once, on the first lookup.
      * @param id The unique identifier for the evolution condition.
      * @param supplier A supplier that provides instances of the evolution condition when requested.
+     * @param stateless Whether a single instance of the evolution condition is created and shared by every lookup.
      */
     public EvolutionRegistryEntry {
         if (id == null) throw new IllegalArgumentException("Evolution Condition id cannot be null");
         if (supplier == null) throw new IllegalArgumentException("Evolution Condition supplier cannot be null");
+        if (stateless && !(supplier instanceof SharedSupplier)) {
+            supplier = new SharedSupplier(supplier);
+        }
     }
 
     /**
-     * Creates a new instance of the evolution condition using the supplier.
-     * @return A new instance of the evolution condition provided by the supplier.
+     * Constructs a new EvolutionRegistryEntry for a stateful evolution condition, instantiated on every lookup.
+     * @param id The unique identifier for the evolution condition.
+     * @param supplier A supplier that provides instances of the evolution condition when requested.
+     */
+    public EvolutionRegistryEntry(String id, Supplier<? extends EvolutionCondition> supplier) {
+        this(id, supplier, false);
+    }
+
+    /**
+     * Gets an instance of the evolution condition using the supplier.
+     * Stateless entries always return the same instance, stateful entries return a new instance on every call.
+     * @return An instance of the evolution condition provided by the supplier.
       * @throws RuntimeException if the supplier fails to create an instance.
       * @throws IllegalStateException if the created instance is null or not an instance of EvolutionCondition
      */
@@ -31,4 +47,36 @@ public record EvolutionRegistryEntry(String id, Supplier<? extends EvolutionCond
         return supplier.get();
     }
 
+    /**
+     * Supplier creating the shared instance of a stateless evolution condition on first use.
+     */
+    private static final class SharedSupplier implements Supplier<EvolutionCondition> {
+
+        /**
+         * Supplier of the shared instance, cleared once the instance is created.
+         */
+        private Supplier<? extends EvolutionCondition> factory;
+
+        /**
+         * The shared instance, null until the first call.
+         */
+        private volatile EvolutionCondition instance;
+
+        private SharedSupplier(Supplier<? extends EvolutionCondition> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public EvolutionCondition get() {
+            EvolutionCondition shared = instance;
+            if (shared != null) return shared;
+            synchronized (this) {
+                if (instance == null) {
+                    instance = factory.get();
+                    factory = null;
+                }
+                return instance;
+            }
+        }
+    }
 }
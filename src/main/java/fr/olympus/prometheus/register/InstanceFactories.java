@@ -0,0 +1,113 @@
+package fr.olympus.prometheus.register;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.function.Supplier;
+
+/**
+ * Builds the suppliers used by the registry entries of annotated classes.
+ * The no-arg constructor is resolved once, at registration time, and turned into a supplier the JIT can inline:
+ * a {@link LambdaMetafactory} generated supplier when possible, then a cached {@link MethodHandle},
+ * then a cached reflective {@link Constructor} as a last resort.
+ */
+final class InstanceFactories {
+
+    /**
+     * Type of {@link Supplier#get()} once erased.
+     */
+    private static final MethodType SUPPLIER_GET = MethodType.methodType(Object.class);
+
+    // Prevent instantiation
+    private InstanceFactories() {
+    }
+
+    /**
+     * Builds a supplier calling the no-arg constructor of a class.
+     *
+     * @param clazz The class to instantiate.
+     * @param <T>   The type of the class.
+     * @return A supplier creating a new instance on each call.
+     * @throws IllegalStateException if the class has no no-arg constructor or cannot be instantiated.
+     */
+    static <T> Supplier<T> of(Class<T> clazz) {
+        Constructor<T> constructor;
+        try {
+            constructor = clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No-arg constructor required for auto-register: " + clazz.getName(), e);
+        }
+
+        MethodHandle handle;
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            handle = lookup.unreflectConstructor(constructor);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return reflective(constructor);
+        }
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    SUPPLIER_GET,
+                    handle,
+                    MethodType.methodType(clazz));
+            @SuppressWarnings("unchecked")
+            Supplier<T> supplier = (Supplier<T>) site.getTarget().invoke();
+            return supplier;
+        } catch (Throwable e) {
+            return handle(clazz, handle);
+        }
+    }
+
+    /**
+     * Builds a supplier invoking a cached constructor handle.
+     *
+     * @param clazz  The class to instantiate.
+     * @param handle The constructor handle.
+     * @param <T>    The type of the class.
+     * @return A supplier creating a new instance on each call.
+     */
+    private static <T> Supplier<T> handle(Class<T> clazz, MethodHandle handle) {
+        MethodHandle generic = handle.asType(SUPPLIER_GET);
+        return () -> {
+            try {
+                return clazz.cast(generic.invokeExact());
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot instantiate: " + clazz.getName(), e);
+            }
+        };
+    }
+
+    /**
+     * Builds a supplier invoking a cached reflective constructor.
+     *
+     * @param constructor The no-arg constructor.
+     * @param <T>         The type of the class.
+     * @return A supplier creating a new instance on each call.
+     * @throws IllegalStateException if the constructor cannot be made accessible.
+     */
+    private static <T> Supplier<T> reflective(Constructor<T> constructor) {
+        String name = constructor.getDeclaringClass().getName();
+        try {
+            constructor.setAccessible(true);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot instantiate: " + name, e);
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot instantiate: " + name, e);
+            }
+        };
+    }
+}
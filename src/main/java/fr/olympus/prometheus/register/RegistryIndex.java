@@ -0,0 +1,42 @@
+package fr.olympus.prometheus.register;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.evolution.EvolutionCondition;
+
+import java.util.function.Supplier;
+
+/**
+ * Compile-time index of the annotated classes of a module.
+ * Implementations are generated by the Prometheus annotation processor and discovered through {@link java.util.ServiceLoader}.
+ * When the registry indexes are enabled, {@link AutoRegistrar} registers the indexed classes and does not scan the base packages they cover,
+ * see {@link fr.olympus.prometheus.PrometheusConfig.Builder#registryIndex(boolean)}.
+ */
+public interface RegistryIndex {
+
+    /**
+     * Gives every indexed class to a collector.
+     * @param collector The collector receiving the indexed classes.
+     */
+    void collect(Collector collector);
+
+    /**
+     * Receiver of the classes of a {@link RegistryIndex}.
+     * The annotation values are read from the class at registration time, the index only lists the classes.
+     */
+    interface Collector {
+
+        /**
+         * Receives a class annotated with {@link fr.olympus.prometheus.entity.EntityAnnotation}.
+         * @param className The binary name of the class.
+         * @param supplier A direct constructor reference, or null if the constructor is not accessible from the index.
+         */
+        void entity(String className, Supplier<? extends IEntity> supplier);
+
+        /**
+         * Receives a class annotated with {@link fr.olympus.prometheus.evolution.EvolutionAnnotation}.
+         * @param className The binary name of the class.
+         * @param supplier A direct constructor reference, or null if the constructor is not accessible from the index.
+         */
+        void evolution(String className, Supplier<? extends EvolutionCondition> supplier);
+    }
+}
@@ -0,0 +1,360 @@
+package fr.olympus.prometheus.register;
+
+import fr.olympus.prometheus.entity.EntityAnnotation;
+import fr.olympus.prometheus.evolution.EvolutionAnnotation;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the annotated classes found by classpath scanning.
+ * Each classpath entry is stored with a fingerprint (size and modification time of a jar, or listing, sizes and
+ * modification times of the scanned packages of a directory) and the annotated classes it contains.
+ * On the next boot, only the entries whose fingerprint changed are scanned again, the others are read from the cache.
+ * <p>
+ * The cache only stores class names: the annotation values are read from the loaded classes at registration time,
+ * so a stale id or group can never be registered.
+ */
+final class ScanCache {
+
+    /**
+     * First line of a cache file, changed whenever the format changes.
+     */
+    private static final String HEADER = "prometheus-scan-cache 1";
+
+    private static final String PACKAGES = "packages ";
+    private static final String ELEMENT = "element ";
+    private static final String ENTITY = "entity ";
+    private static final String EVOLUTION = "evolution ";
+
+    /**
+     * File storing the cache.
+     */
+    private final Path file;
+
+    /**
+     * Sorted base packages the cache has been built for.
+     */
+    private final String packages;
+
+    /**
+     * Base packages to scan.
+     */
+    private final String[] basePackages;
+
+    /**
+     * Constructs a ScanCache.
+     * @param file The file storing the cache.
+     * @param basePackages The base packages to scan.
+     */
+    ScanCache(Path file, String[] basePackages) {
+        this.file = file;
+        this.basePackages = basePackages;
+        String[] sorted = basePackages.clone();
+        Arrays.sort(sorted);
+        this.packages = String.join(",", sorted);
+    }
+
+    /**
+     * Gets the annotated classes of the base packages, scanning only the classpath entries changed since the cache was written.
+     * The cache file is rewritten when any entry changed, was added or was removed.
+     * @param executor The worker pool scanning the changed entries, or null to scan them on the calling thread.
+     * @param threads The number of worker threads of the executor.
+     * @return The annotated classes, in classpath order.
+     */
+    Classes load(ExecutorService executor, int threads) {
+        List<File> files = classpathFiles();
+        List<Element> elements = new ArrayList<>(files.size());
+        for (File entry : files) {
+            elements.add(new Element(key(entry), fingerprint(entry)));
+        }
+
+        Map<String, Element> cached = read();
+        List<File> changed = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+            Element element = elements.get(i);
+            Element previous = cached.get(element.path);
+            if (previous != null && previous.fingerprint.equals(element.fingerprint)) {
+                element.entities.addAll(previous.entities);
+                element.evolutions.addAll(previous.evolutions);
+            } else {
+                changed.add(files.get(i));
+            }
+        }
+        if (!changed.isEmpty()) {
+            rescan(changed, elements, executor, threads);
+        }
+        if (!changed.isEmpty() || cached.size() != elements.size()) {
+            write(elements);
+        }
+
+        Set<String> entities = new LinkedHashSet<>();
+        Set<String> evolutions = new LinkedHashSet<>();
+        for (Element element : elements) {
+            entities.addAll(element.entities);
+            evolutions.addAll(element.evolutions);
+        }
+        return new Classes(List.copyOf(entities), List.copyOf(evolutions));
+    }
+
+    /**
+     * Lists the classpath entries visible from the context class loader.
+     * The entries of the application class path and of {@link URLClassLoader} instances are listed directly,
+     * so a warm boot does not initialize ClassGraph. Other class loaders are resolved through ClassGraph.
+     * @return The existing classpath entries, in class loading order.
+     */
+    private List<File> classpathFiles() {
+        ClassLoader system = ClassLoader.getSystemClassLoader();
+        Set<File> files = new LinkedHashSet<>();
+        boolean applicationPath = false;
+        List<ClassLoader> chain = new ArrayList<>();
+        for (ClassLoader loader = Thread.currentThread().getContextClassLoader(); loader != null; loader = loader.getParent()) {
+            chain.add(0, loader);
+        }
+        // Parents are listed first, like in parent-first delegation
+        for (ClassLoader loader : chain) {
+            if (loader instanceof URLClassLoader urlLoader) {
+                for (URL url : urlLoader.getURLs()) {
+                    if (!"file".equals(url.getProtocol())) return new ClassGraph().acceptPackages(basePackages).getClasspathFiles();
+                    try {
+                        files.add(new File(url.toURI()).getAbsoluteFile());
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+                        return new ClassGraph().acceptPackages(basePackages).getClasspathFiles();
+                    }
+                }
+            } else if (isBuiltin(loader, system)) {
+                if (!applicationPath) {
+                    applicationPath = true;
+                    for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                        if (!entry.isEmpty()) files.add(new File(entry).getAbsoluteFile());
+                    }
+                }
+            } else {
+                return new ClassGraph().acceptPackages(basePackages).getClasspathFiles();
+            }
+        }
+        List<File> existing = new ArrayList<>(files.size());
+        for (File entry : files) {
+            if (entry.exists()) existing.add(entry);
+        }
+        return existing;
+    }
+
+    /**
+     * Checks if a class loader is the system class loader or one of its parents.
+     * @param loader The class loader.
+     * @param system The system class loader.
+     * @return true if the class loader belongs to the JDK, false otherwise.
+     */
+    private static boolean isBuiltin(ClassLoader loader, ClassLoader system) {
+        for (ClassLoader builtin = system; builtin != null; builtin = builtin.getParent()) {
+            if (builtin == loader) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Scans classpath entries and stores the annotated classes found in their elements.
+     * @param changed The classpath entries to scan.
+     * @param elements The elements of the whole classpath.
+     * @param executor The worker pool, or null to scan on the calling thread.
+     * @param threads The number of worker threads of the executor.
+     */
+    private void rescan(List<File> changed, List<Element> elements, ExecutorService executor, int threads) {
+        Map<String, Element> byPath = new HashMap<>();
+        for (Element element : elements) {
+            byPath.put(element.path, element);
+        }
+        ClassGraph classGraph = new ClassGraph()
+                .overrideClasspath(changed)
+                .enableClassInfo()
+                .enableAnnotationInfo()
+                .acceptPackages(basePackages);
+        try (ScanResult scan = executor != null ? classGraph.scan(executor, threads) : classGraph.scan()) {
+            for (ClassInfo ci : scan.getClassesWithAnnotation(EntityAnnotation.class.getName())) {
+                Element element = byPath.get(key(ci.getClasspathElementFile()));
+                if (element != null) element.entities.add(ci.getName());
+            }
+            for (ClassInfo ci : scan.getClassesWithAnnotation(EvolutionAnnotation.class.getName())) {
+                Element element = byPath.get(key(ci.getClasspathElementFile()));
+                if (element != null) element.evolutions.add(ci.getName());
+            }
+        }
+    }
+
+    /**
+     * Gets the key of a classpath entry in the cache.
+     * @param entry The classpath entry.
+     * @return The canonical path of the entry, or its absolute path if it cannot be resolved.
+     */
+    private static String key(File entry) {
+        try {
+            return entry.getCanonicalPath();
+        } catch (IOException e) {
+            return entry.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Computes the fingerprint of a classpath entry.
+     * @param entry The classpath entry.
+     * @return The size and modification time of a file, or a summary of the scanned packages of a directory.
+     */
+    private String fingerprint(File entry) {
+        if (!entry.isDirectory()) {
+            return "f:" + entry.length() + ":" + entry.lastModified();
+        }
+        long count = 0;
+        long size = 0;
+        long modified = 0;
+        int names = 1;
+        Path root = entry.toPath();
+        for (String basePackage : basePackages) {
+            Path dir = basePackage.isEmpty() ? root : root.resolve(basePackage.replace('.', File.separatorChar));
+            if (!Files.isDirectory(dir)) continue;
+            try (Stream<Path> walk = Files.walk(dir)) {
+                List<Path> paths = walk.sorted().toList();
+                for (Path path : paths) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (!attributes.isRegularFile()) continue;
+                    count++;
+                    size += attributes.size();
+                    modified = Math.max(modified, attributes.lastModifiedTime().toMillis());
+                    names = 31 * names + root.relativize(path).toString().hashCode();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // An unreadable directory never matches the cache, so it is always scanned
+                return "d:unreadable:" + System.nanoTime();
+            }
+        }
+        return "d:" + count + ":" + size + ":" + modified + ":" + Integer.toHexString(names);
+    }
+
+    /**
+     * Reads the cache file.
+     * @return The cached elements by path, empty if the file is missing, unreadable, or built for other packages.
+     */
+    private Map<String, Element> read() {
+        Map<String, Element> cached = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) return Map.of();
+            if (!(PACKAGES + packages).equals(reader.readLine())) return Map.of();
+            Element current = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(ELEMENT)) {
+                    int tab = line.indexOf('\t');
+                    if (tab < 0) return Map.of();
+                    current = new Element(line.substring(tab + 1), line.substring(ELEMENT.length(), tab));
+                    cached.put(current.path, current);
+                } else if (current != null && line.startsWith(ENTITY)) {
+                    current.entities.add(line.substring(ENTITY.length()));
+                } else if (current != null && line.startsWith(EVOLUTION)) {
+                    current.evolutions.add(line.substring(EVOLUTION.length()));
+                } else {
+                    return Map.of();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return Map.of();
+        } catch (IOException | RuntimeException e) {
+            // A corrupted cache is ignored and rewritten
+            return Map.of();
+        }
+        return cached;
+    }
+
+    /**
+     * Writes the cache file atomically, through a temporary file in the same directory.
+     * Failing to write the cache does not fail the registration, the next boot scans again.
+     * @param elements The elements of the whole classpath.
+     */
+    private void write(List<Element> elements) {
+        Path temporary = null;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                writer.write(PACKAGES + packages);
+                writer.newLine();
+                for (Element element : elements) {
+                    writer.write(ELEMENT + element.fingerprint + "\t" + element.path);
+                    writer.newLine();
+                    for (String entity : element.entities) {
+                        writer.write(ENTITY + entity);
+                        writer.newLine();
+                    }
+                    for (String evolution : element.evolutions) {
+                        writer.write(EVOLUTION + evolution);
+                        writer.newLine();
+                    }
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // The temporary file is left behind, it is never read
+                }
+            }
+        }
+    }
+
+    /**
+     * Annotated classes found in the base packages.
+     * @param entities The binary names of the classes annotated with {@link EntityAnnotation}.
+     * @param evolutions The binary names of the classes annotated with {@link EvolutionAnnotation}.
+     */
+    record Classes(List<String> entities, List<String> evolutions) {
+    }
+
+    /**
+     * Classpath entry with its fingerprint and annotated classes.
+     */
+    private static final class Element {
+
+        private final String path;
+        private final String fingerprint;
+        private final List<String> entities = new ArrayList<>();
+        private final List<String> evolutions = new ArrayList<>();
+
+        private Element(String path, String fingerprint) {
+            this.path = path;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Entities changed since the previous drain, see {@link PrometheusData#drainChanges()}.
+ * An entity is either changed or killed, never both.
+ *
+ * @param changed The loaded entities spawned or modified since the previous drain.
+ * @param killed The UUIDs of the entities killed since the previous drain.
+ */
+public record ChangeSet(List<IEntity> changed, List<UUID> killed) {
+
+    /**
+     * Checks if nothing has changed.
+     * @return true if no entity has been changed or killed.
+     */
+    public boolean isEmpty() {
+        return changed.isEmpty() && killed.isEmpty();
+    }
+}
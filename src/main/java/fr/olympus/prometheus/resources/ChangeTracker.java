@@ -0,0 +1,87 @@
+package fr.olympus.prometheus.resources;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * UUIDs of the entities changed and killed since the last drain, recorded by {@link PrometheusData} while change tracking is enabled.
+ * Spawns and dirty marks record a change, a kill drops the change of the entity and records its kill. This class is thread-safe.
+ */
+final class ChangeTracker {
+
+    /**
+     * UUIDs of the spawned or modified entities, in first change order.
+     */
+    private Set<UUID> changed = new LinkedHashSet<>();
+
+    /**
+     * UUIDs of the killed entities, in kill order.
+     */
+    private Set<UUID> killed = new LinkedHashSet<>();
+
+    /**
+     * Records a change of an entity.
+     * @param uuid The UUID of the spawned or modified entity.
+     */
+    synchronized void changed(UUID uuid) {
+        changed.add(uuid);
+    }
+
+    /**
+     * Records the spawn of an entity, which overrides an earlier kill of the same UUID.
+     * @param uuid The UUID of the spawned entity.
+     */
+    synchronized void spawned(UUID uuid) {
+        killed.remove(uuid);
+        changed.add(uuid);
+    }
+
+    /**
+     * Records the spawn of several entities.
+     * @param uuids The UUIDs of the spawned entities.
+     */
+    synchronized void spawnedAll(List<UUID> uuids) {
+        for (UUID uuid : uuids) {
+            killed.remove(uuid);
+            changed.add(uuid);
+        }
+    }
+
+    /**
+     * Records the kill of an entity.
+     * @param uuid The UUID of the killed entity.
+     */
+    synchronized void killed(UUID uuid) {
+        changed.remove(uuid);
+        killed.add(uuid);
+    }
+
+    /**
+     * Gets the number of recorded changes.
+     * @return The number of changed and killed entities.
+     */
+    synchronized int pending() {
+        return changed.size() + killed.size();
+    }
+
+    /**
+     * Takes the recorded changes, changes recorded afterwards belong to the next drain.
+     * @return The UUIDs of the changed entities and the UUIDs of the killed entities.
+     */
+    synchronized Drain drain() {
+        Drain drain = new Drain(changed, killed);
+        changed = new LinkedHashSet<>();
+        killed = new LinkedHashSet<>();
+        return drain;
+    }
+
+    /**
+     * Changes recorded between two drains.
+     * @param changed The UUIDs of the spawned or modified entities.
+     * @param killed The UUIDs of the killed entities.
+     */
+    record Drain(Set<UUID> changed, Set<UUID> killed) {
+    }
+}
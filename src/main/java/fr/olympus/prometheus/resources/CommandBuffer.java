@@ -0,0 +1,124 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spawns and kills recorded by {@link PrometheusData} while changes are deferred, applied by {@link PrometheusData#flushDeferred()}.
+ * Killing an entity spawned in the same batch cancels its spawn. This class is thread-safe.
+ */
+final class CommandBuffer {
+
+    /**
+     * Entities to spawn, in request order. Cancelled spawns are skipped when the batch is drained.
+     */
+    private List<IEntity> spawns = new ArrayList<>();
+
+    /**
+     * Entities to spawn that have not been killed since.
+     */
+    private Set<IEntity> pendingSpawns = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Loaded entities to kill, in request order.
+     */
+    private List<IEntity> kills = new ArrayList<>();
+
+    /**
+     * Entities to kill, to ignore duplicated kills.
+     */
+    private Set<IEntity> pendingKills = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Entities whose spawn has been cancelled by a kill.
+     */
+    private List<IEntity> cancelled = new ArrayList<>();
+
+    /**
+     * Whether the buffer no longer accepts changes.
+     */
+    private boolean closed;
+
+    /**
+     * Records the spawn of an entity.
+     * @param entity The spawned entity.
+     * @return true if the spawn has been recorded, false if the buffer is closed and the entity must be loaded directly.
+     */
+    synchronized boolean spawn(IEntity entity) {
+        if (closed) return false;
+        spawns.add(entity);
+        pendingSpawns.add(entity);
+        return true;
+    }
+
+    /**
+     * Records the spawn of several entities.
+     * @param entities The spawned entities.
+     * @return true if the spawns have been recorded, false if the buffer is closed and the entities must be loaded directly.
+     */
+    synchronized boolean spawnAll(List<? extends IEntity> entities) {
+        if (closed) return false;
+        spawns.addAll(entities);
+        pendingSpawns.addAll(entities);
+        return true;
+    }
+
+    /**
+     * Records the kill of an entity.
+     * @param entity The killed entity.
+     * @return true if the kill has been recorded, false if the buffer is closed and the entity must be destroyed directly.
+     */
+    synchronized boolean kill(IEntity entity) {
+        if (closed) return false;
+        if (pendingSpawns.remove(entity)) {
+            cancelled.add(entity);
+        } else if (pendingKills.add(entity)) {
+            kills.add(entity);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of recorded changes.
+     * @return The number of spawns and kills waiting for the next flush.
+     */
+    synchronized int pending() {
+        return pendingSpawns.size() + kills.size();
+    }
+
+    /**
+     * Takes the recorded changes, changes recorded afterwards belong to the next batch.
+     * @param close true to stop accepting changes.
+     * @return The recorded changes.
+     */
+    synchronized Batch drain(boolean close) {
+        closed |= close;
+        List<IEntity> spawned = new ArrayList<>(pendingSpawns.size());
+        for (IEntity entity : spawns) {
+            if (pendingSpawns.contains(entity)) {
+                spawned.add(entity);
+            }
+        }
+        Batch batch = new Batch(spawned, kills, cancelled);
+        spawns = new ArrayList<>();
+        pendingSpawns = Collections.newSetFromMap(new IdentityHashMap<>());
+        kills = new ArrayList<>();
+        pendingKills = Collections.newSetFromMap(new IdentityHashMap<>());
+        cancelled = new ArrayList<>();
+        return batch;
+    }
+
+    /**
+     * Changes recorded between two flushes.
+     * @param spawns The entities to load, in request order.
+     * @param kills The entities to destroy, in request order.
+     * @param cancelled The entities spawned and killed in the same batch, never loaded.
+     */
+    record Batch(List<IEntity> spawns, List<IEntity> kills, List<IEntity> cancelled) {
+    }
+}
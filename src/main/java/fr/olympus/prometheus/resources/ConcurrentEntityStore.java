@@ -0,0 +1,325 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe storage of the currently loaded entities.
+ * Entities are spread by UUID over independent {@link EntityStore} segments, each guarded by its own read-write lock,
+ * so spawns, kills and queries touching different segments run in parallel.
+ * Queries lock the segments one after the other, they see a consistent state per segment but not a global snapshot.
+ * Visitors run while holding the read lock of the visited segment, spawning or killing from a visitor is rejected:
+ * two threads visiting different segments and writing into each other's segment would deadlock.
+ */
+final class ConcurrentEntityStore implements WorldStore {
+
+    /**
+     * Segments of the store.
+     */
+    private final EntityStore[] segments;
+
+    /**
+     * Locks of the segments, by segment index.
+     */
+    private final ReentrantReadWriteLock[] locks;
+
+    /**
+     * Mask applied to the UUID hash to select a segment.
+     */
+    private final int segmentMask;
+
+    /**
+     * Number of loaded entities over all segments.
+     */
+    private final AtomicInteger size;
+
+    /**
+     * Number of visits in progress on the current thread, structural changes are rejected while it is positive.
+     */
+    private final ThreadLocal<int[]> visits = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Constructs an empty ConcurrentEntityStore.
+     * @param groupIndex The interning table of the group names.
+     * @param concurrencyLevel The expected number of threads updating the store, rounded up to a power of two segments.
+     */
+    ConcurrentEntityStore(GroupIndex groupIndex, int concurrencyLevel) {
+        int count = 1;
+        while (count < concurrencyLevel) {
+            count <<= 1;
+        }
+        this.segments = new EntityStore[count];
+        this.locks = new ReentrantReadWriteLock[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new EntityStore(groupIndex);
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        this.segmentMask = count - 1;
+        this.size = new AtomicInteger();
+    }
+
+    @Override
+    public void add(IEntity entity) {
+        UUID uuid = entity.currentUUID();
+        if (uuid == null) throw new IllegalArgumentException("Cannot load an entity without UUID: " + entity.getRegistryId());
+        int segment = segmentOf(uuid);
+        checkNotVisiting();
+        locks[segment].writeLock().lock();
+        try {
+            segments[segment].add(entity);
+        } finally {
+            locks[segment].writeLock().unlock();
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * Adds several entities to the store in one step.
+     * Every segment is write-locked during the insertion, so other threads see either none or all of the entities.
+     * @param entities The entities to add.
+     */
+    @Override
+    public void addAll(List<? extends IEntity> entities) {
+        for (IEntity entity : entities) {
+            if (entity.currentUUID() == null) {
+                throw new IllegalArgumentException("Cannot load an entity without UUID: " + entity.getRegistryId());
+            }
+        }
+        checkNotVisiting();
+        for (ReentrantReadWriteLock lock : locks) {
+            lock.writeLock().lock();
+        }
+        int added = 0;
+        try {
+            for (int n = entities.size(); added < n; added++) {
+                IEntity entity = entities.get(added);
+                segments[segmentOf(entity.currentUUID())].add(entity);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < added; i++) {
+                IEntity entity = entities.get(i);
+                segments[segmentOf(entity.currentUUID())].remove(entity);
+            }
+            throw e;
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].writeLock().unlock();
+            }
+        }
+        size.addAndGet(added);
+    }
+
+    /**
+     * Removes an entity from the store.
+     * The entity is found in the segment of its UUID. An entity whose UUID changed since it was loaded
+     * is not in that segment, every segment is then scanned for it.
+     * @param entity The entity to remove.
+     * @return true if the entity was loaded and has been removed, false otherwise.
+     */
+    @Override
+    public boolean remove(IEntity entity) {
+        checkNotVisiting();
+        UUID uuid = entity.currentUUID();
+        boolean removed = false;
+        if (uuid != null) {
+            int segment = segmentOf(uuid);
+            locks[segment].writeLock().lock();
+            try {
+                removed = segments[segment].removeIndexed(entity);
+            } finally {
+                locks[segment].writeLock().unlock();
+            }
+        }
+        for (int i = 0; i < segments.length && !removed; i++) {
+            locks[i].writeLock().lock();
+            try {
+                removed = segments[i].removeScanned(entity);
+            } finally {
+                locks[i].writeLock().unlock();
+            }
+        }
+        if (removed) size.decrementAndGet();
+        return removed;
+    }
+
+    @Override
+    public void removeAll(List<? extends IEntity> entities, List<? super IEntity> removed) {
+        checkNotVisiting();
+        for (ReentrantReadWriteLock lock : locks) {
+            lock.writeLock().lock();
+        }
+        int count = 0;
+        try {
+            for (int i = 0, n = entities.size(); i < n; i++) {
+                IEntity entity = entities.get(i);
+                if (removeLocked(entity)) {
+                    removed.add(entity);
+                    count++;
+                }
+            }
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].writeLock().unlock();
+            }
+            size.addAndGet(-count);
+        }
+    }
+
+    @Override
+    public IEntity find(UUID uuid) {
+        int segment = segmentOf(uuid);
+        locks[segment].readLock().lock();
+        try {
+            return segments[segment].find(uuid);
+        } finally {
+            locks[segment].readLock().unlock();
+        }
+    }
+
+    @Override
+    public void collectInGroups(GroupMask query, List<? super IEntity> out) {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].readLock().lock();
+            try {
+                segments[i].collectInGroups(query, out);
+            } finally {
+                locks[i].readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void forEachInGroups(GroupMask query, Consumer<? super IEntity> action) {
+        int[] depth = visits.get();
+        depth[0]++;
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                locks[i].readLock().lock();
+                try {
+                    segments[i].forEachInGroups(query, action);
+                } finally {
+                    locks[i].readLock().unlock();
+                }
+            }
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    @Override
+    public void forEachWithId(String registryId, Consumer<? super IEntity> action) {
+        int[] depth = visits.get();
+        depth[0]++;
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                locks[i].readLock().lock();
+                try {
+                    segments[i].forEachWithId(registryId, action);
+                } finally {
+                    locks[i].readLock().unlock();
+                }
+            }
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    @Override
+    public void collectWithId(String registryId, List<? super IEntity> out) {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].readLock().lock();
+            try {
+                segments[i].collectWithId(registryId, out);
+            } finally {
+                locks[i].readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public int countWithId(String registryId) {
+        int count = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].readLock().lock();
+            try {
+                count += segments[i].countWithId(registryId);
+            } finally {
+                locks[i].readLock().unlock();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Gets a snapshot of the loaded entities.
+     * Unlike the single-threaded store, the returned list is a copy and does not reflect later changes.
+     * @return A read-only copy of the loaded entities.
+     */
+    @Override
+    public List<IEntity> view() {
+        List<IEntity> snapshot = new ArrayList<>(size.get());
+        collectInGroups(GroupMask.EMPTY, snapshot);
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        int perSegment = capacity / segments.length + 1;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].writeLock().lock();
+            try {
+                segments[i].ensureCapacity(perSegment);
+            } finally {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes an entity while every segment is write-locked, scanning the segments if it is not in the segment of its UUID.
+     * @param entity The entity to remove.
+     * @return true if the entity was loaded and has been removed, false otherwise.
+     */
+    private boolean removeLocked(IEntity entity) {
+        UUID uuid = entity.currentUUID();
+        if (uuid != null && segments[segmentOf(uuid)].removeIndexed(entity)) return true;
+        for (EntityStore segment : segments) {
+            if (segment.removeScanned(entity)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rejects a structural change requested by a visitor.
+     * The visiting thread holds the read lock of a segment while it waits for a write lock,
+     * which deadlocks with itself or with another visitor writing into the visited segment.
+     * @throws IllegalStateException if the current thread is visiting loaded entities.
+     */
+    private void checkNotVisiting() {
+        if (visits.get()[0] > 0) {
+            throw new IllegalStateException("Cannot spawn or kill entities while visiting loaded entities");
+        }
+    }
+
+    /**
+     * Selects the segment of a UUID.
+     * @param uuid The UUID.
+     * @return The index of the segment holding this UUID.
+     */
+    private int segmentOf(UUID uuid) {
+        int h = uuid.hashCode();
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
+}
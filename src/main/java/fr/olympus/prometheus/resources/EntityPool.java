@@ -0,0 +1,126 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of destroyed entity instances of one registry id, waiting to be reused by a spawn.
+ * The pool is thread-safe, its counters are striped so they do not add contention.
+ */
+final class EntityPool {
+
+    /**
+     * Pooled instances, used as a stack.
+     */
+    private IEntity[] instances;
+
+    /**
+     * Number of pooled instances.
+     */
+    private int size;
+
+    /**
+     * Number of spawns served by a pooled instance.
+     */
+    private final LongAdder hits;
+
+    /**
+     * Number of spawns that found the pool empty.
+     */
+    private final LongAdder misses;
+
+    /**
+     * Number of destroyed instances kept by the pool.
+     */
+    private final LongAdder recycled;
+
+    /**
+     * Number of destroyed instances dropped because the pool was full.
+     */
+    private final LongAdder discarded;
+
+    /**
+     * Constructs an empty pool.
+     * @param capacity The maximal number of pooled instances.
+     */
+    EntityPool(int capacity) {
+        this.instances = new IEntity[capacity];
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.recycled = new LongAdder();
+        this.discarded = new LongAdder();
+    }
+
+    /**
+     * Takes an instance from the pool.
+     * @return A pooled instance, or null if the pool is empty.
+     */
+    IEntity acquire() {
+        IEntity entity = null;
+        synchronized (this) {
+            if (size > 0) {
+                entity = instances[--size];
+                instances[size] = null;
+            }
+        }
+        if (entity == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entity;
+    }
+
+    /**
+     * Gives an instance back to the pool.
+     * @param entity The instance, already reset.
+     * @return true if the instance has been pooled, false if the pool was full.
+     */
+    boolean release(IEntity entity) {
+        boolean kept;
+        synchronized (this) {
+            kept = size < instances.length;
+            if (kept) {
+                instances[size++] = entity;
+            }
+        }
+        if (kept) {
+            recycled.increment();
+        } else {
+            discarded.increment();
+        }
+        return kept;
+    }
+
+    /**
+     * Adds a fresh instance to the pool, without counting it as recycled.
+     * @param entity The instance, never spawned.
+     */
+    synchronized void seed(IEntity entity) {
+        if (size < instances.length) {
+            instances[size++] = entity;
+        }
+    }
+
+    /**
+     * Changes the maximal number of pooled instances, dropping the instances above the new capacity.
+     * @param capacity The new capacity.
+     */
+    synchronized void resize(int capacity) {
+        IEntity[] resized = new IEntity[capacity];
+        size = Math.min(size, capacity);
+        System.arraycopy(instances, 0, resized, 0, size);
+        instances = resized;
+    }
+
+    /**
+     * Gets a snapshot of the pool counters.
+     * @param registryId The registry id of the pool.
+     * @return The statistics of the pool.
+     */
+    synchronized PoolStats stats(String registryId) {
+        return new PoolStats(registryId, instances.length, size,
+                hits.sum(), misses.sum(), recycled.sum(), discarded.sum());
+    }
+}
@@ -0,0 +1,62 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.UUID;
+
+/**
+ * Internal bookkeeping for a loaded entity.
+ * Keeps the entity, the UUID and registry id it was indexed with, its groups and its current position in the dense storage
+ * and in every secondary index, so removals never have to search for the entity.
+ */
+final class EntityRecord {
+
+    /**
+     * The loaded entity.
+     */
+    final IEntity entity;
+
+    /**
+     * UUID the entity was indexed with when it was loaded.
+     */
+    final UUID uuid;
+
+    /**
+     * Registry id of the entity when it was loaded.
+     */
+    final String registryId;
+
+    /**
+     * Current position of the record in the dense storage array.
+     */
+    int slot;
+
+    /**
+     * Current position of the record in the bucket of its registry id.
+     */
+    int bucketSlot;
+
+    /**
+     * Groups of the entity when it was loaded.
+     */
+    final GroupMask groups;
+
+    /**
+     * Position of the record in each group posting list, in the order of {@link GroupMask#ids()}.
+     */
+    final int[] groupSlots;
+
+    /**
+     * Constructs a new record for the given entity.
+     * @param entity The loaded entity.
+     * @param uuid The UUID used to index the entity.
+     * @param groups The groups of the entity.
+     */
+    EntityRecord(IEntity entity, UUID uuid, GroupMask groups) {
+        this.entity = entity;
+        this.uuid = uuid;
+        this.registryId = entity.getRegistryId();
+        this.groups = groups;
+        this.groupSlots = new int[groups.ids().length];
+    }
+}
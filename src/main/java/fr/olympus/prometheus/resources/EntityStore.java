@@ -0,0 +1,472 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage of the currently loaded entities.
+ * Entities are kept in a dense array and indexed by their UUID, so lookups, insertions and removals run in constant time.
+ * Removal swaps the last entity into the freed slot, the iteration order is therefore not the insertion order.
+ * Each entity also carries the bitmask of its interned groups and is referenced from one posting list per group,
+ * so group queries only visit the entities of the smallest requested group.
+ * Entities are finally bucketed by registry id, so registry id queries run in time proportional to the result size.
+ * This class is not thread-safe.
+ */
+final class EntityStore implements WorldStore {
+
+    /**
+     * Initial capacity of the dense storage.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Dense storage of the loaded entities records.
+     */
+    private EntityRecord[] records;
+
+    /**
+     * Number of loaded entities.
+     */
+    private int size;
+
+    /**
+     * Index of the loaded entities records by UUID.
+     */
+    private final Map<UUID, EntityRecord> byUUID;
+
+    /**
+     * Interning table of the group names.
+     */
+    private final GroupIndex groupIndex;
+
+    /**
+     * Posting lists of the loaded entities by interned group id.
+     */
+    private RecordList[] postings;
+
+    /**
+     * Buckets of the loaded entities by registry id.
+     */
+    private final Map<String, RecordList> buckets;
+
+    /**
+     * Group masks already computed, by registry id. A cached mask is reused while entities share the same groups array.
+     */
+    private final Map<String, CachedMask> masks;
+
+    /**
+     * Number of structural modifications, used to detect concurrent modifications during iteration.
+     */
+    private int modCount;
+
+    /**
+     * Read-only view over the loaded entities.
+     */
+    private final List<IEntity> view;
+
+    /**
+     * Constructs an empty EntityStore.
+     * @param groupIndex The interning table of the group names.
+     */
+    EntityStore(GroupIndex groupIndex) {
+        this.records = new EntityRecord[INITIAL_CAPACITY];
+        this.byUUID = new HashMap<>();
+        this.groupIndex = groupIndex;
+        this.postings = new RecordList[0];
+        this.masks = new HashMap<>();
+        this.buckets = new HashMap<>();
+        this.view = new LoadedView();
+    }
+
+    /**
+     * Adds an entity to the store.
+     * @param entity The entity to add.
+     * @throws IllegalArgumentException if the entity has no UUID.
+     * @throws IllegalStateException if an entity with the same UUID is already loaded.
+     */
+    @Override
+    public void add(IEntity entity) {
+        UUID uuid = entity.currentUUID();
+        if (uuid == null) throw new IllegalArgumentException("Cannot load an entity without UUID: " + entity.getRegistryId());
+        EntityRecord record = new EntityRecord(entity, uuid, maskOf(entity));
+        if (byUUID.putIfAbsent(uuid, record) != null) {
+            throw new IllegalStateException("An entity is already loaded with UUID: " + uuid);
+        }
+        ensureCapacity(size + 1);
+        record.slot = size;
+        records[size++] = record;
+        for (int groupId : record.groups.ids()) {
+            posting(groupId).add(record);
+        }
+        if (record.registryId != null) {
+            buckets.computeIfAbsent(record.registryId, id -> new RecordList.RegistryBucket()).add(record);
+        }
+        modCount++;
+    }
+
+    /**
+     * Adds several entities to the store in one step.
+     * The storage is grown once, and the entities already added are removed again if one of them cannot be added.
+     * @param entities The entities to add.
+     * @throws IllegalArgumentException if an entity has no UUID.
+     * @throws IllegalStateException if an entity with the same UUID is already loaded or present twice.
+     */
+    @Override
+    public void addAll(List<? extends IEntity> entities) {
+        ensureCapacity(size + entities.size());
+        int added = 0;
+        try {
+            for (int n = entities.size(); added < n; added++) {
+                add(entities.get(added));
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < added; i++) {
+                remove(entities.get(i));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes an entity from the store.
+     * The entity is found through its UUID in constant time. An entity whose UUID changed since it was loaded
+     * is not indexed under its current UUID, the loaded entities are then scanned for it.
+     * @param entity The entity to remove.
+     * @return true if the entity was loaded and has been removed, false otherwise.
+     */
+    @Override
+    public boolean remove(IEntity entity) {
+        return removeIndexed(entity) || removeScanned(entity);
+    }
+
+    /**
+     * Removes an entity found through its current UUID.
+     * @param entity The entity to remove.
+     * @return true if the entity was loaded under its current UUID and has been removed, false otherwise.
+     */
+    boolean removeIndexed(IEntity entity) {
+        UUID uuid = entity.currentUUID();
+        EntityRecord record = uuid == null ? null : byUUID.get(uuid);
+        if (record == null || record.entity != entity) return false;
+        unlink(record);
+        return true;
+    }
+
+    /**
+     * Removes an entity found by scanning the loaded entities, whatever its current UUID.
+     * @param entity The entity to remove.
+     * @return true if the entity was loaded and has been removed, false otherwise.
+     */
+    boolean removeScanned(IEntity entity) {
+        for (int i = 0; i < size; i++) {
+            if (records[i].entity == entity) {
+                unlink(records[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a record from the index, the posting lists, the buckets and the dense storage.
+     * @param record The record of a loaded entity.
+     */
+    private void unlink(EntityRecord record) {
+        byUUID.remove(record.uuid);
+        for (int groupId : record.groups.ids()) {
+            postings[groupId].remove(record);
+        }
+        if (record.registryId != null) {
+            buckets.get(record.registryId).remove(record);
+        }
+
+        int last = --size;
+        if (record.slot != last) {
+            EntityRecord moved = records[last];
+            moved.slot = record.slot;
+            records[record.slot] = moved;
+        }
+        records[last] = null;
+        modCount++;
+    }
+
+    /**
+     * Removes several entities from the store in one step.
+     * @param entities The entities to remove.
+     * @param removed The list receiving the entities that were loaded and have been removed.
+     */
+    @Override
+    public void removeAll(List<? extends IEntity> entities, List<? super IEntity> removed) {
+        for (int i = 0, n = entities.size(); i < n; i++) {
+            IEntity entity = entities.get(i);
+            if (remove(entity)) {
+                removed.add(entity);
+            }
+        }
+    }
+
+    /**
+     * Finds a loaded entity by its UUID.
+     * @param uuid The UUID of the entity.
+     * @return The loaded entity, or null if no entity is loaded with this UUID.
+     */
+    @Override
+    public IEntity find(UUID uuid) {
+        EntityRecord record = byUUID.get(uuid);
+        return record == null ? null : record.entity;
+    }
+
+    /**
+     * Adds to a list every loaded entity belonging to all groups of a mask.
+     * Only the posting list of the smallest group of the mask is visited.
+     * @param query The groups the entities must belong to.
+     * @param out The list receiving the matching entities.
+     */
+    @Override
+    public void collectInGroups(GroupMask query, List<? super IEntity> out) {
+        if (query.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                out.add(records[i].entity);
+            }
+            return;
+        }
+        RecordList smallest = smallestPosting(query);
+        if (smallest == null) return;
+        for (int i = 0, n = smallest.size(); i < n; i++) {
+            EntityRecord record = smallest.get(i);
+            if (record.groups.containsAll(query)) {
+                out.add(record.entity);
+            }
+        }
+    }
+
+    /**
+     * Calls an action for every loaded entity belonging to all groups of a mask, without allocating.
+     * Only the posting list of the smallest group of the mask is visited.
+     * @param query The groups the entities must belong to.
+     * @param action The action to call for each matching entity.
+     * @throws ConcurrentModificationException if the action spawns or kills entities.
+     */
+    @Override
+    public void forEachInGroups(GroupMask query, Consumer<? super IEntity> action) {
+        int expectedModCount = modCount;
+        if (query.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                action.accept(records[i].entity);
+                checkModCount(expectedModCount);
+            }
+            return;
+        }
+        RecordList smallest = smallestPosting(query);
+        if (smallest == null) return;
+        for (int i = 0, n = smallest.size(); i < n; i++) {
+            EntityRecord record = smallest.get(i);
+            if (record.groups.containsAll(query)) {
+                action.accept(record.entity);
+                checkModCount(expectedModCount);
+            }
+        }
+    }
+
+    /**
+     * Calls an action for every loaded entity with the given registry id, without allocating.
+     * @param registryId The registry id.
+     * @param action The action to call for each matching entity.
+     * @throws ConcurrentModificationException if the action spawns or kills entities.
+     */
+    @Override
+    public void forEachWithId(String registryId, Consumer<? super IEntity> action) {
+        RecordList bucket = buckets.get(registryId);
+        if (bucket != null) {
+            bucket.forEach(action, this);
+        }
+    }
+
+    /**
+     * Adds to a list every loaded entity with the given registry id.
+     * @param registryId The registry id.
+     * @param out The list receiving the matching entities.
+     */
+    @Override
+    public void collectWithId(String registryId, List<? super IEntity> out) {
+        RecordList bucket = buckets.get(registryId);
+        if (bucket != null) {
+            bucket.collect(out);
+        }
+    }
+
+    /**
+     * Gets the number of loaded entities with the given registry id.
+     * @param registryId The registry id.
+     * @return The number of loaded entities with this registry id.
+     */
+    @Override
+    public int countWithId(String registryId) {
+        RecordList bucket = buckets.get(registryId);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    /**
+     * Gets the loaded entity at the given position of the dense storage.
+     * @param index The position of the entity, between 0 and size() - 1.
+     * @return The loaded entity.
+     */
+    IEntity get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return records[index].entity;
+    }
+
+    /**
+     * Gets the number of loaded entities.
+     * @return The number of loaded entities.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a read-only view over the loaded entities.
+     * The view reflects later changes of the store.
+     * @return A read-only list of the loaded entities.
+     */
+    @Override
+    public List<IEntity> view() {
+        return view;
+    }
+
+    /**
+     * Gets the number of structural modifications of the store.
+     * @return The modification counter.
+     */
+    int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Checks that the store has not been structurally modified since a visit started.
+     * @param expectedModCount The modification counter when the visit started.
+     * @throws ConcurrentModificationException if the store has been modified.
+     */
+    void checkModCount(int expectedModCount) {
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Finds the smallest posting list among the groups of a mask.
+     * @param query The groups to look at, must not be empty.
+     * @return The smallest posting list, or null if one of the groups has no loaded entity.
+     */
+    private RecordList smallestPosting(GroupMask query) {
+        RecordList smallest = null;
+        for (int groupId : query.ids()) {
+            if (groupId >= postings.length || postings[groupId] == null) return null;
+            RecordList posting = postings[groupId];
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Gets the posting list of a group, creating it if needed.
+     * @param groupId The interned group id.
+     * @return The posting list of the group.
+     */
+    private RecordList posting(int groupId) {
+        if (groupId >= postings.length) {
+            postings = Arrays.copyOf(postings, groupId + 1);
+        }
+        RecordList posting = postings[groupId];
+        if (posting == null) {
+            posting = new RecordList.GroupPosting(groupId);
+            postings[groupId] = posting;
+        }
+        return posting;
+    }
+
+    /**
+     * Gets the group mask of an entity, reusing the mask of the previous entity of the same registry id when the groups array is shared.
+     * @param entity The entity.
+     * @return The group mask of the entity.
+     */
+    private GroupMask maskOf(IEntity entity) {
+        String[] groups = entity.entityGroup();
+        String registryId = entity.getRegistryId();
+        if (registryId == null) return groupIndex.maskOf(groups);
+        CachedMask cached = masks.get(registryId);
+        if (cached == null || cached.source() != groups) {
+            cached = new CachedMask(groups, groupIndex.maskOf(groups));
+            masks.put(registryId, cached);
+        }
+        return cached.mask();
+    }
+
+    /**
+     * Grows the dense storage so it can hold at least the given number of entities.
+     * @param capacity The minimal capacity.
+     */
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > records.length) {
+            records = Arrays.copyOf(records, Math.max(capacity, records.length + (records.length >> 1)));
+        }
+    }
+
+    /**
+     * Group mask computed for a groups array.
+     * @param source The groups array the mask was computed from.
+     * @param mask The computed mask.
+     */
+    private record CachedMask(String[] source, GroupMask mask) {
+    }
+
+    /**
+     * Read-only list over the dense storage.
+     * Its iterator fails fast if the store is structurally modified during the iteration.
+     */
+    private final class LoadedView extends AbstractList<IEntity> implements RandomAccess {
+
+        @Override
+        public IEntity get(int index) {
+            return EntityStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<IEntity> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = EntityStore.this.modCount;
+                private int cursor;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < size;
+                }
+
+                @Override
+                public IEntity next() {
+                    if (EntityStore.this.modCount != expectedModCount) throw new ConcurrentModificationException();
+                    if (cursor >= size) throw new NoSuchElementException();
+                    return records[cursor++].entity;
+                }
+            };
+        }
+    }
+}
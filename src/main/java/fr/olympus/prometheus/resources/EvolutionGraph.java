@@ -0,0 +1,345 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.evolution.EvolutionCondition;
+import fr.olympus.prometheus.evolution.EvolutionEntity;
+import fr.olympus.prometheus.register.EntityRegistryEntry;
+import fr.olympus.prometheus.register.EvolutionRegistryEntry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Evolution graph of the registered entities, built by {@link PrometheusData#getEvolutionGraph()}.
+ * Each registry id is linked to its evolution conditions, as returned by {@link EvolutionEntity#getNextEvolutions()}
+ * on a freshly created instance, and each condition to the registry id of the entity it spawns.
+ * The graph is validated when it is built and every query answers from precomputed, immutable lists.
+ * Evolutions added to the lists of a loaded entity at runtime are not part of the graph,
+ * entities changing their list declare it through {@link EvolutionEntity#hasRuntimeEvolutions()}.
+ */
+public final class EvolutionGraph {
+
+    /**
+     * Outgoing evolutions, by registry id. Registry ids without evolution have no node.
+     */
+    private final Map<String, Node> nodes;
+
+    /**
+     * Registry id of the entity spawned by each evolution condition, by condition id.
+     */
+    private final Map<String, String> targets;
+
+    /**
+     * Evolutions declared by the instances created for this graph, by registry id, reused by the next build.
+     */
+    private final Map<String, Declaration> declarations;
+
+    /**
+     * Evolution conditions read for this graph, by condition id, reused by the next build.
+     */
+    private final Map<String, Target> conditions;
+
+    /**
+     * Constructs an EvolutionGraph.
+     * @param nodes The outgoing evolutions, by registry id.
+     * @param targets The targets of the evolution conditions, by condition id.
+     * @param declarations The declared evolutions, by registry id.
+     * @param conditions The read evolution conditions, by condition id.
+     */
+    private EvolutionGraph(Map<String, Node> nodes, Map<String, String> targets,
+                           Map<String, Declaration> declarations, Map<String, Target> conditions) {
+        this.nodes = nodes;
+        this.targets = targets;
+        this.declarations = declarations;
+        this.conditions = conditions;
+    }
+
+    /**
+     * Builds and validates the evolution graph of registries.
+     * The entries already read by the previous graph are not instantiated again.
+     * Other entities and stateful evolution conditions are instantiated once, so their constructors must not change the world,
+     * and an entity created for the graph is kept by the pool of its registry id, if any, for the next spawn.
+     * @param entities The entity registry.
+     * @param evolutions The evolution registry.
+     * @param previous The previously built graph, or null.
+     * @param pools The entity pools, by registry id.
+     * @return The evolution graph.
+     * @throws IllegalStateException if an entity references an unknown evolution condition,
+     * if a condition spawns an unknown entity, or if evolutions form a cycle.
+     */
+    static EvolutionGraph build(Map<String, EntityRegistryEntry> entities, Map<String, EvolutionRegistryEntry> evolutions,
+                                EvolutionGraph previous, Map<String, EntityPool> pools) {
+        List<String> errors = new ArrayList<>();
+
+        Map<String, String> targets = new HashMap<>(evolutions.size() * 2);
+        Map<String, Target> read = new HashMap<>(evolutions.size() * 2);
+        for (EvolutionRegistryEntry entry : new TreeMap<>(evolutions).values()) {
+            Target known = previous == null ? null : previous.conditions.get(entry.id());
+            if (known == null || known.entry() != entry) {
+                EvolutionCondition condition = entry.createInstance();
+                known = new Target(entry, condition == null ? null : condition.getEntityId());
+            }
+            String target = known.entityId();
+            if (target == null || !entities.containsKey(target)) {
+                errors.add("Evolution condition " + entry.id() + " targets unknown entity: " + target);
+            } else {
+                targets.put(entry.id(), target);
+                read.put(entry.id(), known);
+            }
+        }
+
+        Map<String, List<String>> conditionsById = new TreeMap<>();
+        Map<String, Declaration> declarations = new HashMap<>(entities.size() * 2);
+        for (EntityRegistryEntry entry : new TreeMap<>(entities).values()) {
+            Declaration declaration = previous == null ? null : previous.declarations.get(entry.id());
+            if (declaration == null || declaration.entry() != entry) {
+                declaration = declare(entry, pools.get(entry.id()));
+            }
+            declarations.put(entry.id(), declaration);
+            List<String> next = declaration.next();
+            if (next == null || next.isEmpty()) continue;
+            List<String> conditions = new ArrayList<>(new LinkedHashSet<>(next));
+            for (String conditionId : conditions) {
+                if (!evolutions.containsKey(conditionId)) {
+                    errors.add("Entity " + entry.id() + " references unknown evolution condition: " + conditionId);
+                }
+            }
+            conditions.removeIf(conditionId -> !targets.containsKey(conditionId));
+            if (!conditions.isEmpty()) {
+                conditionsById.put(entry.id(), conditions);
+            }
+        }
+
+        String cycle = findCycle(conditionsById, targets);
+        if (cycle != null) {
+            errors.add("Evolution cycle: " + cycle);
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid evolution graph: " + String.join("; ", errors));
+        }
+
+        Map<String, Node> nodes = new HashMap<>(conditionsById.size() * 2);
+        conditionsById.forEach((registryId, conditions) -> {
+            String[] next = new String[conditions.size()];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = targets.get(conditions.get(i));
+            }
+            nodes.put(registryId, new Node(
+                    List.copyOf(conditions),
+                    Set.copyOf(conditions),
+                    List.of(next),
+                    reachable(registryId, conditionsById, targets)));
+        });
+        return new EvolutionGraph(nodes, Map.copyOf(targets), declarations, read);
+    }
+
+    /**
+     * Reads the evolutions declared by a fresh instance of an entity.
+     * @param entry The registry entry of the entity.
+     * @param pool The pool of the registry id, or null if it is not pooled.
+     * @return The declaration of the entity, with a null list if the entity does not evolve.
+     */
+    private static Declaration declare(EntityRegistryEntry entry, EntityPool pool) {
+        IEntity prototype = entry.createInstance();
+        List<String> next = prototype instanceof EvolutionEntity evolutionEntity ? evolutionEntity.getNextEvolutions() : null;
+        if (next != null) {
+            next = Collections.unmodifiableList(new ArrayList<>(next));
+        }
+        if (pool != null && prototype != null) {
+            pool.seed(prototype);
+        }
+        return new Declaration(entry, next);
+    }
+
+    /**
+     * Finds a cycle of evolutions, looking at the registry ids in alphabetical order so the reported cycle is deterministic.
+     * @param conditionsById The valid evolution conditions, by registry id.
+     * @param targets The targets of the evolution conditions, by condition id.
+     * @return The registry ids forming the cycle, or null if the graph is acyclic.
+     */
+    private static String findCycle(Map<String, List<String>> conditionsById, Map<String, String> targets) {
+        Map<String, Boolean> visiting = new HashMap<>();
+        List<String> path = new ArrayList<>();
+        for (String registryId : conditionsById.keySet()) {
+            String cycle = findCycle(registryId, conditionsById, targets, visiting, path);
+            if (cycle != null) return cycle;
+        }
+        return null;
+    }
+
+    /**
+     * Depth-first search of a cycle from a registry id.
+     * @param registryId The registry id to explore.
+     * @param conditionsById The valid evolution conditions, by registry id.
+     * @param targets The targets of the evolution conditions, by condition id.
+     * @param visiting true for the registry ids on the current path, false for the fully explored ones.
+     * @param path The current path.
+     * @return The registry ids forming the cycle, or null if no cycle is reachable.
+     */
+    private static String findCycle(String registryId, Map<String, List<String>> conditionsById, Map<String, String> targets,
+                                    Map<String, Boolean> visiting, List<String> path) {
+        Boolean state = visiting.get(registryId);
+        if (state != null) {
+            if (!state) return null;
+            List<String> cycle = new ArrayList<>(path.subList(path.indexOf(registryId), path.size()));
+            cycle.add(registryId);
+            return String.join(" -> ", cycle);
+        }
+        visiting.put(registryId, true);
+        path.add(registryId);
+        for (String conditionId : conditionsById.getOrDefault(registryId, List.of())) {
+            String cycle = findCycle(targets.get(conditionId), conditionsById, targets, visiting, path);
+            if (cycle != null) return cycle;
+        }
+        path.remove(path.size() - 1);
+        visiting.put(registryId, false);
+        return null;
+    }
+
+    /**
+     * Lists the registry ids reachable from a registry id through any number of evolutions.
+     * @param registryId The registry id to start from.
+     * @param conditionsById The valid evolution conditions, by registry id.
+     * @param targets The targets of the evolution conditions, by condition id.
+     * @return The reachable registry ids, in breadth-first order.
+     */
+    private static List<String> reachable(String registryId, Map<String, List<String>> conditionsById, Map<String, String> targets) {
+        Set<String> reached = new LinkedHashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        queue.add(registryId);
+        while (!queue.isEmpty()) {
+            for (String conditionId : conditionsById.getOrDefault(queue.poll(), List.of())) {
+                String target = targets.get(conditionId);
+                if (reached.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+        return List.copyOf(reached);
+    }
+
+    /**
+     * Gets the evolution conditions of a registry id.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @return The immutable list of condition ids, in the order of {@link EvolutionEntity#getNextEvolutions()}, empty if the entity does not evolve.
+     */
+    public List<String> getNextEvolutions(String registryId) {
+        Node node = nodes.get(registryId);
+        return node == null ? List.of() : node.conditions();
+    }
+
+    /**
+     * Gets the registry ids an entity can directly evolve into.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @return The immutable list of registry ids, in the order of {@link #getNextEvolutions(String)}, empty if the entity does not evolve.
+     */
+    public List<String> getNextEntities(String registryId) {
+        Node node = nodes.get(registryId);
+        return node == null ? List.of() : node.next();
+    }
+
+    /**
+     * Gets the registry ids an entity can evolve into through any number of evolutions.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @return The immutable list of registry ids, nearest first, empty if the entity does not evolve.
+     */
+    public List<String> getReachableEntities(String registryId) {
+        Node node = nodes.get(registryId);
+        return node == null ? List.of() : node.reachable();
+    }
+
+    /**
+     * Checks if an evolution condition is one of the evolutions of a registry id.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @param conditionId The unique identifier of the evolution condition.
+     * @return true if the entity declares this evolution, false otherwise.
+     */
+    public boolean hasEvolution(String registryId, String conditionId) {
+        Node node = nodes.get(registryId);
+        return node != null && node.conditionSet().contains(conditionId);
+    }
+
+    /**
+     * Checks if an evolution condition is one of the evolutions of an entity.
+     * The answer comes from the evolutions of its registry id in constant time,
+     * unless the entity {@link EvolutionEntity#hasRuntimeEvolutions() changes its evolutions at runtime}: its own list is searched then.
+     * @param entity The entity.
+     * @param conditionId The unique identifier of the evolution condition.
+     * @return true if the entity declares this evolution, false otherwise.
+     */
+    public boolean hasEvolution(EvolutionEntity entity, String conditionId) {
+        if (entity.hasRuntimeEvolutions()) {
+            List<String> next = entity.getNextEvolutions();
+            return next != null && next.contains(conditionId);
+        }
+        return hasEvolution(entity.getRegistryId(), conditionId);
+    }
+
+    /**
+     * Gets the evolution conditions of an entity.
+     * @param entity The entity.
+     * @return The conditions of its registry id, or its own list if it {@link EvolutionEntity#hasRuntimeEvolutions() changes its evolutions at runtime}.
+     */
+    public List<String> getNextEvolutions(EvolutionEntity entity) {
+        if (entity.hasRuntimeEvolutions()) {
+            List<String> next = entity.getNextEvolutions();
+            return next == null ? List.of() : next;
+        }
+        return getNextEvolutions(entity.getRegistryId());
+    }
+
+    /**
+     * Gets the registry id of the entity spawned by an evolution condition.
+     * @param conditionId The unique identifier of the evolution condition.
+     * @return The registry id of the target entity, or null if the condition is unknown.
+     */
+    public String getTarget(String conditionId) {
+        return conditionId == null ? null : targets.get(conditionId);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("EvolutionGraph{");
+        String[] ids = nodes.keySet().toArray(String[]::new);
+        Arrays.sort(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(ids[i]).append(" -> ").append(nodes.get(ids[i]).next());
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Outgoing evolutions of a registry id.
+     * @param conditions The evolution condition ids, in declaration order.
+     * @param conditionSet The evolution condition ids, for constant-time lookups.
+     * @param next The registry ids spawned by each condition.
+     * @param reachable The registry ids reachable through any number of evolutions, nearest first.
+     */
+    private record Node(List<String> conditions, Set<String> conditionSet, List<String> next, List<String> reachable) {
+    }
+
+    /**
+     * Evolutions declared by a registry entry.
+     * @param entry The registry entry, compared by identity to detect a new registration.
+     * @param next A copy of the list returned by the created instance, or null if the entity does not evolve.
+     */
+    private record Declaration(EntityRegistryEntry entry, List<String> next) {
+    }
+
+    /**
+     * Entity spawned by an evolution registry entry.
+     * @param entry The registry entry, compared by identity to detect a new registration.
+     * @param entityId The registry id returned by the created condition, or null.
+     */
+    private record Target(EvolutionRegistryEntry entry, String entityId) {
+    }
+}
@@ -0,0 +1,106 @@
+package fr.olympus.prometheus.resources;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interning table of group names.
+ * Each group name gets a small integer id the first time it is registered, ids are never reused.
+ * Lookups are lock-free, interning a new group is synchronized.
+ */
+final class GroupIndex {
+
+    /**
+     * Number of slots of the query mask cache, a power of two.
+     */
+    private static final int QUERY_CACHE_SIZE = 256;
+
+    /**
+     * Interned ids by group name.
+     */
+    private final Map<String, Integer> ids;
+
+    /**
+     * Masks of recently queried group combinations, by hash of the group names.
+     * A slot is overwritten by the next combination with the same hash. Entries are immutable, so the cache is read without locking.
+     */
+    private final CachedQuery[] queryCache = new CachedQuery[QUERY_CACHE_SIZE];
+
+    /**
+     * Constructs an empty GroupIndex.
+     */
+    GroupIndex() {
+        this.ids = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Interns a group name.
+     * @param group The group name.
+     * @return The id of the group.
+     */
+    int intern(String group) {
+        Integer id = ids.get(group);
+        if (id != null) return id;
+        synchronized (this) {
+            return ids.computeIfAbsent(group, g -> ids.size());
+        }
+    }
+
+    /**
+     * Gets the id of an already interned group.
+     * @param group The group name.
+     * @return The id of the group, or -1 if the group has never been interned.
+     */
+    int idOf(String group) {
+        if (group == null) return -1;
+        Integer id = ids.get(group);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Builds the mask of the given groups, interning unknown groups.
+     * @param groups The group names, may be null.
+     * @return The mask of the groups.
+     */
+    GroupMask maskOf(String[] groups) {
+        if (groups == null || groups.length == 0) return GroupMask.EMPTY;
+        int[] groupIds = new int[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            groupIds[i] = intern(groups[i]);
+        }
+        return GroupMask.of(groupIds);
+    }
+
+    /**
+     * Builds the mask of the given groups without interning them.
+     * The masks of the recently queried combinations are cached, a cached combination is resolved without allocating.
+     * @param groups The group names.
+     * @return The mask of the groups, or null if one of them has never been interned, in which case nothing can match.
+     */
+    GroupMask queryMask(String[] groups) {
+        if (groups.length == 0) return GroupMask.EMPTY;
+        int hash = Arrays.hashCode(groups);
+        int slot = (hash ^ (hash >>> 16)) & (QUERY_CACHE_SIZE - 1);
+        CachedQuery cached = queryCache[slot];
+        if (cached != null && Arrays.equals(cached.groups, groups)) return cached.mask;
+        int[] groupIds = new int[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            int id = idOf(groups[i]);
+            if (id < 0) return null;
+            groupIds[i] = id;
+        }
+        // Group ids are never reused, so the mask of known groups never changes
+        GroupMask mask = GroupMask.of(groupIds);
+        queryCache[slot] = new CachedQuery(groups.clone(), mask);
+        return mask;
+    }
+
+    /**
+     * Cached mask of a group combination.
+     * @param groups The queried group names, in query order.
+     * @param mask The mask of the groups.
+     */
+    private record CachedQuery(String[] groups, GroupMask mask) {
+    }
+}
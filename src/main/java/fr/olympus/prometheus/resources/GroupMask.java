@@ -0,0 +1,108 @@
+package fr.olympus.prometheus.resources;
+
+import java.util.Arrays;
+
+/**
+ * Immutable bitset of interned group ids.
+ * Used to test group membership with bitmask operations instead of string comparisons.
+ */
+final class GroupMask {
+
+    /**
+     * Mask without any group.
+     */
+    static final GroupMask EMPTY = new GroupMask(new long[0], new int[0]);
+
+    /**
+     * Bits of the mask, one bit per interned group id.
+     */
+    private final long[] words;
+
+    /**
+     * Sorted, distinct group ids contained in the mask.
+     */
+    private final int[] ids;
+
+    private GroupMask(long[] words, int[] ids) {
+        this.words = words;
+        this.ids = ids;
+    }
+
+    /**
+     * Creates a mask from interned group ids.
+     * @param groupIds The interned group ids, duplicates are ignored.
+     * @return A mask containing the given group ids.
+     */
+    static GroupMask of(int... groupIds) {
+        if (groupIds.length == 0) return EMPTY;
+        int[] sorted = groupIds.clone();
+        Arrays.sort(sorted);
+        int count = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[count - 1]) sorted[count++] = sorted[i];
+        }
+        int[] ids = count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+        long[] words = new long[(ids[ids.length - 1] >>> 6) + 1];
+        for (int id : ids) {
+            words[id >>> 6] |= 1L << id;
+        }
+        return new GroupMask(words, ids);
+    }
+
+    /**
+     * Checks if this mask contains every group of the other mask.
+     * @param other The mask to test.
+     * @return true if all groups of the other mask are in this mask, false otherwise.
+     */
+    boolean containsAll(GroupMask other) {
+        long[] otherWords = other.words;
+        if (otherWords.length > words.length) {
+            for (int i = words.length; i < otherWords.length; i++) {
+                if (otherWords[i] != 0) return false;
+            }
+        }
+        for (int i = 0, n = Math.min(words.length, otherWords.length); i < n; i++) {
+            if ((words[i] & otherWords[i]) != otherWords[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if this mask contains a group.
+     * @param groupId The interned group id.
+     * @return true if the group is in this mask, false otherwise.
+     */
+    boolean contains(int groupId) {
+        int word = groupId >>> 6;
+        return word < words.length && (words[word] & (1L << groupId)) != 0;
+    }
+
+    /**
+     * Gets the group ids contained in the mask.
+     * The returned array is shared and must not be modified.
+     * @return The sorted group ids of the mask.
+     */
+    int[] ids() {
+        return ids;
+    }
+
+    /**
+     * Gets the position of a group id in {@link #ids()}.
+     * @param groupId The interned group id.
+     * @return The position of the group id, or -1 if the group is not in this mask.
+     */
+    int indexOf(int groupId) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == groupId) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the mask does not contain any group.
+     * @return true if the mask is empty, false otherwise.
+     */
+    boolean isEmpty() {
+        return ids.length == 0;
+    }
+}
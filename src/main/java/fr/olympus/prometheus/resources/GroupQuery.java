@@ -0,0 +1,52 @@
+package fr.olympus.prometheus.resources;
+
+import java.util.Arrays;
+
+/**
+ * Precompiled group query, created by {@link PrometheusData#compileGroupQuery(String...)}.
+ * The group names are interned once, so running the query neither hashes strings nor allocates.
+ * A query can be reused for the whole lifetime of the {@link PrometheusData} that compiled it, and shared between threads.
+ */
+public final class GroupQuery {
+
+    /**
+     * Groups the entities must belong to.
+     */
+    private final String[] groups;
+
+    /**
+     * Interned mask of the groups.
+     */
+    private final GroupMask mask;
+
+    /**
+     * Constructs a new GroupQuery.
+     * @param groups The groups the entities must belong to.
+     * @param mask The interned mask of the groups.
+     */
+    GroupQuery(String[] groups, GroupMask mask) {
+        this.groups = groups;
+        this.mask = mask;
+    }
+
+    /**
+     * Gets the interned mask of the groups.
+     * @return The mask of the groups.
+     */
+    GroupMask mask() {
+        return mask;
+    }
+
+    /**
+     * Gets the groups the entities must belong to.
+     * @return A copy of the groups of the query.
+     */
+    public String[] getGroups() {
+        return groups.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "GroupQuery" + Arrays.toString(groups);
+    }
+}
@@ -0,0 +1,464 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.FamilyEntity;
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Parent/child links between loaded entities, maintained by {@link PrometheusData}.
+ * Only the entities having a parent or children have a node, the parent and the children of an entity are found in constant time,
+ * and subtrees are walked through the parent links without allocating. This class is thread-safe.
+ * <p>
+ * Lock order: a thread may lock the index while holding a lock of the store, as visitors calling {@link #parentOf} do,
+ * so the index never calls the store while it is locked. Declared children are resolved before locking the index,
+ * and checked again once attached, in case they have been destroyed in between.
+ */
+final class HierarchyIndex {
+
+    /**
+     * Initial capacity of the children array of a node.
+     */
+    private static final int INITIAL_CHILDREN = 4;
+
+    /**
+     * Store of the loaded entities, used to resolve the children declared by a {@link FamilyEntity}.
+     */
+    private final WorldStore store;
+
+    /**
+     * Nodes of the linked entities, by UUID.
+     */
+    private final Map<UUID, Node> nodes = new HashMap<>();
+
+    /**
+     * Loaded family entities that declared children not loaded yet, by child UUID.
+     */
+    private final Map<UUID, IEntity> pending = new HashMap<>();
+
+    /**
+     * UUIDs of the children in {@link #pending}, by UUID of the family entity that declared them,
+     * so that the pending links of a destroyed family entity are dropped with it.
+     */
+    private final Map<UUID, List<UUID>> pendingByParent = new HashMap<>();
+
+    /**
+     * Whether the index has no node and no pending link, read without locking by the hooks of {@link PrometheusData}.
+     */
+    private volatile boolean empty = true;
+
+    /**
+     * Constructs an empty HierarchyIndex.
+     * @param store The store of the loaded entities.
+     */
+    HierarchyIndex(WorldStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Links a loaded entity to its declared children and to the parent that declared it, if they are loaded.
+     * @param entity The loaded entity.
+     */
+    void loaded(IEntity entity) {
+        if (empty && !(entity instanceof FamilyEntity)) return;
+        Declared declared = declare(entity);
+        Linked linked = declared == null ? null : new Linked();
+        synchronized (this) {
+            link(entity, declared, linked);
+        }
+        recheck(linked);
+    }
+
+    /**
+     * Links loaded entities to their declared children and to the parents that declared them, if they are loaded.
+     * @param entities The loaded entities.
+     */
+    void loadedAll(List<? extends IEntity> entities) {
+        if (empty && !hasFamily(entities)) return;
+        Declared[] declared = new Declared[entities.size()];
+        Linked linked = null;
+        for (int i = 0; i < declared.length; i++) {
+            declared[i] = declare(entities.get(i));
+            if (declared[i] != null && linked == null) linked = new Linked();
+        }
+        synchronized (this) {
+            for (int i = 0; i < declared.length; i++) {
+                link(entities.get(i), declared[i], linked);
+            }
+        }
+        recheck(linked);
+    }
+
+    /**
+     * Checks if a list contains a family entity.
+     * @param entities The entities.
+     * @return true if one of the entities is a {@link FamilyEntity}.
+     */
+    private static boolean hasFamily(List<? extends IEntity> entities) {
+        for (IEntity entity : entities) {
+            if (entity instanceof FamilyEntity) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the index has no link and no pending link.
+     * @return true if no entity is linked and no declared child is waiting to be loaded.
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Unlinks a destroyed entity: it is detached from its parent and its children lose their parent.
+     * @param entity The destroyed entity.
+     */
+    void removed(IEntity entity) {
+        if (empty) return;
+        synchronized (this) {
+            UUID uuid = entity.currentUUID();
+            IEntity declaring = pending.remove(uuid);
+            if (declaring != null) {
+                forgetPending(declaring.currentUUID(), uuid);
+            }
+            List<UUID> declared = pendingByParent.remove(uuid);
+            if (declared != null) {
+                for (UUID child : declared) {
+                    pending.remove(child, entity);
+                }
+            }
+            Node node = nodes.remove(uuid);
+            if (node != null) {
+                Node parent = node.parent;
+                if (parent != null) {
+                    unlink(node);
+                    prune(parent);
+                }
+                for (int i = 0; i < node.childCount; i++) {
+                    Node child = node.children[i];
+                    child.parent = null;
+                    child.slot = -1;
+                    prune(child);
+                }
+            }
+            updateEmpty();
+        }
+    }
+
+    /**
+     * Makes an entity a child of another one, detaching it from its previous parent.
+     * @param parent The new parent.
+     * @param child The child.
+     * @throws IllegalArgumentException if both entities are the same.
+     * @throws IllegalStateException if the child is an ancestor of the parent.
+     */
+    synchronized void attach(IEntity parent, IEntity child) {
+        if (parent == child) throw new IllegalArgumentException("An entity cannot be its own parent");
+        if (isAncestor(child, parent)) {
+            throw new IllegalStateException("Entity " + child.currentUUID() + " is an ancestor of " + parent.currentUUID());
+        }
+        attachNode(node(parent), node(child));
+        empty = false;
+    }
+
+    /**
+     * Detaches an entity from its parent.
+     * @param child The child.
+     * @return true if the entity had a parent, false otherwise.
+     */
+    synchronized boolean detach(IEntity child) {
+        Node node = nodes.get(child.currentUUID());
+        if (node == null || node.parent == null) return false;
+        Node parent = node.parent;
+        unlink(node);
+        prune(parent);
+        prune(node);
+        updateEmpty();
+        return true;
+    }
+
+    /**
+     * Gets the parent of an entity.
+     * @param child The child.
+     * @return The parent, or null if the entity has no parent.
+     */
+    synchronized IEntity parentOf(IEntity child) {
+        Node node = nodes.get(child.currentUUID());
+        return node == null || node.parent == null ? null : node.parent.entity;
+    }
+
+    /**
+     * Gets the number of children of an entity.
+     * @param parent The parent.
+     * @return The number of children.
+     */
+    synchronized int childCount(IEntity parent) {
+        Node node = nodes.get(parent.currentUUID());
+        return node == null ? 0 : node.childCount;
+    }
+
+    /**
+     * Calls an action for every child of an entity, in no particular order.
+     * The action runs while the index is locked, it must not read the store, see the lock order above.
+     * @param parent The parent.
+     * @param action The action to call for each child.
+     */
+    synchronized void forEachChild(IEntity parent, Consumer<? super IEntity> action) {
+        Node node = nodes.get(parent.currentUUID());
+        if (node == null) return;
+        for (int i = 0; i < node.childCount; i++) {
+            action.accept(node.children[i].entity);
+        }
+    }
+
+    /**
+     * Calls an action for every descendant of an entity, each parent before its children.
+     * The action runs while the index is locked, it must not read the store, see the lock order above.
+     * @param root The root of the subtree, not given to the action.
+     * @param action The action to call for each descendant.
+     */
+    synchronized void forEachDescendant(IEntity root, Consumer<? super IEntity> action) {
+        Node top = nodes.get(root.currentUUID());
+        if (top == null || top.childCount == 0) return;
+        Node current = top.children[0];
+        while (true) {
+            action.accept(current.entity);
+            if (current.childCount > 0) {
+                current = current.children[0];
+                continue;
+            }
+            while (current != top) {
+                Node parent = current.parent;
+                if (current.slot + 1 < parent.childCount) {
+                    current = parent.children[current.slot + 1];
+                    break;
+                }
+                current = parent;
+            }
+            if (current == top) return;
+        }
+    }
+
+    /**
+     * Resolves the children declared by a family entity, without locking the index.
+     * @param entity The loaded entity.
+     * @return The declared children, or null if the entity declares none.
+     */
+    private Declared declare(IEntity entity) {
+        if (!(entity instanceof FamilyEntity family)) return null;
+        List<UUID> uuids = family.getChildUUIDs();
+        if (uuids == null || uuids.isEmpty()) return null;
+        UUID[] declared = uuids.toArray(new UUID[0]);
+        IEntity[] children = new IEntity[declared.length];
+        for (int i = 0; i < declared.length; i++) {
+            children[i] = store.find(declared[i]);
+        }
+        return new Declared(declared, children);
+    }
+
+    /**
+     * Links an entity to its declared children and to the parent that declared it. Children forming a cycle are ignored.
+     * @param entity The loaded entity.
+     * @param declared The declared children of the entity, resolved before locking, or null.
+     * @param linked The links to check again once the index is unlocked, not null if declared is not null.
+     */
+    private void link(IEntity entity, Declared declared, Linked linked) {
+        if (!pending.isEmpty()) {
+            IEntity parent = pending.remove(entity.currentUUID());
+            if (parent != null) {
+                forgetPending(parent.currentUUID(), entity.currentUUID());
+                if (parent != entity && !isAncestor(entity, parent)) {
+                    attachNode(node(parent), node(entity));
+                }
+            }
+        }
+        if (declared != null) {
+            for (int i = 0; i < declared.uuids.length; i++) {
+                IEntity child = declared.children[i];
+                if (child == null) {
+                    UUID uuid = declared.uuids[i];
+                    IEntity previous = pending.put(uuid, entity);
+                    if (previous != entity) {
+                        if (previous != null) forgetPending(previous.currentUUID(), uuid);
+                        pendingByParent.computeIfAbsent(entity.currentUUID(), parent -> new ArrayList<>()).add(uuid);
+                    }
+                    linked.waitingParents.add(entity);
+                    linked.waitingChildren.add(uuid);
+                } else if (child != entity && !isAncestor(child, entity)) {
+                    attachNode(node(entity), node(child));
+                    linked.attached.add(child);
+                }
+            }
+        }
+        updateEmpty();
+    }
+
+    /**
+     * Checks the links made by a load against the store once the index is unlocked.
+     * A child loaded between the resolution and the locking would never be attached, it is attached now,
+     * and an attached child destroyed in between is unlinked. Later loads and removals update the index themselves.
+     * @param linked The links made by the load, or null if it declared no child.
+     */
+    private void recheck(Linked linked) {
+        if (linked == null) return;
+        for (int i = 0; i < linked.waitingChildren.size(); i++) {
+            UUID uuid = linked.waitingChildren.get(i);
+            IEntity child = store.find(uuid);
+            if (child == null) continue;
+            IEntity parent = linked.waitingParents.get(i);
+            synchronized (this) {
+                if (pending.remove(uuid, parent)) {
+                    forgetPending(parent.currentUUID(), uuid);
+                    if (child != parent && !isAncestor(child, parent)) {
+                        attachNode(node(parent), node(child));
+                        linked.attached.add(child);
+                    }
+                    updateEmpty();
+                }
+            }
+        }
+        for (IEntity child : linked.attached) {
+            if (store.find(child.currentUUID()) != child) {
+                removed(child);
+            }
+        }
+    }
+
+    /**
+     * Removes a child from the pending children of the family entity that declared it.
+     * @param parent The UUID of the family entity.
+     * @param child The UUID of the child.
+     */
+    private void forgetPending(UUID parent, UUID child) {
+        List<UUID> children = pendingByParent.get(parent);
+        if (children != null && children.remove(child) && children.isEmpty()) {
+            pendingByParent.remove(parent);
+        }
+    }
+
+    /**
+     * Checks if an entity is an ancestor of another one, by walking up the parents of the second one.
+     * @param ancestor The possible ancestor.
+     * @param entity The entity.
+     * @return true if ancestor is the parent of entity, or of one of its ancestors.
+     */
+    private boolean isAncestor(IEntity ancestor, IEntity entity) {
+        Node node = nodes.get(entity.currentUUID());
+        for (Node parent = node == null ? null : node.parent; parent != null; parent = parent.parent) {
+            if (parent.entity == ancestor) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the node of an entity, creating it if needed.
+     * @param entity The entity.
+     * @return The node.
+     */
+    private Node node(IEntity entity) {
+        return nodes.computeIfAbsent(entity.currentUUID(), uuid -> new Node(entity));
+    }
+
+    /**
+     * Adds a node to the children of another one, detaching it from its previous parent.
+     * @param parent The parent node.
+     * @param child The child node.
+     */
+    private void attachNode(Node parent, Node child) {
+        if (child.parent == parent) return;
+        if (child.parent != null) {
+            Node previous = child.parent;
+            unlink(child);
+            prune(previous);
+        }
+        if (parent.childCount == parent.children.length) {
+            parent.children = Arrays.copyOf(parent.children, Math.max(INITIAL_CHILDREN, parent.childCount * 2));
+        }
+        child.parent = parent;
+        child.slot = parent.childCount;
+        parent.children[parent.childCount++] = child;
+    }
+
+    /**
+     * Removes a node from the children of its parent, moving the last child into its slot.
+     * @param child The child node, which has a parent.
+     */
+    private void unlink(Node child) {
+        Node parent = child.parent;
+        int last = --parent.childCount;
+        Node moved = parent.children[last];
+        parent.children[child.slot] = moved;
+        moved.slot = child.slot;
+        parent.children[last] = null;
+        child.parent = null;
+        child.slot = -1;
+    }
+
+    /**
+     * Drops the node of an entity that no longer has a parent nor children.
+     * @param node The node.
+     */
+    private void prune(Node node) {
+        if (node.parent == null && node.childCount == 0) {
+            nodes.remove(node.entity.currentUUID(), node);
+        }
+    }
+
+    private void updateEmpty() {
+        empty = nodes.isEmpty() && pending.isEmpty();
+    }
+
+    /**
+     * Children declared by a family entity, resolved against the store.
+     * @param uuids The declared UUIDs.
+     * @param children The loaded children, by position in uuids, null for the children not loaded yet.
+     */
+    private record Declared(UUID[] uuids, IEntity[] children) {
+    }
+
+    /**
+     * Links made by a load that depend on the store state read before locking the index.
+     */
+    private static final class Linked {
+
+        /**
+         * Children attached to a loaded family entity.
+         */
+        private final List<IEntity> attached = new ArrayList<>();
+
+        /**
+         * Family entities and the children they declared that were not loaded, by position.
+         */
+        private final List<IEntity> waitingParents = new ArrayList<>();
+        private final List<UUID> waitingChildren = new ArrayList<>();
+    }
+
+    /**
+     * Node of a linked entity.
+     */
+    private static final class Node {
+
+        private final IEntity entity;
+
+        private Node parent;
+
+        /**
+         * Position of this node in the children of its parent, -1 without parent.
+         */
+        private int slot = -1;
+
+        private Node[] children = new Node[0];
+
+        private int childCount;
+
+        private Node(IEntity entity) {
+            this.entity = entity;
+        }
+    }
+}
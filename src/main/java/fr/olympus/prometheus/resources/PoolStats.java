@@ -0,0 +1,24 @@
+package fr.olympus.prometheus.resources;
+
+/**
+ * Snapshot of the counters of the entity pool of a registry id.
+ *
+ * @param registryId The registry id of the pooled entities.
+ * @param capacity The maximal number of pooled instances.
+ * @param pooled The number of instances currently waiting in the pool.
+ * @param hits The number of spawns served by a pooled instance.
+ * @param misses The number of spawns that found the pool empty and constructed a new instance.
+ * @param recycled The number of destroyed instances kept by the pool.
+ * @param discarded The number of destroyed instances dropped because the pool was full.
+ */
+public record PoolStats(String registryId, int capacity, int pooled, long hits, long misses, long recycled, long discarded) {
+
+    /**
+     * Gets the ratio of spawns served by a pooled instance.
+     * @return The hit ratio between 0.0 and 1.0, or 0.0 if nothing has been spawned.
+     */
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -1,16 +1,35 @@
 package fr.olympus.prometheus.resources;
 
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.DroppableEntity;
 import fr.olympus.prometheus.entity.Entity;
+import fr.olympus.prometheus.entity.EntityIdGenerator;
+import fr.olympus.prometheus.entity.FamilyEntity;
 import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.event.EntityEventBus;
+import fr.olympus.prometheus.event.EntityEventType;
 import fr.olympus.prometheus.evolution.EvolutionCondition;
+import fr.olympus.prometheus.evolution.EvolutionEntity;
+import fr.olympus.prometheus.metrics.FlushEvent;
+import fr.olympus.prometheus.metrics.PrometheusMetrics;
+import fr.olympus.prometheus.metrics.SpawnBatchEvent;
 import fr.olympus.prometheus.register.EntityRegistryEntry;
 import fr.olympus.prometheus.register.EvolutionRegistryEntry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Class representing the main data structure for managing entities and evolutions in the Prometheus system.
@@ -19,51 +38,295 @@ import java.util.concurrent.ConcurrentHashMap;
 public class PrometheusData {
 
     /**
-     * Registry of entities by their unique identifiers.
+     * Registries of entities and evolutions, replaced as a whole by every registration.
      */
-    private Map<String, EntityRegistryEntry> entitiesRegistry;
+    private volatile Registry registry;
 
     /**
-     * Registry of evolutions by their unique identifiers.
+     * Lock of the registrations and of the evolution graph construction.
      */
-    private Map<String, EvolutionRegistryEntry> evolutionRegistry;
+    private final Object registryLock = new Object();
 
     /**
-     * List of currently loaded entities.
+     * Interning table of the group names, shared by the registry and the loaded entities.
      */
-    private List<IEntity> loadedEntities;
+    private final GroupIndex groupIndex;
 
     /**
-     * Constructs a PrometheusData instance with an empty entities registry.
+     * Pools of destroyed entity instances, by registry id. Only pooled registry ids have an entry.
+     */
+    private final Map<String, EntityPool> pools;
+
+    /**
+     * Store of currently loaded entities, indexed by UUID, by group and by registry id.
+     */
+    private final WorldStore loadedEntities;
+
+    /**
+     * Generator of the UUIDs of spawned entities.
+     */
+    private final EntityIdGenerator idGenerator;
+
+    /**
+     * Evolution graph of the registries, built on first use and dropped on every registration.
+     */
+    private volatile EvolutionGraph evolutionGraph;
+
+    /**
+     * Last built evolution graph, kept across registrations so unchanged entries are not read again.
+     */
+    private EvolutionGraph lastEvolutionGraph;
+
+    /**
+     * Spawns and kills waiting for the next flush, or null if changes are applied immediately.
+     */
+    private volatile CommandBuffer commandBuffer;
+
+    /**
+     * Entities changed since the last drain, or null if change tracking is disabled.
+     */
+    private volatile ChangeTracker changeTracker;
+
+    /**
+     * Parent/child links between the loaded entities.
+     */
+    private final HierarchyIndex hierarchy;
+
+    /**
+     * Bus of the lifecycle events of the loaded entities.
+     */
+    private final EntityEventBus eventBus;
+
+    /**
+     * Counters and latency histograms of this instance.
+     */
+    private final PrometheusMetrics metrics;
+
+    /**
+     * Constructs a PrometheusData instance with empty registries and the default configuration.
      */
     public PrometheusData() {
-        this.entitiesRegistry = new ConcurrentHashMap<>();
-        this.loadedEntities = new ArrayList<>();
+        this(PrometheusConfig.defaults());
+    }
+
+    /**
+     * Constructs a PrometheusData instance with empty registries.
+     * @param config The configuration, defines whether the loaded entities storage is thread-safe.
+     */
+    public PrometheusData(PrometheusConfig config) {
+        this.registry = Registry.EMPTY;
+        this.groupIndex = new GroupIndex();
+        this.pools = new ConcurrentHashMap<>();
+        this.loadedEntities = config.isConcurrent()
+                ? new ConcurrentEntityStore(groupIndex, config.getConcurrencyLevel())
+                : new EntityStore(groupIndex);
+        this.idGenerator = config.getIdGenerator();
+        this.hierarchy = new HierarchyIndex(loadedEntities);
+        this.eventBus = new EntityEventBus(config.getEventBufferSize());
+        this.metrics = new PrometheusMetrics(config.isMetricsEnabled());
+    }
+
+    /**
+     * Gets the generator of the UUIDs of spawned entities.
+     * @return The UUID generator configured at initialization.
+     */
+    public EntityIdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Gets the bus of the lifecycle events of the loaded entities.
+     * Spawns, deaths, destructions, evolutions and statistic changes are published on it while it has subscriptions.
+     * @return The event bus.
+     */
+    public EntityEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Gets the counters and latency histograms of this instance, see {@link fr.olympus.prometheus.Prometheus#getMetrics()}.
+     * @return The metrics.
+     */
+    public PrometheusMetrics getMetrics() {
+        return metrics;
     }
 
     /**
      * Registers a new entity in the entities registry.
+     * The groups of the entity are interned, so group queries can use bitmasks.
+     * If the entry defines a pool capacity, a new empty pool is created for it.
+     * Each registration copies the registries, use {@link #registerAll(List, List)} to register many entries.
      * @param entry The EntityRegistryEntry containing the entity's unique identifier and supplier.
      */
     public void registerEntity(EntityRegistryEntry entry) {
-        entitiesRegistry.put(entry.id(), entry);
+        registerAll(List.of(entry), List.of());
+    }
+
+    /**
+     * Registers a batch of entities and evolutions at once.
+     * Every entry is validated, then the new registries are built aside and published with a single write:
+     * other threads see either none or all of the entries, and concurrent batches are published one after the other.
+     * @param entities The entity entries to register.
+     * @param evolutions The evolution entries to register.
+     * @throws IllegalArgumentException if a list or one of its entries is null.
+     */
+    public void registerAll(List<EntityRegistryEntry> entities, List<EvolutionRegistryEntry> evolutions) {
+        if (entities == null || evolutions == null) throw new IllegalArgumentException("Entry lists cannot be null");
+        for (EntityRegistryEntry entry : entities) {
+            if (entry == null) throw new IllegalArgumentException("Entity entries cannot be null");
+        }
+        for (EvolutionRegistryEntry entry : evolutions) {
+            if (entry == null) throw new IllegalArgumentException("Evolution entries cannot be null");
+        }
+        synchronized (registryLock) {
+            Registry current = registry;
+            Map<String, EntityRegistryEntry> entityMap = current.entities();
+            Map<String, GroupMask> masks = current.masks();
+            Map<Integer, Set<String>> byGroup = current.byGroup();
+            if (!entities.isEmpty()) {
+                entityMap = new HashMap<>(entityMap);
+                masks = new HashMap<>(masks);
+                Map<Integer, Set<String>> groups = new HashMap<>();
+                current.byGroup().forEach((groupId, ids) -> groups.put(groupId, new HashSet<>(ids)));
+                for (EntityRegistryEntry entry : entities) {
+                    GroupMask mask = groupIndex.maskOf(entry.groups());
+                    GroupMask previous = masks.put(entry.id(), mask);
+                    if (previous != null) {
+                        for (int groupId : previous.ids()) {
+                            groups.get(groupId).remove(entry.id());
+                        }
+                    }
+                    entityMap.put(entry.id(), entry);
+                    for (int groupId : mask.ids()) {
+                        groups.computeIfAbsent(groupId, id -> new HashSet<>()).add(entry.id());
+                    }
+                    if (entry.poolCapacity() > 0) {
+                        pools.put(entry.id(), new EntityPool(entry.poolCapacity()));
+                    }
+                }
+                groups.replaceAll((groupId, ids) -> Collections.unmodifiableSet(ids));
+                entityMap = Collections.unmodifiableMap(entityMap);
+                masks = Collections.unmodifiableMap(masks);
+                byGroup = Collections.unmodifiableMap(groups);
+            }
+            Map<String, EvolutionRegistryEntry> evolutionMap = current.evolutions();
+            if (!evolutions.isEmpty()) {
+                Map<String, EvolutionRegistryEntry> updated = new HashMap<>(evolutionMap);
+                for (EvolutionRegistryEntry entry : evolutions) {
+                    updated.put(entry.id(), entry);
+                }
+                evolutionMap = Collections.unmodifiableMap(updated);
+            }
+            registry = new Registry(entityMap, evolutionMap, masks, byGroup);
+            evolutionGraph = null;
+            for (EntityRegistryEntry entry : entities) {
+                if (entry.poolCapacity() <= 0) {
+                    pools.remove(entry.id());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the capacity of the entity pool of a registry identifier.
+     * Destroyed entities of a pooled registry identifier are reset through {@link IEntity#reset()} and reused by later spawns
+     * instead of being constructed again. References to a destroyed entity must therefore not be kept.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @param capacity The maximal number of pooled instances, 0 to disable pooling and drop the pooled instances.
+     * @throws IllegalArgumentException if no entity is registered with this identifier or if capacity is negative.
+     */
+    public void setPoolCapacity(String registryId, int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Pool capacity cannot be negative: " + capacity);
+        if (!registry.entities().containsKey(registryId)) {
+            throw new IllegalArgumentException("No entity found for registry id: " + registryId);
+        }
+        if (capacity == 0) {
+            pools.remove(registryId);
+            return;
+        }
+        pools.compute(registryId, (id, pool) -> {
+            if (pool == null) return new EntityPool(capacity);
+            pool.resize(capacity);
+            return pool;
+        });
+    }
+
+    /**
+     * Gets the statistics of the entity pool of a registry identifier.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @return The statistics of the pool, or null if the registry identifier is not pooled.
+     */
+    public PoolStats getPoolStats(String registryId) {
+        EntityPool pool = pools.get(registryId);
+        return pool == null ? null : pool.stats(registryId);
     }
 
     /**
      * Registers a new evolution in the evolution registry.
+     * Each registration copies the registries, use {@link #registerAll(List, List)} to register many entries.
      * @param entry The EvolutionRegistryEntry containing the evolution's unique identifier and supplier.
      */
     public void registerEvolution(EvolutionRegistryEntry entry) {
-        evolutionRegistry.put(entry.id(), entry);
+        registerAll(List.of(), List.of(entry));
+    }
+
+    /**
+     * Gets the evolution graph of the registered entities and evolution conditions.
+     * The graph is built and validated on the first call after a registration, then reused:
+     * calling this method once the registration is complete reports broken evolution data at boot.
+     * @return The evolution graph.
+     * @throws IllegalStateException if an entity references an unknown evolution condition,
+     * if a condition spawns an unknown entity, or if evolutions form a cycle.
+     */
+    public EvolutionGraph getEvolutionGraph() {
+        EvolutionGraph graph = evolutionGraph;
+        if (graph != null) return graph;
+        synchronized (registryLock) {
+            if (evolutionGraph == null) {
+                Registry current = registry;
+                lastEvolutionGraph = EvolutionGraph.build(current.entities(), current.evolutions(), lastEvolutionGraph, pools);
+                evolutionGraph = lastEvolutionGraph;
+            }
+            return evolutionGraph;
+        }
+    }
+
+    /**
+     * Checks if an evolution condition is one of the evolutions of an entity.
+     * Once {@link #getEvolutionGraph()} has built the graph, the evolutions of the registry id answer in constant time,
+     * see {@link EvolutionGraph#hasEvolution(EvolutionEntity, String)}. Until then, {@link EvolutionEntity#getNextEvolutions()} is searched.
+     * @param entity The entity.
+     * @param conditionId The unique identifier of the evolution condition.
+     * @return true if the entity declares this evolution, false otherwise.
+     */
+    public boolean hasEvolution(EvolutionEntity entity, String conditionId) {
+        EvolutionGraph graph = evolutionGraph;
+        if (graph != null) return graph.hasEvolution(entity, conditionId);
+        List<String> next = entity.getNextEvolutions();
+        return next != null && next.contains(conditionId);
+    }
+
+    /**
+     * Gets the evolution conditions of an entity, from the graph once {@link #getEvolutionGraph()} has built it,
+     * see {@link EvolutionGraph#getNextEvolutions(EvolutionEntity)}. Until then, {@link EvolutionEntity#getNextEvolutions()} is returned.
+     * @param entity The entity.
+     * @return The evolution conditions of the entity, in declaration order.
+     */
+    public List<String> getNextEvolutions(EvolutionEntity entity) {
+        EvolutionGraph graph = evolutionGraph;
+        if (graph != null) return graph.getNextEvolutions(entity);
+        List<String> next = entity.getNextEvolutions();
+        return next == null ? List.of() : next;
     }
 
     /**
      * Retrieves an evolution condition from the evolution registry by its unique identifier.
+     * Stateless evolution conditions are shared, stateful ones are instantiated on every call.
      * @param conditionId The unique identifier of the evolution condition to retrieve.
      * @return An instance of EvolutionCondition corresponding to the provided unique identifier.
      */
     public EvolutionCondition getEvolutionCondition(String conditionId) {
-        EvolutionRegistryEntry entry = evolutionRegistry.get(conditionId);
+        EvolutionRegistryEntry entry = registry.evolutions().get(conditionId);
         if (entry == null) {
             throw new IllegalArgumentException("No evolution condition found for id: " + conditionId);
         }
@@ -72,38 +335,532 @@ public class PrometheusData {
 
     /**
      * Creates a new entity instance based on the provided registry identifier.
+     * While changes are deferred, the entity is loaded by the next {@link #flushDeferred()}.
      * @param registryId The unique identifier of the entity in the registry to create.
      * @return An instance of Entity corresponding to the provided registry identifier.
      */
     public IEntity createEntity(String registryId) {
-        EntityRegistryEntry entry = entitiesRegistry.get(registryId);
+        EntityRegistryEntry entry = registry.entities().get(registryId);
         if (entry == null) {
             throw new IllegalArgumentException("No entity found for registry id: " + registryId);
         }
-        IEntity entity = entry.createInstance();
-        entity.setRegistryMeta(registryId, entry.groups());
-        loadedEntities.add(entity);
+        IEntity entity = instantiate(entry, idGenerator.nextId());
+        CommandBuffer buffer = commandBuffer;
+        if (buffer == null || !buffer.spawn(entity)) {
+            loadedEntities.add(entity);
+            onLoaded(entity);
+        }
         return entity;
     }
 
     /**
-     * Destroys an entity by removing it from the list of loaded entities.
+     * Creates several entity instances of the same registry identifier in one batch.
+     * The registry entry is resolved once, the storage is grown once and the entities are published together.
+     * @param registryId The unique identifier of the entity in the registry to create.
+     * @param count The number of entities to create.
+     * @return The created entities, in creation order.
+     * @throws IllegalArgumentException if no entity is registered with this identifier or if count is negative.
+     */
+    public List<IEntity> createEntities(String registryId, int count) {
+        return createEntities(registryId, count, false);
+    }
+
+    /**
+     * Creates several entity instances of the same registry identifier in one batch.
+     * The registry entry is resolved once, the UUIDs are generated in one call, the storage is grown once and the entities are published together:
+     * other threads see either none or all of them, and nothing is published if an instance cannot be created.
+     * While changes are deferred, the entities are loaded by the next {@link #flushDeferred()}.
+     * @param registryId The unique identifier of the entity in the registry to create.
+     * @param count The number of entities to create.
+     * @param parallel true to construct the instances in parallel on the common fork-join pool, the entity supplier must then be thread-safe.
+     * @return The created entities, in creation order.
+     * @throws IllegalArgumentException if no entity is registered with this identifier or if count is negative.
+     */
+    public List<IEntity> createEntities(String registryId, int count, boolean parallel) {
+        if (count < 0) throw new IllegalArgumentException("count cannot be negative: " + count);
+        EntityRegistryEntry entry = registry.entities().get(registryId);
+        if (entry == null) {
+            throw new IllegalArgumentException("No entity found for registry id: " + registryId);
+        }
+        SpawnBatchEvent event = new SpawnBatchEvent();
+        event.begin();
+        UUID[] uuids = new UUID[count];
+        idGenerator.nextIds(uuids, count);
+        IEntity[] created = new IEntity[count];
+        if (parallel) {
+            IntStream.range(0, count).parallel().forEach(i -> created[i] = instantiate(entry, uuids[i]));
+        } else {
+            for (int i = 0; i < count; i++) {
+                created[i] = instantiate(entry, uuids[i]);
+            }
+        }
+        List<IEntity> entities = Arrays.asList(created);
+        CommandBuffer buffer = commandBuffer;
+        if (buffer == null || !buffer.spawnAll(entities)) {
+            loadedEntities.addAll(entities);
+            onLoadedAll(entities);
+        }
+        if (event.shouldCommit()) {
+            event.registryId = registryId;
+            event.count = count;
+            event.parallel = parallel;
+            event.commit();
+        }
+        return entities;
+    }
+
+    /**
+     * Creates an entity instance with a given UUID, without loading it, for example to restore a saved entity.
+     * The entity can then be loaded with {@link #loadEntities(List)}.
+     * @param registryId The unique identifier of the entity in the registry to create.
+     * @param uuid The UUID of the entity.
+     * @return The created entity.
+     * @throws IllegalArgumentException if no entity is registered with this identifier or if uuid is null.
+     * @throws IllegalStateException if the entity does not keep the given UUID.
+     */
+    public IEntity newEntity(String registryId, UUID uuid) {
+        if (uuid == null) throw new IllegalArgumentException("UUID cannot be null");
+        EntityRegistryEntry entry = registry.entities().get(registryId);
+        if (entry == null) {
+            throw new IllegalArgumentException("No entity found for registry id: " + registryId);
+        }
+        return instantiate(entry, uuid);
+    }
+
+    /**
+     * Resolves a registry identifier once into a factory of entity instances, for example to restore many saved entities.
+     * The factory behaves like {@link #newEntity(String, UUID)} without looking up the registry on each call,
+     * it uses the registry entry and the pool of the identifier at the time it is resolved.
+     * @param registryId The unique identifier of the entity in the registry.
+     * @return A function creating an unloaded entity with a given UUID.
+     * @throws IllegalArgumentException if no entity is registered with this identifier.
+     */
+    public Function<UUID, IEntity> entityFactory(String registryId) {
+        EntityRegistryEntry entry = registry.entities().get(registryId);
+        if (entry == null) {
+            throw new IllegalArgumentException("No entity found for registry id: " + registryId);
+        }
+        EntityPool pool = pools.get(entry.id());
+        return uuid -> {
+            if (uuid == null) throw new IllegalArgumentException("UUID cannot be null");
+            return instantiate(entry, pool, uuid);
+        };
+    }
+
+    /**
+     * Loads entities created with {@link #newEntity(String, UUID)} in one step: either every entity is loaded, or none is.
+     * While changes are deferred, the entities are loaded by the next {@link #flushDeferred()}.
+     * @param entities The entities to load.
+     * @throws IllegalArgumentException if an entity has no UUID.
+     * @throws IllegalStateException if an entity with the same UUID is already loaded or present twice.
+     */
+    public void loadEntities(List<? extends IEntity> entities) {
+        CommandBuffer buffer = commandBuffer;
+        if (buffer == null || !buffer.spawnAll(entities)) {
+            loadedEntities.addAll(entities);
+            onLoadedAll(entities);
+        }
+    }
+
+    /**
+     * Creates an entity instance from a registry entry and assigns its registry metadata, without loading it.
+     * A pooled instance is reused when available.
+     * @param entry The registry entry of the entity.
+     * @param uuid The UUID to assign to the entity.
+     * @return The created entity.
+     * @throws IllegalStateException if the entity does not keep the assigned UUID.
+     */
+    private IEntity instantiate(EntityRegistryEntry entry, UUID uuid) {
+        return instantiate(entry, pools.get(entry.id()), uuid);
+    }
+
+    /**
+     * Creates an entity instance from a registry entry and its pool, and assigns its registry metadata, without loading it.
+     * @param entry The registry entry of the entity.
+     * @param pool The pool of the registry identifier, or null if it is not pooled.
+     * @param uuid The UUID to assign to the entity.
+     * @return The created entity.
+     * @throws IllegalStateException if the entity does not keep the assigned UUID.
+     */
+    private IEntity instantiate(EntityRegistryEntry entry, EntityPool pool, UUID uuid) {
+        IEntity entity = pool == null ? null : pool.acquire();
+        if (entity == null) {
+            entity = entry.createInstance();
+        } else {
+            entity.setAlive(true);
+        }
+        entity.setRegistryMeta(entry.id(), entry.groups(), uuid);
+        if (!uuid.equals(entity.currentUUID())) {
+            throw new IllegalStateException("Entity " + entry.id() + " did not keep the UUID given to setRegistryMeta");
+        }
+        return entity;
+    }
+
+    /**
+     * Destroys an entity by removing it from the loaded entities.
+     * The entity is found through its UUID, this operation runs in constant time.
+     * If its registry identifier is pooled, the entity is reset and kept for reuse.
+     * While changes are deferred, the entity is destroyed by the next {@link #flushDeferred()}.
      * @param iEntity The entity instance to destroy.
      */
     public void destroyEntity(IEntity iEntity) {
-        loadedEntities.remove(iEntity);
+        CommandBuffer buffer = commandBuffer;
+        if (buffer != null && buffer.kill(iEntity)) return;
+        if (loadedEntities.remove(iEntity)) {
+            onRemoved(iEntity);
+            recycle(iEntity);
+        }
+    }
+
+    /**
+     * Kills an entity and all of its descendants in the hierarchy, in one batch.
+     * Each living entity is marked as dead and drops its items, then the whole subtree is destroyed at once,
+     * or recorded for the next flush while changes are deferred.
+     * @param root The root of the subtree to kill.
+     * @return The number of killed entities, root included.
+     * @throws IllegalStateException if the root entity is already dead.
+     */
+    public int killWithDescendants(IEntity root) {
+        if (!root.isAlive()) throw new IllegalStateException("Entity is already dead");
+        List<IEntity> family = new ArrayList<>();
+        family.add(root);
+        hierarchy.forEachDescendant(root, family::add);
+        for (IEntity entity : family) {
+            if (!entity.isAlive()) continue;
+            entity.setAlive(false);
+            if (entity instanceof DroppableEntity droppable) {
+                droppable.drop();
+            }
+        }
+        CommandBuffer buffer = commandBuffer;
+        if (buffer != null) {
+            boolean recorded = true;
+            for (IEntity entity : family) {
+                recorded &= buffer.kill(entity);
+            }
+            if (recorded) return family.size();
+        }
+        List<IEntity> removed = new ArrayList<>(family.size());
+        loadedEntities.removeAll(family, removed);
+        for (IEntity entity : removed) {
+            onRemoved(entity);
+        }
+        for (IEntity entity : removed) {
+            recycle(entity);
+        }
+        return family.size();
+    }
+
+    /**
+     * Makes a loaded entity a child of another loaded entity, detaching it from its previous parent.
+     * Links are removed automatically when an entity is destroyed: its children then have no parent,
+     * unless it is killed with {@link #killWithDescendants(IEntity)}.
+     * The children declared by a {@link FamilyEntity} are attached when it is loaded, including children loaded later.
+     * @param parent The parent entity.
+     * @param child The child entity.
+     * @throws IllegalArgumentException if an entity is not loaded, or if both entities are the same.
+     * @throws IllegalStateException if the child is an ancestor of the parent.
+     */
+    public void attachChild(IEntity parent, IEntity child) {
+        if (loadedEntities.find(parent.currentUUID()) != parent) throw new IllegalArgumentException("Parent entity is not loaded");
+        if (loadedEntities.find(child.currentUUID()) != child) throw new IllegalArgumentException("Child entity is not loaded");
+        hierarchy.attach(parent, child);
+    }
+
+    /**
+     * Detaches a loaded entity from its parent.
+     * @param child The child entity.
+     * @return true if the entity had a parent, false otherwise.
+     */
+    public boolean detachChild(IEntity child) {
+        return hierarchy.detach(child);
+    }
+
+    /**
+     * Gets the parent of a loaded entity. This lookup runs in constant time.
+     * @param child The child entity.
+     * @return The parent entity, or null if the entity has no parent.
+     */
+    public IEntity getParent(IEntity child) {
+        return hierarchy.parentOf(child);
     }
 
     /**
-     * Checks which entities in the registry belong to any of the specified groups and returns their unique identifiers.
+     * Retrieves the children of a loaded entity, in no particular order.
+     * @param parent The parent entity.
+     * @return A list of the children of the entity.
+     */
+    public List<IEntity> getChildren(IEntity parent) {
+        List<IEntity> children = new ArrayList<>(hierarchy.childCount(parent));
+        hierarchy.forEachChild(parent, children::add);
+        return children;
+    }
+
+    /**
+     * Gets the number of children of a loaded entity.
+     * @param parent The parent entity.
+     * @return The number of children.
+     */
+    public int getChildCount(IEntity parent) {
+        return hierarchy.childCount(parent);
+    }
+
+    /**
+     * Calls an action for every child of a loaded entity, without allocating.
+     * The action runs while the hierarchy is locked: it must not spawn, kill or look up loaded entities, nor attach or detach children.
+     * @param parent The parent entity.
+     * @param action The action to call for each child.
+     */
+    public void forEachChild(IEntity parent, Consumer<? super IEntity> action) {
+        hierarchy.forEachChild(parent, action);
+    }
+
+    /**
+     * Calls an action for every descendant of a loaded entity, each parent before its children, without allocating.
+     * The action runs while the hierarchy is locked: it must not spawn, kill or look up loaded entities, nor attach or detach children.
+     * @param root The root of the subtree, not given to the action.
+     * @param action The action to call for each descendant.
+     */
+    public void forEachDescendant(IEntity root, Consumer<? super IEntity> action) {
+        hierarchy.forEachDescendant(root, action);
+    }
+
+    /**
+     * Sets whether spawns and kills are deferred.
+     * While changes are deferred, {@link #createEntity}, {@link #createEntities} and {@link #destroyEntity}
+     * (and therefore {@link IEntity#kill()} and evolutions) only record the change, and the loaded entities stay unchanged
+     * until {@link #flushDeferred()}: they can be iterated without copying while entities die and evolve.
+     * Spawned entities are not visible to queries before the flush, and killed entities stay visible, marked as not alive.
+     * Disabling the deferral flushes the recorded changes.
+     * @param deferred true to record spawns and kills, false to apply them immediately.
+     */
+    public synchronized void setDeferred(boolean deferred) {
+        CommandBuffer buffer = commandBuffer;
+        if (deferred) {
+            if (buffer == null) {
+                commandBuffer = new CommandBuffer();
+            }
+        } else if (buffer != null) {
+            commandBuffer = null;
+            apply(buffer.drain(true));
+        }
+    }
+
+    /**
+     * Checks if spawns and kills are deferred.
+     * @return true if spawns and kills are recorded until the next flush, false if they are applied immediately.
+     */
+    public boolean isDeferred() {
+        return commandBuffer != null;
+    }
+
+    /**
+     * Gets the number of spawns and kills recorded since the last flush.
+     * @return The number of deferred changes, 0 if changes are not deferred.
+     */
+    public int getDeferredCount() {
+        CommandBuffer buffer = commandBuffer;
+        return buffer == null ? 0 : buffer.pending();
+    }
+
+    /**
+     * Applies the spawns and kills recorded since the last flush in one batch, and keeps deferring the next ones.
+     * Killed entities are removed, then spawned entities are loaded in one step, and entities spawned and killed
+     * in the same batch are never loaded. Must not be called while iterating the loaded entities.
+     * @return The number of applied changes.
+     */
+    public int flushDeferred() {
+        CommandBuffer buffer = commandBuffer;
+        if (buffer == null) return 0;
+        long start = metrics.start();
+        FlushEvent event = new FlushEvent();
+        event.begin();
+        CommandBuffer.Batch batch = buffer.drain(false);
+        apply(batch);
+        metrics.recordFlush(start);
+        if (event.shouldCommit()) {
+            event.spawns = batch.spawns().size();
+            event.kills = batch.kills().size();
+            event.commit();
+        }
+        return batch.spawns().size() + batch.kills().size();
+    }
+
+    /**
+     * Applies a batch of deferred changes.
+     * @param batch The recorded changes.
+     */
+    private void apply(CommandBuffer.Batch batch) {
+        List<IEntity> removed = new ArrayList<>(batch.kills().size());
+        if (!batch.kills().isEmpty()) {
+            loadedEntities.removeAll(batch.kills(), removed);
+        }
+        if (!batch.spawns().isEmpty()) {
+            loadedEntities.addAll(batch.spawns());
+        }
+        for (IEntity entity : removed) {
+            onRemoved(entity);
+        }
+        onLoadedAll(batch.spawns());
+        for (IEntity entity : removed) {
+            recycle(entity);
+        }
+        for (IEntity entity : batch.cancelled()) {
+            recycle(entity);
+        }
+    }
+
+    /**
+     * Sets whether changes of the loaded entities are tracked.
+     * While tracking is enabled, spawns, kills and {@link IEntity#markDirty() dirty marks} are recorded until {@link #drainChanges()},
+     * so that only the changed entities need to be saved, see {@link fr.olympus.prometheus.snapshot.WorldJournal}.
+     * Disabling the tracking drops the recorded changes.
+     * @param tracking true to record changes, false to stop recording them.
+     */
+    public synchronized void setChangeTracking(boolean tracking) {
+        if (tracking) {
+            if (changeTracker == null) {
+                changeTracker = new ChangeTracker();
+            }
+        } else {
+            changeTracker = null;
+        }
+    }
+
+    /**
+     * Checks if changes of the loaded entities are tracked.
+     * @return true if changes are recorded until the next drain, false otherwise.
+     */
+    public boolean isChangeTracking() {
+        return changeTracker != null;
+    }
+
+    /**
+     * Records that the saved state of an entity has changed, does nothing if change tracking is disabled.
+     * Usually called through {@link IEntity#markDirty()}.
+     * @param entity The changed entity.
+     */
+    public void markDirty(IEntity entity) {
+        ChangeTracker tracker = changeTracker;
+        if (tracker != null && entity.currentUUID() != null) {
+            tracker.changed(entity.currentUUID());
+        }
+    }
+
+    /**
+     * Gets the number of changes recorded since the last drain.
+     * An entity changed several times counts once.
+     * @return The number of changed and killed entities, 0 if change tracking is disabled.
+     */
+    public int getChangeCount() {
+        ChangeTracker tracker = changeTracker;
+        return tracker == null ? 0 : tracker.pending();
+    }
+
+    /**
+     * Takes the changes recorded since the last drain, changes recorded afterwards belong to the next drain.
+     * Changed entities are resolved against the loaded entities: entities that are no longer loaded are skipped,
+     * and spawns still deferred are reported by the drain following their flush.
+     * @return The changed and killed entities, empty if change tracking is disabled.
+     */
+    public ChangeSet drainChanges() {
+        ChangeTracker tracker = changeTracker;
+        if (tracker == null) return new ChangeSet(List.of(), List.of());
+        ChangeTracker.Drain drain = tracker.drain();
+        List<IEntity> changed = new ArrayList<>(drain.changed().size());
+        for (UUID uuid : drain.changed()) {
+            IEntity entity = loadedEntities.find(uuid);
+            if (entity != null) {
+                changed.add(entity);
+            }
+        }
+        return new ChangeSet(changed, new ArrayList<>(drain.killed()));
+    }
+
+    /**
+     * Updates the change tracking and the hierarchy after an entity has been loaded, and publishes its spawn.
+     * @param entity The loaded entity.
+     */
+    private void onLoaded(IEntity entity) {
+        ChangeTracker tracker = changeTracker;
+        if (tracker != null) tracker.spawned(entity.currentUUID());
+        metrics.recordSpawns(1);
+        hierarchy.loaded(entity);
+        eventBus.publish(EntityEventType.SPAWN, entity, null);
+    }
+
+    /**
+     * Updates the change tracking and the hierarchy after entities have been loaded, and publishes their spawns.
+     * @param entities The loaded entities.
+     */
+    private void onLoadedAll(List<? extends IEntity> entities) {
+        if (entities.isEmpty()) return;
+        ChangeTracker tracker = changeTracker;
+        if (tracker != null) {
+            List<UUID> uuids = new ArrayList<>(entities.size());
+            for (IEntity entity : entities) {
+                uuids.add(entity.currentUUID());
+            }
+            tracker.spawnedAll(uuids);
+        }
+        metrics.recordSpawns(entities.size());
+        hierarchy.loadedAll(entities);
+        eventBus.publishAll(EntityEventType.SPAWN, entities);
+    }
+
+    /**
+     * Updates the change tracking and the hierarchy after an entity has been removed from the loaded entities, and publishes its removal.
+     * @param entity The removed entity.
+     */
+    private void onRemoved(IEntity entity) {
+        ChangeTracker tracker = changeTracker;
+        if (tracker != null) tracker.killed(entity.currentUUID());
+        metrics.recordRemoval(!entity.isAlive());
+        hierarchy.removed(entity);
+        eventBus.publish(entity.isAlive() ? EntityEventType.DESTROY : EntityEventType.DEATH, entity, null);
+    }
+
+    /**
+     * Gives a destroyed entity to the pool of its registry identifier, if any.
+     * @param entity The destroyed entity.
+     */
+    private void recycle(IEntity entity) {
+        String registryId = entity.getRegistryId();
+        EntityPool pool = registryId == null ? null : pools.get(registryId);
+        if (pool != null) {
+            entity.reset();
+            pool.release(entity);
+        }
+    }
+
+    /**
+     * Checks which entities in the registry belong to all of the specified groups and returns their unique identifiers.
+     * Only the registry ids of the smallest requested group are tested.
      * @param groupsId The unique identifiers of the groups to check against.
-     * @return A list of unique identifiers of entities that belong to any of the specified groups.
+     * @return A list of unique identifiers of entities that belong to all of the specified groups.
      */
     public List<String> isInGroups(String... groupsId){
         List<String> groups = new ArrayList<>();
-        for (EntityRegistryEntry entry : entitiesRegistry.values()) {
-            if (entry.hasGroups(groupsId)) {
-                groups.add(entry.id());
+        if (groupsId == null) return groups;
+        GroupMask query = groupIndex.queryMask(groupsId);
+        if (query == null) return groups;
+        Registry current = registry;
+        if (query.isEmpty()) {
+            groups.addAll(current.entities().keySet());
+            return groups;
+        }
+        Set<String> smallest = null;
+        for (int groupId : query.ids()) {
+            Set<String> registryIds = current.byGroup().get(groupId);
+            if (registryIds == null) return groups;
+            if (smallest == null || registryIds.size() < smallest.size()) {
+                smallest = registryIds;
+            }
+        }
+        for (String registryId : smallest) {
+            GroupMask mask = current.masks().get(registryId);
+            if (mask != null && mask.containsAll(query)) {
+                groups.add(registryId);
             }
         }
         return groups;
@@ -112,69 +869,201 @@ public class PrometheusData {
 
     /**
      * Retrieves the list of currently loaded entities.
-     * @return A list of IEntity instances representing the currently loaded entities.
+     * With the single-threaded storage, the returned list is a read-only view that reflects later spawns and kills.
+     * With the concurrent storage, it is a read-only snapshot. In both cases, its order is not the spawn order.
+     * @return A read-only list of IEntity instances representing the currently loaded entities.
      */
-
     public List<IEntity> getLoadedEntities() {
-        return loadedEntities;
+        return loadedEntities.view();
+    }
+
+    /**
+     * Gets the number of currently loaded entities.
+     * @return The number of currently loaded entities.
+     */
+    public int getLoadedEntitiesCount() {
+        return loadedEntities.size();
     }
 
     /**
-     * Retrieves a list of currently loaded entities that belong to any of the specified groups.
+     * Retrieves a list of currently loaded entities that belong to all of the specified groups.
+     * The query intersects group bitmasks over the entities of the smallest requested group, it does not scan the world.
      * @param groupsId The unique identifiers of the groups to check against.
-     * @return A list of IEntity instances representing the currently loaded entities that belong to any of the specified groups.
+     * @return A list of IEntity instances representing the currently loaded entities that belong to all of the specified groups.
      */
     public List<IEntity> getLoadedEntitiesInGroups(String... groupsId) {
         List<IEntity> entities = new ArrayList<>();
-        for (IEntity entity : loadedEntities) {
-            if (entity.hasGroups(groupsId)) {
-                entities.add(entity);
-            }
+        if (groupsId == null) return entities;
+        long start = metrics.start();
+        GroupMask query = groupIndex.queryMask(groupsId);
+        if (query != null) {
+            loadedEntities.collectInGroups(query, entities);
         }
+        metrics.recordQuery(start);
         return entities;
     }
 
+    /**
+     * Compiles a reusable query over the specified groups.
+     * Running a compiled query does not allocate, prefer it for queries repeated every tick.
+     * @param groupsId The unique identifiers of the groups the entities must belong to.
+     * @return The compiled query.
+     * @throws IllegalArgumentException if groupsId is null.
+     */
+    public GroupQuery compileGroupQuery(String... groupsId) {
+        if (groupsId == null) throw new IllegalArgumentException("groupsId cannot be null");
+        String[] groups = groupsId.clone();
+        return new GroupQuery(groups, groupIndex.maskOf(groups));
+    }
+
+    /**
+     * Adds to a caller-supplied list the currently loaded entities matching a compiled group query.
+     * The list is not cleared, reusing the same list every tick avoids any allocation once it has grown.
+     * @param out The list receiving the matching entities.
+     * @param query The compiled group query, see {@link #compileGroupQuery(String...)}.
+     */
+    public void collectLoadedEntitiesInGroups(List<? super IEntity> out, GroupQuery query) {
+        long start = metrics.start();
+        loadedEntities.collectInGroups(query.mask(), out);
+        metrics.recordQuery(start);
+    }
+
+    /**
+     * Calls an action for every currently loaded entity matching a compiled group query, without allocating.
+     * The action must not spawn or kill entities.
+     * @param query The compiled group query, see {@link #compileGroupQuery(String...)}.
+     * @param action The action to call for each matching entity.
+     */
+    public void forEachInGroups(GroupQuery query, Consumer<? super IEntity> action) {
+        loadedEntities.forEachInGroups(query.mask(), action);
+    }
+
+    /**
+     * Calls an action for every currently loaded entity that belongs to all of the specified groups.
+     * The action must not spawn or kill entities.
+     * The masks of recently queried group combinations are cached, so a repeated query does not allocate,
+     * apart from the varargs array built by the caller. {@link #forEachInGroups(GroupQuery, Consumer)} also skips the cache lookup.
+     * @param action The action to call for each matching entity.
+     * @param groupsId The unique identifiers of the groups to check against.
+     */
+    public void forEachInGroups(Consumer<? super IEntity> action, String... groupsId) {
+        if (groupsId == null) return;
+        GroupMask query = groupIndex.queryMask(groupsId);
+        if (query != null) {
+            loadedEntities.forEachInGroups(query, action);
+        }
+    }
+
     /**
      * Retrieves a list of currently loaded entities that have the specified registry identifier.
+     * Entities are bucketed by registry identifier, this query runs in time proportional to the result size.
      * @param registryId The unique identifier of the registry to check against.
      * @return A list of IEntity instances representing the currently loaded entities that have the specified registry identifier.
      */
     public List<IEntity> getLoadedEntitiesWithId(String registryId) {
-        List<IEntity> entities = new ArrayList<>();
-        for (IEntity entity : loadedEntities) {
-            if (entity.getRegistryId().equals(registryId)) {
-                entities.add(entity);
-            }
-        }
+        long start = metrics.start();
+        List<IEntity> entities = new ArrayList<>(loadedEntities.countWithId(registryId));
+        loadedEntities.collectWithId(registryId, entities);
+        metrics.recordQuery(start);
         return entities;
     }
 
     /**
      * Retrieves a list of currently loaded entities that have any of the specified registry identifiers.
+     * The buckets of the requested registry identifiers are concatenated, the world is not scanned.
      * @param registryIds The unique identifiers of the registries to check against.
      * @return A list of IEntity instances representing the currently loaded entities that have any of the specified registry identifiers.
      */
     public List<IEntity> getLoadedEntitiesWithIds(String... registryIds) {
-        List<IEntity> entities = new ArrayList<>();
+        long start = metrics.start();
+        int count = 0;
+        for (String registryId : registryIds) {
+            count += loadedEntities.countWithId(registryId);
+        }
+        List<IEntity> entities = new ArrayList<>(count);
         for (String registryId : registryIds) {
-            entities.addAll(getLoadedEntitiesWithId(registryId));
+            loadedEntities.collectWithId(registryId, entities);
         }
+        metrics.recordQuery(start);
         return entities;
     }
 
+    /**
+     * Adds to a caller-supplied list the currently loaded entities that have the specified registry identifier.
+     * The list is not cleared, reusing the same list every tick avoids any allocation once it has grown.
+     * @param out The list receiving the matching entities.
+     * @param registryId The unique identifier of the registry to check against.
+     */
+    public void collectLoadedEntitiesWithId(List<? super IEntity> out, String registryId) {
+        long start = metrics.start();
+        loadedEntities.collectWithId(registryId, out);
+        metrics.recordQuery(start);
+    }
+
+    /**
+     * Calls an action for every currently loaded entity that has the specified registry identifier, without allocating.
+     * The action must not spawn or kill entities.
+     * @param registryId The unique identifier of the registry to check against.
+     * @param action The action to call for each matching entity.
+     */
+    public void forEachWithId(String registryId, Consumer<? super IEntity> action) {
+        loadedEntities.forEachWithId(registryId, action);
+    }
+
+    /**
+     * Calls an action for every currently loaded entity that has any of the specified registry identifiers, without allocating.
+     * The action must not spawn or kill entities.
+     * @param action The action to call for each matching entity.
+     * @param registryIds The unique identifiers of the registries to check against.
+     */
+    public void forEachWithIds(Consumer<? super IEntity> action, String... registryIds) {
+        for (String registryId : registryIds) {
+            loadedEntities.forEachWithId(registryId, action);
+        }
+    }
+
+    /**
+     * Gets the number of currently loaded entities of every registered registry identifier.
+     * @return The number of loaded entities by registry identifier, registry identifiers without loaded entity included.
+     */
+    public Map<String, Integer> getLoadedEntitiesCountByRegistryId() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String registryId : registry.entities().keySet()) {
+            counts.put(registryId, loadedEntities.countWithId(registryId));
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of currently loaded entities that have the specified registry identifier.
+     * @param registryId The unique identifier of the registry to check against.
+     * @return The number of currently loaded entities with this registry identifier.
+     */
+    public int getLoadedEntitiesCountWithId(String registryId) {
+        return loadedEntities.countWithId(registryId);
+    }
+
     /**
      * Retrieves a currently loaded entity that has the specified unique identifier (UUID).
+     * This lookup runs in constant time.
      * @param uuid The unique identifier (UUID) of the entity to retrieve.
      * @return An instance of IEntity representing the currently loaded entity with the specified UUID, or null if no such entity is found.
      */
     public IEntity getLoadedEntityWithUUID(UUID uuid) {
-        for (IEntity entity : loadedEntities) {
-            if (entity.currentUUID().equals(uuid)) {
-                return entity;
-            }
-        }
-        return null;
+        if (uuid == null) return null;
+        return loadedEntities.find(uuid);
     }
 
+    /**
+     * Immutable state of the registries, published as a whole so that readers never see a partial registration.
+     * @param entities Registry of entities by their unique identifiers.
+     * @param evolutions Registry of evolutions by their unique identifiers.
+     * @param masks Group masks of the registered entities, by registry id.
+     * @param byGroup Registry ids of the registered entities, by interned group id.
+     */
+    private record Registry(Map<String, EntityRegistryEntry> entities, Map<String, EvolutionRegistryEntry> evolutions,
+                            Map<String, GroupMask> masks, Map<Integer, Set<String>> byGroup) {
 
+        private static final Registry EMPTY = new Registry(Map.of(), Map.of(), Map.of(), Map.of());
+    }
 }
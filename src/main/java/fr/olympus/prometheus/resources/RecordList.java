@@ -0,0 +1,151 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Dense list of entity records used as a secondary index of the {@link EntityStore}.
+ * Each record remembers its position in the list, so removal is a constant time swap-remove.
+ * This class is not thread-safe.
+ */
+abstract class RecordList {
+
+    /**
+     * Dense storage of the records.
+     */
+    private EntityRecord[] records = new EntityRecord[8];
+
+    /**
+     * Number of records in the list.
+     */
+    private int size;
+
+    /**
+     * Gets the position of a record in this list.
+     * @param record The record.
+     * @return The position stored in the record for this list.
+     */
+    abstract int position(EntityRecord record);
+
+    /**
+     * Stores the position of a record in this list.
+     * @param record The record.
+     * @param position The new position of the record.
+     */
+    abstract void position(EntityRecord record, int position);
+
+    /**
+     * Appends a record to the list.
+     * @param record The record to append.
+     */
+    final void add(EntityRecord record) {
+        if (size == records.length) {
+            records = Arrays.copyOf(records, size + (size >> 1) + 1);
+        }
+        position(record, size);
+        records[size++] = record;
+    }
+
+    /**
+     * Removes a record from the list, moving the last record into its position.
+     * @param record The record to remove.
+     */
+    final void remove(EntityRecord record) {
+        int position = position(record);
+        int last = --size;
+        if (position != last) {
+            EntityRecord moved = records[last];
+            position(moved, position);
+            records[position] = moved;
+        }
+        records[last] = null;
+    }
+
+    /**
+     * Adds the entities of every record of the list to another list.
+     * @param out The list receiving the entities.
+     */
+    final void collect(List<? super IEntity> out) {
+        for (int i = 0; i < size; i++) {
+            out.add(records[i].entity);
+        }
+    }
+
+    /**
+     * Calls an action for the entity of every record of the list.
+     * @param action The action to call.
+     * @param store The store owning this list, checked for concurrent modifications after each call.
+     */
+    final void forEach(Consumer<? super IEntity> action, EntityStore store) {
+        int expectedModCount = store.modCount();
+        for (int i = 0; i < size; i++) {
+            action.accept(records[i].entity);
+            store.checkModCount(expectedModCount);
+        }
+    }
+
+    /**
+     * Gets the record at the given position.
+     * @param index The position, between 0 and size() - 1.
+     * @return The record.
+     */
+    final EntityRecord get(int index) {
+        return records[index];
+    }
+
+    /**
+     * Gets the number of records in the list.
+     * @return The number of records.
+     */
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Bucket of the records of the entities sharing a registry id.
+     */
+    static final class RegistryBucket extends RecordList {
+
+        @Override
+        int position(EntityRecord record) {
+            return record.bucketSlot;
+        }
+
+        @Override
+        void position(EntityRecord record, int position) {
+            record.bucketSlot = position;
+        }
+    }
+
+    /**
+     * Posting list of the records of the entities belonging to a group.
+     */
+    static final class GroupPosting extends RecordList {
+
+        /**
+         * Interned id of the group.
+         */
+        private final int groupId;
+
+        /**
+         * Constructs an empty posting list for a group.
+         * @param groupId The interned id of the group.
+         */
+        GroupPosting(int groupId) {
+            this.groupId = groupId;
+        }
+
+        @Override
+        int position(EntityRecord record) {
+            return record.groupSlots[record.groups.indexOf(groupId)];
+        }
+
+        @Override
+        void position(EntityRecord record, int position) {
+            record.groupSlots[record.groups.indexOf(groupId)] = position;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage of the currently loaded entities used by {@link PrometheusData}.
+ * Implementations index the entities by UUID, by group and by registry id.
+ */
+interface WorldStore {
+
+    /**
+     * Adds an entity to the store.
+     * @param entity The entity to add.
+     * @throws IllegalArgumentException if the entity has no UUID.
+     * @throws IllegalStateException if an entity with the same UUID is already loaded.
+     */
+    void add(IEntity entity);
+
+    /**
+     * Adds several entities to the store in one step.
+     * Either every entity is added, or none is.
+     * @param entities The entities to add.
+     * @throws IllegalArgumentException if an entity has no UUID.
+     * @throws IllegalStateException if an entity with the same UUID is already loaded or present twice.
+     */
+    void addAll(List<? extends IEntity> entities);
+
+    /**
+     * Removes an entity from the store.
+     * @param entity The entity to remove.
+     * @return true if the entity was loaded and has been removed, false otherwise.
+     */
+    boolean remove(IEntity entity);
+
+    /**
+     * Removes several entities from the store in one step.
+     * @param entities The entities to remove.
+     * @param removed The list receiving the entities that were loaded and have been removed.
+     */
+    void removeAll(List<? extends IEntity> entities, List<? super IEntity> removed);
+
+    /**
+     * Finds a loaded entity by its UUID.
+     * @param uuid The UUID of the entity.
+     * @return The loaded entity, or null if no entity is loaded with this UUID.
+     */
+    IEntity find(UUID uuid);
+
+    /**
+     * Adds to a list every loaded entity belonging to all groups of a mask.
+     * @param query The groups the entities must belong to.
+     * @param out The list receiving the matching entities.
+     */
+    void collectInGroups(GroupMask query, List<? super IEntity> out);
+
+    /**
+     * Calls an action for every loaded entity belonging to all groups of a mask, without allocating.
+     * The action must not spawn or kill entities.
+     * @param query The groups the entities must belong to.
+     * @param action The action to call for each matching entity.
+     */
+    void forEachInGroups(GroupMask query, Consumer<? super IEntity> action);
+
+    /**
+     * Calls an action for every loaded entity with the given registry id, without allocating.
+     * The action must not spawn or kill entities.
+     * @param registryId The registry id.
+     * @param action The action to call for each matching entity.
+     */
+    void forEachWithId(String registryId, Consumer<? super IEntity> action);
+
+    /**
+     * Adds to a list every loaded entity with the given registry id.
+     * @param registryId The registry id.
+     * @param out The list receiving the matching entities.
+     */
+    void collectWithId(String registryId, List<? super IEntity> out);
+
+    /**
+     * Gets the number of loaded entities with the given registry id.
+     * @param registryId The registry id.
+     * @return The number of loaded entities with this registry id.
+     */
+    int countWithId(String registryId);
+
+    /**
+     * Gets the number of loaded entities.
+     * @return The number of loaded entities.
+     */
+    int size();
+
+    /**
+     * Gets a read-only list of the loaded entities.
+     * @return A read-only list of the loaded entities.
+     */
+    List<IEntity> view();
+
+    /**
+     * Grows the storage so it can hold at least the given number of entities.
+     * @param capacity The minimal capacity.
+     */
+    void ensureCapacity(int capacity);
+}
@@ -0,0 +1,26 @@
+package fr.olympus.prometheus.snapshot;
+
+import fr.olympus.prometheus.entity.IEntity;
+
+/**
+ * Hook saving and restoring custom entity data in a {@link WorldSnapshot}.
+ * The data written for an entity is stored in its record, after the data handled by the snapshot itself.
+ * A snapshot loaded without extension skips it.
+ */
+public interface SnapshotExtension {
+
+    /**
+     * Writes the custom data of an entity.
+     * @param entity The saved entity.
+     * @param out The output of the entity record.
+     */
+    void write(IEntity entity, SnapshotOutput out);
+
+    /**
+     * Reads the custom data of an entity, in the order it has been written.
+     * Called after the registry metadata, the alive flag and the statistics of the entity have been restored.
+     * @param entity The restored entity, not loaded yet.
+     * @param in The input of the entity record.
+     */
+    void read(IEntity entity, SnapshotInput in);
+}
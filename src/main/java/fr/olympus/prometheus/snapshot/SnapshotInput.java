@@ -0,0 +1,99 @@
+package fr.olympus.prometheus.snapshot;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Input of an entity record of a {@link WorldSnapshot} or a {@link WorldJournal}, reading a region of the file.
+ * Reading past the end of the current record throws {@link BufferUnderflowException}.
+ */
+public final class SnapshotInput {
+
+    /**
+     * Buffer limited to the current record.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a SnapshotInput.
+     */
+    SnapshotInput() {
+    }
+
+    /**
+     * Reads a byte.
+     * @return The value.
+     */
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    /**
+     * Reads a boolean written as one byte.
+     * @return The value.
+     */
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    /**
+     * Reads an int.
+     * @return The value.
+     */
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long.
+     * @return The value.
+     */
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a double.
+     * @return The value.
+     */
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a string written as its UTF-8 length and bytes.
+     * @return The value.
+     */
+    public String readString() {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads raw bytes.
+     * @param bytes The array receiving the bytes, filled entirely.
+     */
+    public void readBytes(byte[] bytes) {
+        buffer.get(bytes);
+    }
+
+    /**
+     * Gets the number of bytes left in the current record.
+     * @return The number of remaining bytes.
+     */
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Sets the buffer of the current record.
+     * @param buffer The buffer, positioned at the start of the record and limited to its end.
+     */
+    void buffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+}
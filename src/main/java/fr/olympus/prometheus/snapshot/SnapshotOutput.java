@@ -0,0 +1,105 @@
+package fr.olympus.prometheus.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output of an entity record of a {@link WorldSnapshot} or a {@link WorldJournal}.
+ * Values are written in big-endian order into a buffer that grows as needed, a record is never split.
+ */
+public final class SnapshotOutput {
+
+    /**
+     * Buffer receiving the records.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a SnapshotOutput.
+     * @param capacity The initial capacity of the buffer.
+     */
+    SnapshotOutput(int capacity) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Writes a byte.
+     * @param value The value.
+     */
+    public void writeByte(int value) {
+        ensure(1).put((byte) value);
+    }
+
+    /**
+     * Writes a boolean as one byte.
+     * @param value The value.
+     */
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes an int.
+     * @param value The value.
+     */
+    public void writeInt(int value) {
+        ensure(Integer.BYTES).putInt(value);
+    }
+
+    /**
+     * Writes a long.
+     * @param value The value.
+     */
+    public void writeLong(long value) {
+        ensure(Long.BYTES).putLong(value);
+    }
+
+    /**
+     * Writes a double.
+     * @param value The value.
+     */
+    public void writeDouble(double value) {
+        ensure(Double.BYTES).putDouble(value);
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes.
+     * @param value The value, not null.
+     */
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Writes raw bytes, without their length.
+     * @param bytes The bytes.
+     */
+    public void writeBytes(byte[] bytes) {
+        ensure(bytes.length).put(bytes);
+    }
+
+    /**
+     * Gets the buffer, flipped and cleared by the snapshot between records.
+     * @return The buffer.
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Grows the buffer so it can hold more bytes.
+     * @param bytes The number of bytes to write.
+     * @return The buffer.
+     */
+    private ByteBuffer ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
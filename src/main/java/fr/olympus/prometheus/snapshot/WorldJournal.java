@@ -0,0 +1,478 @@
+package fr.olympus.prometheus.snapshot;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.resources.ChangeSet;
+import fr.olympus.prometheus.resources.PrometheusData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the changes of the loaded entities, replayed on top of a base {@link WorldSnapshot}.
+ * Each {@link #commit()} appends one segment holding the entities changed since the previous commit and the UUIDs of the killed ones,
+ * so that the cost of an autosave depends on what changed, not on the size of the world.
+ * Changes are collected through the change tracking of {@link PrometheusData}, enabled while the journal is open.
+ * <p>
+ * Once the journal grows larger than its compaction threshold, the next commit compacts it: the base snapshot is rewritten
+ * and the journal is emptied. A segment interrupted by a crash is detected by its checksum and ignored.
+ * Entity records use the format of {@link WorldSnapshot}, with their own name dictionary in each segment.
+ */
+public final class WorldJournal implements Closeable {
+
+    /**
+     * First bytes of a journal file: "PRJL".
+     */
+    private static final int MAGIC = 0x50524A4C;
+
+    /**
+     * Version of the journal format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the file header: magic and version.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    /**
+     * Size of a segment header: payload length and checksum.
+     */
+    private static final int SEGMENT_HEADER_SIZE = Integer.BYTES * 2;
+
+    /**
+     * Size of the write buffer, records are flushed when half of it is used.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Smallest journal size triggering a compaction when no threshold is set.
+     */
+    private static final long MIN_COMPACTION_SIZE = 1L << 20;
+
+    private final PrometheusData data;
+    private final Path snapshot;
+    private final FileChannel channel;
+    private final SnapshotExtension extension;
+    private final SnapshotOutput out = new SnapshotOutput(BUFFER_SIZE);
+
+    /**
+     * Size of the valid part of the journal, where the next segment is written.
+     */
+    private long size;
+
+    /**
+     * Size of the base snapshot file.
+     */
+    private long snapshotSize;
+
+    /**
+     * Journal size above which a commit compacts the journal, 0 to follow the size of the base snapshot.
+     */
+    private long compactionThreshold;
+
+    /**
+     * Whether a commit has failed, in which case the next commit compacts the journal.
+     */
+    private boolean broken;
+
+    private boolean closed;
+
+    private WorldJournal(PrometheusData data, Path snapshot, FileChannel channel, SnapshotExtension extension, long size) throws IOException {
+        this.data = data;
+        this.snapshot = snapshot;
+        this.channel = channel;
+        this.extension = extension;
+        this.size = size;
+        this.snapshotSize = Files.size(snapshot);
+    }
+
+    /**
+     * Opens a journal without custom data, see {@link #open(Path, Path, SnapshotExtension)}.
+     * @param snapshot The base snapshot file.
+     * @param journal The journal file.
+     * @return The open journal.
+     * @throws IOException if a file cannot be read or written, or is not valid.
+     */
+    public static WorldJournal open(Path snapshot, Path journal) throws IOException {
+        return open(snapshot, journal, null);
+    }
+
+    /**
+     * Opens a journal and restores the world it describes, then enables the change tracking.
+     * If the base snapshot exists, it is loaded and the journal is replayed on top of it, a segment interrupted by a crash is discarded.
+     * Otherwise, the loaded entities are saved as the base snapshot and the journal starts empty.
+     * @param snapshot The base snapshot file.
+     * @param journal The journal file, created if it does not exist.
+     * @param extension The hook reading and writing custom entity data, or null.
+     * @return The open journal.
+     * @throws IOException if a file cannot be read or written, or is not valid, or if the journal has segments but the snapshot does not exist.
+     * @throws IllegalStateException if changes are deferred, or if the change tracking is already enabled.
+     */
+    public static WorldJournal open(Path snapshot, Path journal, SnapshotExtension extension) throws IOException {
+        if (snapshot == null || journal == null) throw new IllegalArgumentException("Files cannot be null");
+        PrometheusData data = Prometheus.getData();
+        if (data.isDeferred()) throw new IllegalStateException("Cannot open a journal while changes are deferred");
+        if (data.isChangeTracking()) throw new IllegalStateException("Change tracking is already enabled");
+
+        boolean restore = Files.exists(snapshot);
+        if (!restore && Files.exists(journal) && Files.size(journal) > HEADER_SIZE) {
+            throw new IOException("Journal without base snapshot: " + journal);
+        }
+        if (restore) {
+            WorldSnapshot.load(snapshot, extension);
+        } else {
+            WorldSnapshot.save(snapshot, extension);
+        }
+
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size() < HEADER_SIZE ? reset(channel) : replay(channel, data, extension, journal).end();
+            if (size < channel.size()) {
+                channel.truncate(size);
+            }
+            channel.position(size);
+            WorldJournal opened = new WorldJournal(data, snapshot, channel, extension, size);
+            data.setChangeTracking(true);
+            return opened;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a base snapshot without custom data and replays a journal on top of it, see {@link #replay(Path, Path, SnapshotExtension)}.
+     * @param snapshot The base snapshot file.
+     * @param journal The journal file.
+     * @return The number of replayed segments.
+     * @throws IOException if a file cannot be read or is not valid.
+     */
+    public static int replay(Path snapshot, Path journal) throws IOException {
+        return replay(snapshot, journal, null);
+    }
+
+    /**
+     * Loads a base snapshot and replays a journal on top of it, without opening the journal for writing.
+     * Entities changed by the journal replace the loaded ones with the same UUID, killed entities are destroyed.
+     * A segment interrupted by a crash ends the replay.
+     * @param snapshot The base snapshot file.
+     * @param journal The journal file, may not exist.
+     * @param extension The hook reading custom entity data, or null to skip it.
+     * @return The number of replayed segments.
+     * @throws IOException if a file cannot be read or is not valid.
+     * @throws IllegalStateException if changes are deferred.
+     */
+    public static int replay(Path snapshot, Path journal, SnapshotExtension extension) throws IOException {
+        if (snapshot == null || journal == null) throw new IllegalArgumentException("Files cannot be null");
+        PrometheusData data = Prometheus.getData();
+        if (data.isDeferred()) throw new IllegalStateException("Cannot replay a journal while changes are deferred");
+        WorldSnapshot.load(snapshot, extension);
+        if (!Files.exists(journal)) return 0;
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return 0;
+            return replay(channel, data, extension, journal).segments();
+        }
+    }
+
+    /**
+     * Sets the journal size above which a commit compacts the journal.
+     * By default, the journal is compacted once it is larger than the base snapshot, and at least 1 MiB.
+     * @param threshold The size in bytes, 0 to restore the default.
+     * @throws IllegalArgumentException if threshold is negative.
+     */
+    public synchronized void setCompactionThreshold(long threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("Compaction threshold cannot be negative: " + threshold);
+        this.compactionThreshold = threshold;
+    }
+
+    /**
+     * Gets the size of the journal file.
+     * @return The size in bytes, including the file header.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Appends the changes recorded since the previous commit, and compacts the journal if it has grown past its threshold.
+     * Entities must not be spawned or killed while committing, and spawns still deferred are committed after their flush.
+     * @return The number of saved changes, killed entities included, or the number of saved entities if the journal has been compacted.
+     * @throws IOException if the journal cannot be written, the next commit then rewrites the base snapshot.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public synchronized int commit() throws IOException {
+        ensureOpen();
+        if (broken) return compact();
+        int count = append();
+        long threshold = compactionThreshold > 0 ? compactionThreshold : Math.max(snapshotSize, MIN_COMPACTION_SIZE);
+        if (size - HEADER_SIZE > threshold) {
+            return compact();
+        }
+        return count;
+    }
+
+    /**
+     * Rewrites the base snapshot from the loaded entities and empties the journal.
+     * The pending changes are committed first, so that a crash before the journal is emptied replays changes already in the new snapshot,
+     * which leaves the world unchanged. After a failed commit, the journal misses changes and is emptied before the snapshot is written instead.
+     * @return The number of saved entities.
+     * @throws IOException if a file cannot be written.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public synchronized int compact() throws IOException {
+        ensureOpen();
+        try {
+            if (broken) {
+                data.drainChanges();
+                truncate();
+            } else {
+                append();
+            }
+            int count = WorldSnapshot.save(snapshot, extension);
+            snapshotSize = Files.size(snapshot);
+            truncate();
+            broken = false;
+            return count;
+        } catch (IOException | RuntimeException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the journal and disables the change tracking, without committing the pending changes.
+     * @throws IOException if the journal cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        data.setChangeTracking(false);
+        channel.close();
+    }
+
+    /**
+     * Empties the journal, keeping its header.
+     * @throws IOException if the journal cannot be written.
+     */
+    private void truncate() throws IOException {
+        channel.truncate(HEADER_SIZE);
+        channel.position(HEADER_SIZE);
+        channel.force(false);
+        size = HEADER_SIZE;
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Journal is closed");
+    }
+
+    /**
+     * Appends a segment with the changes recorded since the previous commit.
+     * @return The number of saved changes.
+     * @throws IOException if the journal cannot be written.
+     */
+    private int append() throws IOException {
+        ChangeSet changes = data.drainChanges();
+        if (changes.isEmpty()) return 0;
+        long start = size;
+        try {
+            channel.position(start);
+            ByteBuffer buffer = out.buffer();
+            buffer.clear();
+            out.writeInt(0);
+            out.writeInt(0);
+            CRC32 crc = new CRC32();
+            long length = 0;
+            int from = SEGMENT_HEADER_SIZE;
+
+            out.writeInt(changes.changed().size());
+            Map<String, Integer> names = new HashMap<>();
+            for (IEntity entity : changes.changed()) {
+                WorldSnapshot.writeEntity(out, entity, names, extension);
+                if (out.buffer().position() >= BUFFER_SIZE / 2) {
+                    length += flush(crc, from);
+                    from = 0;
+                }
+            }
+            out.writeInt(changes.killed().size());
+            for (UUID uuid : changes.killed()) {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                if (out.buffer().position() >= BUFFER_SIZE / 2) {
+                    length += flush(crc, from);
+                    from = 0;
+                }
+            }
+            length += flush(crc, from);
+            if (length > Integer.MAX_VALUE) throw new IOException("Journal segment too large: " + length + " bytes");
+
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt((int) length).putInt((int) crc.getValue()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, start + header.position());
+            }
+            channel.force(false);
+            size = start + SEGMENT_HEADER_SIZE + length;
+        } catch (IOException | RuntimeException e) {
+            broken = true;
+            throw e;
+        }
+        return changes.changed().size() + changes.killed().size();
+    }
+
+    /**
+     * Updates the checksum with the written payload, then writes the content of the buffer to the journal and clears it.
+     * @param crc The checksum of the segment payload.
+     * @param from The position of the payload in the buffer.
+     * @return The number of payload bytes written.
+     * @throws IOException if the journal cannot be written.
+     */
+    private long flush(CRC32 crc, int from) throws IOException {
+        ByteBuffer buffer = out.buffer();
+        int payload = buffer.position() - from;
+        crc.update(buffer.duplicate().flip().position(from));
+        WorldSnapshot.flush(channel, buffer);
+        return payload;
+    }
+
+    /**
+     * Empties a journal file and writes its header.
+     * @param channel The journal file.
+     * @return The size of the journal.
+     * @throws IOException if the journal cannot be written.
+     */
+    private static long reset(FileChannel channel) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(false);
+        return HEADER_SIZE;
+    }
+
+    /**
+     * Reads the valid segments of a journal and applies them to the loaded entities.
+     * The segments are merged first, so an entity changed by several segments is loaded once, in its last saved state.
+     * @param channel The journal file, at least as long as its header.
+     * @param data The data of the running Prometheus instance.
+     * @param extension The hook reading custom entity data, or null.
+     * @param file The journal file, for error messages.
+     * @return The end of the valid segments and their number.
+     * @throws IOException if the journal cannot be read or is not valid.
+     */
+    private static Replay replay(FileChannel channel, PrometheusData data, SnapshotExtension extension, Path file) throws IOException {
+        long end = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(Math.max(HEADER_SIZE, SEGMENT_HEADER_SIZE));
+        read(channel, header.limit(HEADER_SIZE), 0);
+        if (header.getInt(0) != MAGIC) throw new IOException("Not a Prometheus journal: " + file);
+        int version = header.getInt(Integer.BYTES);
+        if (version != VERSION) throw new IOException("Unsupported journal version " + version + ": " + file);
+
+        Map<UUID, IEntity> state = new LinkedHashMap<>();
+        SnapshotInput in = new SnapshotInput();
+        ByteBuffer payload = ByteBuffer.allocate(0);
+        long position = HEADER_SIZE;
+        int segments = 0;
+        while (end - position >= SEGMENT_HEADER_SIZE) {
+            read(channel, header.clear().limit(SEGMENT_HEADER_SIZE), position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (length < Integer.BYTES * 2 || length > end - position - SEGMENT_HEADER_SIZE) break;
+            if (payload.capacity() < length) payload = ByteBuffer.allocate(length);
+            read(channel, payload.clear().limit(length), position + SEGMENT_HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != checksum) break;
+
+            payload.flip();
+            try {
+                readSegment(payload, in, data, extension, state);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Corrupted journal: " + file, e);
+            }
+            position += SEGMENT_HEADER_SIZE + length;
+            segments++;
+        }
+
+        List<IEntity> restored = new ArrayList<>(state.size());
+        for (Map.Entry<UUID, IEntity> entry : state.entrySet()) {
+            IEntity loaded = data.getLoadedEntityWithUUID(entry.getKey());
+            if (loaded != null) {
+                data.destroyEntity(loaded);
+            }
+            if (entry.getValue() != null) {
+                restored.add(entry.getValue());
+            }
+        }
+        data.loadEntities(restored);
+        return new Replay(position, segments);
+    }
+
+    /**
+     * Reads a segment into the merged state of the journal.
+     * @param payload The payload of the segment.
+     * @param in The input.
+     * @param data The data of the running Prometheus instance.
+     * @param extension The hook reading custom entity data, or null.
+     * @param state The rebuilt entities by UUID, null for killed entities.
+     * @throws IOException if a record is invalid.
+     */
+    private static void readSegment(ByteBuffer payload, SnapshotInput in, PrometheusData data, SnapshotExtension extension,
+                                    Map<UUID, IEntity> state) throws IOException {
+        int changed = payload.getInt();
+        if (changed < 0) throw new IOException("Corrupted journal: invalid entity count " + changed);
+        WorldSnapshot.Names names = new WorldSnapshot.Names(data);
+        int limit = payload.limit();
+        for (int i = 0; i < changed; i++) {
+            int length = payload.getInt();
+            if (length < 0 || length > payload.remaining()) throw new IOException("Corrupted journal: invalid record length " + length);
+            int end = payload.position() + length;
+            payload.limit(end);
+            in.buffer(payload);
+            IEntity entity = WorldSnapshot.readEntity(in, names, extension);
+            state.put(entity.currentUUID(), entity);
+            payload.limit(limit);
+            payload.position(end);
+        }
+        int killed = payload.getInt();
+        if (killed < 0) throw new IOException("Corrupted journal: invalid kill count " + killed);
+        for (int i = 0; i < killed; i++) {
+            state.put(new UUID(payload.getLong(), payload.getLong()), null);
+        }
+    }
+
+    /**
+     * Reads bytes of a file until the buffer is full.
+     * @param channel The file.
+     * @param buffer The buffer, filled up to its limit.
+     * @param position The position of the first byte in the file.
+     * @throws IOException if the file ends before the buffer is full.
+     */
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of journal");
+        }
+    }
+
+    /**
+     * Result of a replay.
+     * @param end The end of the valid segments in the journal.
+     * @param segments The number of replayed segments.
+     */
+    private record Replay(long end, int segments) {
+    }
+}
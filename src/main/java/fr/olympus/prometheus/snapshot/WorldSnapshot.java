@@ -0,0 +1,606 @@
+package fr.olympus.prometheus.snapshot;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.entity.PrimitiveStatableEntity;
+import fr.olympus.prometheus.entity.StatBlock;
+import fr.olympus.prometheus.entity.StatRegistry;
+import fr.olympus.prometheus.entity.StatableEntity;
+import fr.olympus.prometheus.resources.PrometheusData;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Binary snapshot of the loaded entities.
+ * A snapshot stores, for each loaded entity, its registry id, UUID, alive flag, groups, statistics
+ * (from {@link PrimitiveStatableEntity} or {@link StatableEntity}) and the custom data of an optional {@link SnapshotExtension}.
+ * Entities are restored through the registry, so their classes must be registered before loading.
+ * <p>
+ * Records are written through a {@link FileChannel} and read from memory-mapped regions of the file.
+ * Registry ids, group names and statistic names are written once and then referenced by index,
+ * and each of them is resolved once when loading.
+ */
+public final class WorldSnapshot {
+
+    /**
+     * First bytes of a snapshot file: "PRMS".
+     */
+    private static final int MAGIC = 0x50524D53;
+
+    /**
+     * Version of the snapshot format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header: magic, version and number of entities.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+    /**
+     * Size of the write buffer, records are flushed when half of it is used.
+     */
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Size of the memory-mapped regions read at once.
+     */
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    /**
+     * Flags of an entity record.
+     */
+    private static final int ALIVE = 1;
+    private static final int STATS = 1 << 1;
+
+    /**
+     * Kinds of a saved statistic. Map-backed statistics keep their boxed type, the narrow kinds are saved as an int.
+     */
+    private static final byte LONG_STAT = 1;
+    private static final byte DOUBLE_STAT = 2;
+    private static final byte INT_STAT = 3;
+    private static final byte FLOAT_STAT = 4;
+    private static final byte SHORT_STAT = 5;
+    private static final byte BYTE_STAT = 6;
+
+    // Prevent instantiation
+    private WorldSnapshot() {
+    }
+
+    /**
+     * Saves the loaded entities to a file.
+     * @param file The snapshot file, replaced if it exists.
+     * @return The number of saved entities.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int save(Path file) throws IOException {
+        return save(file, null);
+    }
+
+    /**
+     * Saves the loaded entities to a file, with custom data.
+     * The snapshot is written to a temporary file first, so an existing snapshot is only replaced by a complete one.
+     * Entities must not be spawned or killed while saving.
+     * @param file The snapshot file, replaced if it exists.
+     * @param extension The hook writing custom entity data, or null.
+     * @return The number of saved entities.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int save(Path file, SnapshotExtension extension) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+        PrometheusData data = Prometheus.getData();
+        Path absolute = file.toAbsolutePath();
+        Path parent = absolute.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, absolute.getFileName().toString(), ".tmp");
+
+        int count = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                SnapshotOutput out = new SnapshotOutput(BUFFER_SIZE);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(0);
+
+                Map<String, Integer> names = new HashMap<>();
+                for (IEntity entity : data.getLoadedEntities()) {
+                    writeEntity(out, entity, names, extension);
+                    count++;
+                    if (out.buffer().position() >= BUFFER_SIZE / 2) {
+                        flush(channel, out.buffer());
+                    }
+                }
+                flush(channel, out.buffer());
+
+                ByteBuffer total = ByteBuffer.allocate(Long.BYTES).putLong(0, count);
+                channel.write(total, Integer.BYTES * 2);
+            }
+            try {
+                Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return count;
+    }
+
+    /**
+     * Loads the entities of a snapshot file and adds them to the loaded entities.
+     * @param file The snapshot file.
+     * @return The restored entities, in the order they were saved.
+     * @throws IOException if the file cannot be read or is not a valid snapshot.
+     */
+    public static List<IEntity> load(Path file) throws IOException {
+        return load(file, null);
+    }
+
+    /**
+     * Loads the entities of a snapshot file, with custom data, and adds them to the loaded entities.
+     * Entities are rebuilt through the registry, then loaded in one step: either every entity is loaded, or none is.
+     * @param file The snapshot file.
+     * @param extension The hook reading custom entity data, or null to skip it.
+     * @return The restored entities, in the order they were saved.
+     * @throws IOException if the file cannot be read or is not a valid snapshot.
+     * @throws IllegalArgumentException if a saved registry id is not registered.
+     * @throws IllegalStateException if a saved entity has the UUID of a loaded entity.
+     */
+    public static List<IEntity> load(Path file, SnapshotExtension extension) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+        PrometheusData data = Prometheus.getData();
+        List<IEntity> restored;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            reader.require(HEADER_SIZE);
+            ByteBuffer window = reader.window;
+            if (window.getInt() != MAGIC) throw new IOException("Not a Prometheus snapshot: " + file);
+            int version = window.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            long count = window.getLong();
+            if (count < 0 || count > Integer.MAX_VALUE) throw new IOException("Corrupted snapshot: " + file);
+
+            restored = new ArrayList<>((int) count);
+            Names names = new Names(data);
+            SnapshotInput in = new SnapshotInput();
+            try {
+                for (long i = 0; i < count; i++) {
+                    reader.require(Integer.BYTES);
+                    int length = reader.window.getInt();
+                    if (length < 0) throw new IOException("Corrupted snapshot: " + file);
+                    reader.require(length);
+                    window = reader.window;
+                    int end = window.position() + length;
+                    window.limit(end);
+                    in.buffer(window);
+                    restored.add(readEntity(in, names, extension));
+                    window.limit(window.capacity());
+                    window.position(end);
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Corrupted snapshot: " + file, e);
+            }
+        }
+        data.loadEntities(restored);
+        return restored;
+    }
+
+    /**
+     * Writes the record of an entity.
+     * @param out The output.
+     * @param entity The entity.
+     * @param names The indexes of the names already written.
+     * @param extension The hook writing custom entity data, or null.
+     */
+    static void writeEntity(SnapshotOutput out, IEntity entity, Map<String, Integer> names, SnapshotExtension extension) {
+        int start = out.buffer().position();
+        out.writeInt(0);
+
+        writeName(out, entity.getRegistryId(), names);
+        UUID uuid = entity.currentUUID();
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        boolean stats = entity instanceof StatableEntity;
+        out.writeByte((entity.isAlive() ? ALIVE : 0) | (stats ? STATS : 0));
+
+        String[] groups = entity.entityGroup();
+        if (groups == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(groups.length);
+            for (String group : groups) {
+                writeName(out, group, names);
+            }
+        }
+
+        if (entity instanceof PrimitiveStatableEntity primitive) {
+            writeStats(out, primitive.getStatBlock(), names);
+        } else if (entity instanceof StatableEntity statable) {
+            writeStats(out, statable.getStatsValues(), names);
+        }
+
+        if (extension != null) {
+            extension.write(entity, out);
+        }
+        ByteBuffer buffer = out.buffer();
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    /**
+     * Writes the statistics of a primitive statable entity.
+     * @param out The output.
+     * @param block The statistics.
+     * @param names The indexes of the names already written.
+     */
+    private static void writeStats(SnapshotOutput out, StatBlock block, Map<String, Integer> names) {
+        out.writeInt(block.size());
+        for (int slot = block.nextSlot(0); slot >= 0; slot = block.nextSlot(slot + 1)) {
+            writeName(out, StatRegistry.nameOf(slot), names);
+            if (block.isDecimal(slot)) {
+                out.writeByte(DOUBLE_STAT);
+                out.writeDouble(block.getDouble(slot));
+            } else {
+                out.writeByte(LONG_STAT);
+                out.writeLong(block.getLong(slot));
+            }
+        }
+    }
+
+    /**
+     * Writes the statistics of a statable entity, with the kind of their boxed type.
+     * Other {@link Number} types are saved as a double if they are a Double or a Float, and as a long otherwise.
+     * @param out The output.
+     * @param stats The statistics, null values are skipped.
+     * @param names The indexes of the names already written.
+     */
+    private static void writeStats(SnapshotOutput out, Map<String, Number> stats, Map<String, Integer> names) {
+        int count = 0;
+        for (Number value : stats.values()) {
+            if (value != null) count++;
+        }
+        out.writeInt(count);
+        for (Map.Entry<String, Number> entry : stats.entrySet()) {
+            Number value = entry.getValue();
+            if (value == null) continue;
+            writeName(out, entry.getKey(), names);
+            if (value instanceof Double) {
+                out.writeByte(DOUBLE_STAT);
+                out.writeDouble(value.doubleValue());
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT_STAT);
+                out.writeInt(Float.floatToRawIntBits(value.floatValue()));
+            } else if (value instanceof Integer) {
+                out.writeByte(INT_STAT);
+                out.writeInt(value.intValue());
+            } else if (value instanceof Short) {
+                out.writeByte(SHORT_STAT);
+                out.writeInt(value.shortValue());
+            } else if (value instanceof Byte) {
+                out.writeByte(BYTE_STAT);
+                out.writeInt(value.byteValue());
+            } else {
+                out.writeByte(LONG_STAT);
+                out.writeLong(value.longValue());
+            }
+        }
+    }
+
+    /**
+     * Writes a name as a reference, followed by the name itself the first time it is written.
+     * @param out The output.
+     * @param name The name.
+     * @param names The indexes of the names already written.
+     */
+    private static void writeName(SnapshotOutput out, String name, Map<String, Integer> names) {
+        Integer index = names.get(name);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        int created = names.size();
+        names.put(name, created);
+        out.writeInt(created);
+        out.writeString(name);
+    }
+
+    /**
+     * Reads the record of an entity and rebuilds the entity, without loading it.
+     * @param in The input, limited to the record.
+     * @param names The names already read, by index.
+     * @param extension The hook reading custom entity data, or null.
+     * @return The restored entity.
+     * @throws IOException if the record is invalid.
+     */
+    static IEntity readEntity(SnapshotInput in, Names names, SnapshotExtension extension) throws IOException {
+        int registryRef = readName(in, names);
+        UUID uuid = new UUID(in.readLong(), in.readLong());
+        int flags = in.readByte();
+
+        IEntity entity = names.factory(registryRef).apply(uuid);
+        int groupCount = in.readInt();
+        if (groupCount < -1) throw new IOException("Corrupted snapshot: invalid group count " + groupCount);
+        int[] groupRefs = names.groupRefs(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groupRefs[i] = readName(in, names);
+        }
+        if (!names.isRegisteredGroups(registryRef, groupRefs, groupCount, entity.entityGroup())) {
+            String[] groups = groupCount < 0 ? null : new String[groupCount];
+            for (int i = 0; i < groupCount; i++) {
+                groups[i] = names.get(groupRefs[i]);
+            }
+            entity.setRegistryMeta(names.get(registryRef), groups, uuid);
+        }
+        entity.setAlive((flags & ALIVE) != 0);
+
+        if ((flags & STATS) != 0) {
+            readStats(in, entity, names);
+        }
+        if (extension != null) {
+            extension.read(entity, in);
+        }
+        return entity;
+    }
+
+    /**
+     * Reads the statistics of an entity.
+     * Map-backed statistics are written into {@link StatableEntity#getStatsValues()} directly:
+     * the entity is not loaded yet, so its restore is not a change to notify.
+     * @param in The input.
+     * @param entity The restored entity.
+     * @param names The names already read, by index.
+     * @throws IOException if the record is invalid.
+     */
+    private static void readStats(SnapshotInput in, IEntity entity, Names names) throws IOException {
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Corrupted snapshot: invalid stat count " + count);
+        StatBlock block = entity instanceof PrimitiveStatableEntity primitive ? primitive.getStatBlock() : null;
+        Map<String, Number> stats = block == null && entity instanceof StatableEntity statable ? statable.getStatsValues() : null;
+        if (block != null) block.clear();
+        else if (stats != null) stats.clear();
+
+        for (int i = 0; i < count; i++) {
+            int ref = readName(in, names);
+            byte kind = in.readByte();
+            if (block == null) {
+                Number value = readNumber(in, kind);
+                if (stats != null) stats.put(names.get(ref), value);
+            } else if (kind == DOUBLE_STAT) {
+                block.setDouble(names.statSlot(ref), in.readDouble());
+            } else if (kind == FLOAT_STAT) {
+                block.setDouble(names.statSlot(ref), Float.intBitsToFloat(in.readInt()));
+            } else if (kind == LONG_STAT) {
+                block.setLong(names.statSlot(ref), in.readLong());
+            } else if (kind == INT_STAT || kind == SHORT_STAT || kind == BYTE_STAT) {
+                block.setLong(names.statSlot(ref), in.readInt());
+            } else {
+                throw new IOException("Corrupted snapshot: invalid stat kind " + kind);
+            }
+        }
+    }
+
+    /**
+     * Reads a map-backed statistic with the boxed type it was saved with.
+     * @param in The input.
+     * @param kind The kind of the statistic.
+     * @return The value of the statistic.
+     * @throws IOException if the kind is invalid.
+     */
+    private static Number readNumber(SnapshotInput in, byte kind) throws IOException {
+        return switch (kind) {
+            case LONG_STAT -> Long.valueOf(in.readLong());
+            case DOUBLE_STAT -> Double.valueOf(in.readDouble());
+            case INT_STAT -> Integer.valueOf(in.readInt());
+            case FLOAT_STAT -> Float.valueOf(Float.intBitsToFloat(in.readInt()));
+            case SHORT_STAT -> Short.valueOf((short) in.readInt());
+            case BYTE_STAT -> Byte.valueOf((byte) in.readInt());
+            default -> throw new IOException("Corrupted snapshot: invalid stat kind " + kind);
+        };
+    }
+
+    /**
+     * Reads a name reference, and the name itself the first time it is referenced.
+     * @param in The input.
+     * @param names The names already read, by index.
+     * @return The index of the name.
+     * @throws IOException if the reference is invalid.
+     */
+    private static int readName(SnapshotInput in, Names names) throws IOException {
+        int index = in.readInt();
+        if (index >= 0 && index < names.size) return index;
+        if (index != names.size) throw new IOException("Corrupted snapshot: invalid name reference " + index);
+        names.add(in.readString());
+        return index;
+    }
+
+    /**
+     * Writes the content of a buffer to a channel and clears it.
+     * @param channel The channel.
+     * @param buffer The buffer, in write mode.
+     * @throws IOException if the channel cannot be written.
+     */
+    static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Names of a snapshot or of a journal segment, by index.
+     * Each name is resolved once, when first used: to an entity factory as a registry id, to a slot as a statistic name.
+     * The group references of the records matching the registered groups of their registry id are kept,
+     * so that later records with the same references skip the comparison of the group names.
+     */
+    static final class Names {
+
+        private final PrometheusData data;
+
+        private String[] names = new String[16];
+
+        private Function<UUID, IEntity>[] factories = newFactories(16);
+
+        private int[] slots = new int[16];
+
+        private int[][] registeredGroups = new int[16][];
+
+        /**
+         * Group references of the record being read.
+         */
+        private int[] groupRefs = new int[8];
+
+        private int size;
+
+        /**
+         * Constructs an empty name table.
+         * @param data The data of the running Prometheus instance, resolving the registry ids.
+         */
+        Names(PrometheusData data) {
+            this.data = data;
+        }
+
+        /**
+         * Gets a name.
+         * @param index The index of the name.
+         * @return The name.
+         */
+        String get(int index) {
+            return names[index];
+        }
+
+        /**
+         * Gets the entity factory of a registry id, resolved on first use.
+         * @param index The index of the registry id.
+         * @return The factory creating unloaded entities of this registry id.
+         * @throws IllegalArgumentException if the registry id is not registered.
+         */
+        Function<UUID, IEntity> factory(int index) {
+            Function<UUID, IEntity> factory = factories[index];
+            if (factory == null) {
+                factory = data.entityFactory(names[index]);
+                factories[index] = factory;
+            }
+            return factory;
+        }
+
+        /**
+         * Gets the slot of a statistic name, registered on first use.
+         * @param index The index of the statistic name.
+         * @return The slot of the statistic.
+         */
+        int statSlot(int index) {
+            int slot = slots[index];
+            if (slot < 0) {
+                slot = StatRegistry.register(names[index]);
+                slots[index] = slot;
+            }
+            return slot;
+        }
+
+        /**
+         * Gets the buffer receiving the group references of the record being read.
+         * @param count The number of groups of the record, -1 if it has none.
+         * @return A buffer of at least count references.
+         */
+        int[] groupRefs(int count) {
+            if (count > groupRefs.length) groupRefs = new int[count];
+            return groupRefs;
+        }
+
+        /**
+         * Checks whether the groups of a record are the groups the registry assigns to its registry id.
+         * @param registryRef The index of the registry id.
+         * @param refs The indexes of the group names of the record.
+         * @param count The number of groups of the record, -1 if it has none.
+         * @param registered The groups assigned by the registry to the restored entity.
+         * @return true if the record has the registered groups, in the same order.
+         */
+        boolean isRegisteredGroups(int registryRef, int[] refs, int count, String[] registered) {
+            if (count < 0 || registered == null) return count < 0 && registered == null;
+            int[] known = registeredGroups[registryRef];
+            if (known != null && Arrays.equals(known, 0, known.length, refs, 0, count)) return true;
+            if (registered.length != count) return false;
+            for (int i = 0; i < count; i++) {
+                if (!names[refs[i]].equals(registered[i])) return false;
+            }
+            registeredGroups[registryRef] = Arrays.copyOf(refs, count);
+            return true;
+        }
+
+        /**
+         * Adds the next name.
+         * @param name The name.
+         */
+        private void add(String name) {
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                factories = Arrays.copyOf(factories, capacity);
+                slots = Arrays.copyOf(slots, capacity);
+                registeredGroups = Arrays.copyOf(registeredGroups, capacity);
+            }
+            names[size] = name;
+            slots[size] = -1;
+            size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Function<UUID, IEntity>[] newFactories(int capacity) {
+            return (Function<UUID, IEntity>[]) new Function<?, ?>[capacity];
+        }
+    }
+
+    /**
+     * Sequential reader mapping the snapshot file region by region.
+     */
+    private static final class Reader {
+
+        private final FileChannel channel;
+        private final long size;
+
+        /**
+         * Current mapped region.
+         */
+        private MappedByteBuffer window;
+
+        /**
+         * Offset of the current region in the file.
+         */
+        private long offset;
+
+        private Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW_SIZE));
+        }
+
+        /**
+         * Makes sure the next bytes are in the current region, mapping a new region starting at the current position if needed.
+         * @param bytes The number of bytes to read.
+         * @throws IOException if the file ends before these bytes.
+         */
+        private void require(int bytes) throws IOException {
+            if (window.remaining() >= bytes) return;
+            long position = offset + window.position();
+            if (size - position < bytes) throw new IOException("Corrupted snapshot: unexpected end of file");
+            offset = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Math.max(WINDOW_SIZE, bytes)));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package fr.olympus.prometheus.system;
+
+import fr.olympus.prometheus.resources.PrometheusData;
+
+/**
+ * Per-tick logic run by a {@link SystemScheduler}.
+ * A system declares the groups of the entities it reads and the groups of the entities it changes:
+ * two systems conflict when one of them writes a group the other reads or writes, and conflicting systems never run at the same time.
+ * Systems that do not conflict may run in parallel, so a system must only change entities of its write groups.
+ */
+public interface EntitySystem {
+
+    /**
+     * Gets the name of this system, used in the timings of the scheduler.
+     * @return The name of this system, by default the simple name of its class.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Gets the groups of the entities this system reads.
+     * @return The read groups, empty by default.
+     */
+    default String[] getReadGroups() {
+        return new String[0];
+    }
+
+    /**
+     * Gets the groups of the entities this system changes.
+     * @return The write groups, empty by default.
+     */
+    default String[] getWriteGroups() {
+        return new String[0];
+    }
+
+    /**
+     * Runs this system for one tick.
+     * Spawns and kills are deferred until the end of the tick when the scheduler defers structural changes.
+     * @param data The data of the running Prometheus instance.
+     * @param tick The number of the tick, starting at 0.
+     */
+    void update(PrometheusData data, long tick);
+}
@@ -0,0 +1,288 @@
+package fr.olympus.prometheus.system;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.resources.PrometheusData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@link EntitySystem} instances once per tick, in parallel when they do not conflict.
+ * Systems are scheduled in stages: a system is placed in the first stage after every conflicting system added before it,
+ * so conflicting systems keep their insertion order and systems of the same stage never conflict.
+ * Stages run one after the other, the systems of a stage run in parallel on the executor of the scheduler.
+ * <p>
+ * By default, spawns and kills requested by the systems are deferred and applied at the end of the tick,
+ * see {@link PrometheusData#setDeferred(boolean)}, so systems can iterate the loaded entities while others kill them.
+ */
+public final class SystemScheduler {
+
+    /**
+     * Executor running the systems of a stage.
+     */
+    private final Executor executor;
+
+    /**
+     * Registered systems, in insertion order.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Stages of the registered systems, null when they must be computed again.
+     */
+    private List<List<Entry>> stages;
+
+    /**
+     * Whether spawns and kills are deferred until the end of each tick.
+     */
+    private boolean deferStructuralChanges = true;
+
+    /**
+     * Number of the next tick.
+     */
+    private long tick;
+
+    /**
+     * Constructs a SystemScheduler running its systems on the common fork-join pool.
+     */
+    public SystemScheduler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a SystemScheduler running its systems on an executor,
+     * for example {@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()}.
+     * @param executor The executor running the systems of a stage.
+     * @throws IllegalArgumentException if executor is null.
+     */
+    public SystemScheduler(Executor executor) {
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null");
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a system, run after every conflicting system already added.
+     * @param system The system to add.
+     * @return This scheduler.
+     * @throws IllegalArgumentException if system is null or already added.
+     */
+    public synchronized SystemScheduler add(EntitySystem system) {
+        if (system == null) throw new IllegalArgumentException("System cannot be null");
+        for (Entry entry : entries) {
+            if (entry.system == system) throw new IllegalArgumentException("System already added: " + system.getName());
+        }
+        entries.add(new Entry(system));
+        stages = null;
+        return this;
+    }
+
+    /**
+     * Removes a system.
+     * @param system The system to remove.
+     * @return true if the system was added and has been removed, false otherwise.
+     */
+    public synchronized boolean remove(EntitySystem system) {
+        boolean removed = entries.removeIf(entry -> entry.system == system);
+        if (removed) stages = null;
+        return removed;
+    }
+
+    /**
+     * Sets whether spawns and kills requested by the systems are deferred until the end of each tick. Enabled by default.
+     * @param deferStructuralChanges true to apply spawns and kills at the end of the tick, false to apply them immediately.
+     */
+    public synchronized void setDeferStructuralChanges(boolean deferStructuralChanges) {
+        this.deferStructuralChanges = deferStructuralChanges;
+    }
+
+    /**
+     * Runs every system once.
+     * If a system throws, the remaining stages are not run, deferred changes are still applied,
+     * and the exception of the first failing system of the stage, in insertion order, is thrown.
+     * @throws RuntimeException the exception thrown by a system.
+     */
+    public synchronized void tick() {
+        PrometheusData data = Prometheus.getData();
+        long current = tick++;
+        boolean wasDeferred = data.isDeferred();
+        if (deferStructuralChanges) data.setDeferred(true);
+        try {
+            for (List<Entry> stage : stages()) {
+                runStage(stage, data, current);
+            }
+        } finally {
+            if (deferStructuralChanges) {
+                if (wasDeferred) {
+                    data.flushDeferred();
+                } else {
+                    data.setDeferred(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the systems of a stage, in parallel when there are several.
+     * @param stage The systems of the stage.
+     * @param data The data of the running Prometheus instance.
+     * @param current The number of the tick.
+     */
+    private void runStage(List<Entry> stage, PrometheusData data, long current) {
+        if (stage.size() == 1) {
+            stage.get(0).run(data, current);
+            return;
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[stage.size()];
+        for (int i = 0; i < futures.length; i++) {
+            Entry entry = stage.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> entry.run(data, current), executor);
+        }
+        RuntimeException failure = null;
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error error) throw error;
+                    failure = cause instanceof RuntimeException runtime ? runtime : e;
+                }
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Gets the schedule of the registered systems.
+     * @return The systems of each stage, stages in execution order and systems in insertion order.
+     */
+    public synchronized List<List<EntitySystem>> getStages() {
+        List<List<EntitySystem>> result = new ArrayList<>();
+        for (List<Entry> stage : stages()) {
+            result.add(stage.stream().map(entry -> entry.system).toList());
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Gets the timings of the registered systems.
+     * @return The timings of each system, in insertion order.
+     */
+    public synchronized List<SystemStats> getStats() {
+        List<List<Entry>> schedule = stages();
+        List<SystemStats> stats = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            int stage = 0;
+            while (!schedule.get(stage).contains(entry)) {
+                stage++;
+            }
+            stats.add(entry.stats(stage));
+        }
+        return stats;
+    }
+
+    /**
+     * Computes the stages of the registered systems if they changed since the last call.
+     * @return The stages, in execution order.
+     */
+    private List<List<Entry>> stages() {
+        if (stages != null) return stages;
+        List<List<Entry>> computed = new ArrayList<>();
+        int[] stageOf = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int stage = 0;
+            for (int j = 0; j < i; j++) {
+                if (entry.conflictsWith(entries.get(j))) {
+                    stage = Math.max(stage, stageOf[j] + 1);
+                }
+            }
+            stageOf[i] = stage;
+            if (stage == computed.size()) {
+                computed.add(new ArrayList<>());
+            }
+            computed.get(stage).add(entry);
+        }
+        stages = computed;
+        return computed;
+    }
+
+    /**
+     * Registered system with its declared groups and timings.
+     */
+    private static final class Entry {
+
+        private final EntitySystem system;
+        private final Set<String> reads;
+        private final Set<String> writes;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private volatile long lastNanos;
+        private volatile long maxNanos;
+
+        private Entry(EntitySystem system) {
+            this.system = system;
+            this.reads = Set.of(distinct(system.getReadGroups()));
+            this.writes = Set.of(distinct(system.getWriteGroups()));
+        }
+
+        /**
+         * Removes the duplicated groups of an array.
+         * @param groups The groups, null for no group.
+         * @return The distinct groups.
+         */
+        private static String[] distinct(String[] groups) {
+            if (groups == null) return new String[0];
+            return Arrays.stream(groups).distinct().toArray(String[]::new);
+        }
+
+        /**
+         * Checks if this system conflicts with another one.
+         * @param other The other system.
+         * @return true if one of the systems writes a group the other reads or writes.
+         */
+        private boolean conflictsWith(Entry other) {
+            for (String group : writes) {
+                if (other.writes.contains(group) || other.reads.contains(group)) return true;
+            }
+            for (String group : other.writes) {
+                if (reads.contains(group)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Runs the system and records its duration.
+         * @param data The data of the running Prometheus instance.
+         * @param tick The number of the tick.
+         */
+        private void run(PrometheusData data, long tick) {
+            long start = System.nanoTime();
+            try {
+                system.update(data, tick);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                runs.increment();
+                totalNanos.add(elapsed);
+                lastNanos = elapsed;
+                if (elapsed > maxNanos) maxNanos = elapsed;
+            }
+        }
+
+        /**
+         * Gets the timings of the system.
+         * @param stage The stage of the system.
+         * @return The timings.
+         */
+        private SystemStats stats(int stage) {
+            return new SystemStats(system.getName(), stage, runs.sum(), lastNanos, maxNanos, totalNanos.sum());
+        }
+    }
+}
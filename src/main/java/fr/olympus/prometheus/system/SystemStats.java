@@ -0,0 +1,21 @@
+package fr.olympus.prometheus.system;
+
+/**
+ * Timings of an {@link EntitySystem}, see {@link SystemScheduler#getStats()}.
+ * @param name The name of the system.
+ * @param stage The stage of the system in the schedule, systems of the same stage may run in parallel.
+ * @param runs The number of ticks the system ran.
+ * @param lastNanos The duration of the last run, in nanoseconds.
+ * @param maxNanos The longest run, in nanoseconds.
+ * @param totalNanos The total duration of all runs, in nanoseconds.
+ */
+public record SystemStats(String name, int stage, long runs, long lastNanos, long maxNanos, long totalNanos) {
+
+    /**
+     * Gets the average duration of a run.
+     * @return The average duration in nanoseconds, 0 if the system never ran.
+     */
+    public double averageNanos() {
+        return runs == 0 ? 0 : (double) totalNanos / runs;
+    }
+}
@@ -0,0 +1,100 @@
+package fr.olympus.prometheus.entity;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatBlockTest {
+
+    private static int[] register(int count) {
+        int[] slots = new int[count];
+        for (int i = 0; i < count; i++) {
+            slots[i] = StatRegistry.register("test:stat" + i);
+        }
+        return slots;
+    }
+
+    private static List<Integer> slots(StatBlock block) {
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = block.nextSlot(0); slot >= 0; slot = block.nextSlot(slot + 1)) {
+            slots.add(slot);
+        }
+        return slots;
+    }
+
+    @Test
+    void iteratesOnlyPresentSlotsAcrossBitmapWords() {
+        int[] slots = register(200);
+        StatBlock block = new StatBlock();
+        assertEquals(-1, block.nextSlot(0));
+
+        block.setLong(slots[3], 3);
+        block.setDouble(slots[70], 0.5);
+        block.addLong(slots[199], 9);
+        assertEquals(List.of(slots[3], slots[70], slots[199]), slots(block));
+        assertEquals(3, block.size());
+
+        assertTrue(block.remove(slots[70]));
+        assertFalse(block.has(slots[70]));
+        assertEquals(List.of(slots[3], slots[199]), slots(block));
+        assertEquals(2, block.asMap().entrySet().size());
+        assertEquals(Map.of("test:stat3", 3L, "test:stat199", 9L), Map.copyOf(block.asMap()));
+
+        block.clear();
+        assertEquals(0, block.size());
+        assertEquals(-1, block.nextSlot(0));
+        assertEquals(0, block.getLong(slots[3]));
+    }
+
+    @Test
+    void mergesAndReplacesBlocksOfDifferentSizes() {
+        int[] slots = register(100);
+        StatBlock small = new StatBlock();
+        small.setLong(slots[1], 2);
+        StatBlock large = new StatBlock();
+        large.setLong(slots[1], 5);
+        large.setDouble(slots[90], 1.5);
+
+        small.merge(large);
+        assertEquals(7, small.getLong(slots[1]));
+        assertEquals(1.5, small.getDouble(slots[90]));
+        assertEquals(List.of(slots[1], slots[90]), slots(small));
+
+        small.merge(small);
+        assertEquals(14, small.getLong(slots[1]));
+        assertEquals(3.0, small.getDouble(slots[90]));
+
+        large.replace(new StatBlock());
+        assertEquals(0, large.size());
+        assertEquals(-1, large.nextSlot(0));
+
+        StatBlock copy = new StatBlock();
+        copy.setLong(slots[50], 1);
+        copy.replace(small);
+        assertEquals(List.of(slots[1], slots[90]), slots(copy));
+        assertTrue(copy.isDecimal(slots[90]));
+        assertFalse(copy.has(slots[50]));
+    }
+
+    @Test
+    void storageDoesNotFollowTheRegistrySize() {
+        int[] slots = register(1000);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        StatBlock[] blocks = new StatBlock[1000];
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new StatBlock();
+            blocks[i].setLong(slots[0], i);
+        }
+        long perBlock = (threads.getCurrentThreadAllocatedBytes() - before) / blocks.length;
+        assertTrue(perBlock < 256, "A block with one statistic allocated " + perBlock + " bytes");
+    }
+}
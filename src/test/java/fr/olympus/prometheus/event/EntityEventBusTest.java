@@ -0,0 +1,131 @@
+package fr.olympus.prometheus.event;
+
+import fr.olympus.prometheus.entity.Entity;
+import fr.olympus.prometheus.entity.IEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityEventBusTest {
+
+    private static IEntity entity() {
+        return entity("mob");
+    }
+
+    private static IEntity entity(String registryId) {
+        Entity entity = new Entity(registryId) {
+        };
+        entity.setRegistryMeta(registryId, new String[]{"mob"}, UUID.randomUUID());
+        return entity;
+    }
+
+    @Test
+    void failingEntityDoesNotBlockLaterEvents() {
+        EntityEventBus bus = new EntityEventBus(16);
+        List<UUID> received = new ArrayList<>();
+        EntityEventBus.Subscription subscription = bus.subscribe(event -> received.add(event.getUUID()));
+
+        IEntity first = entity();
+        IEntity broken = new Entity("broken") {
+            @Override
+            public String getRegistryId() {
+                throw new IllegalStateException("broken entity");
+            }
+        };
+        IEntity last = entity();
+        assertThrows(IllegalStateException.class, () -> bus.publish(EntityEventType.SPAWN, broken, null));
+        assertThrows(IllegalStateException.class, () -> bus.publishAll(EntityEventType.SPAWN, List.of(first, broken, entity())));
+        bus.publish(EntityEventType.DEATH, last, null);
+
+        assertEquals(2, subscription.poll());
+        assertEquals(List.of(first.currentUUID(), last.currentUUID()), received);
+        assertEquals(0, subscription.getPendingCount());
+        assertEquals(0, subscription.getLostCount());
+    }
+
+    @Test
+    void producersLappingTheRingNeverMixEvents() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 10_000;
+        EntityEventBus bus = new EntityEventBus(4);
+        List<String> errors = new CopyOnWriteArrayList<>();
+        long[] last = {-1};
+        long[] delivered = {0};
+        EntityEventBus.Subscription subscription = bus.subscribe(event -> {
+            IEntity entity = event.getEntity();
+            if (!event.getUUID().equals(entity.currentUUID()) || !event.getRegistryId().equals(entity.getRegistryId())) {
+                errors.add("Mixed event " + event);
+            }
+            if (event.getSequence() <= last[0]) {
+                errors.add("Sequence went back from " + last[0] + " to " + event.getSequence());
+            }
+            last[0] = event.getSequence();
+            delivered[0]++;
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            IEntity[] entities = new IEntity[8];
+            for (int i = 0; i < entities.length; i++) {
+                entities[i] = entity("producer" + p);
+            }
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    bus.publish(EntityEventType.SPAWN, entities[i & 7], null);
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            subscription.poll();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        subscription.poll();
+
+        assertEquals(List.of(), errors);
+        assertEquals(0, subscription.getPendingCount());
+        assertEquals((long) producers * perProducer, delivered[0] + subscription.getLostCount());
+    }
+
+    @Test
+    void readEventsDoNotKeepEntitiesAlive() {
+        EntityEventBus bus = new EntityEventBus(16);
+        EntityEventBus.Subscription fast = bus.subscribe(event -> { });
+        EntityEventBus.Subscription slow = bus.subscribe(event -> { });
+        IEntity dead = entity();
+        IEntity source = entity();
+        bus.publish(EntityEventType.EVOLVE, dead, source);
+
+        fast.poll();
+        assertTrue(bus.isReferenced(dead));
+        assertTrue(bus.isReferenced(source));
+
+        slow.poll();
+        assertFalse(bus.isReferenced(dead));
+        assertFalse(bus.isReferenced(source));
+    }
+}
@@ -0,0 +1,191 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.IEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentEntityStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 5_000;
+
+    private final GroupIndex groupIndex = new GroupIndex();
+    private final ConcurrentEntityStore store = new ConcurrentEntityStore(groupIndex, 16);
+
+    @Test
+    void spawnKillAndQueryFromThreadsKeepsIndexesConsistent() throws Exception {
+        ConcurrentLinkedQueue<IEntity> alive = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<IEntity> killed = new ConcurrentLinkedQueue<>();
+        groupIndex.maskOf(new String[]{"mob", "even", "odd"});
+        GroupMask all = groupIndex.queryMask(new String[]{"mob"});
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CyclicBarrier start = new CyclicBarrier(THREADS + 1);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String registryId = t % 2 == 0 ? "even" : "odd";
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                    List<IEntity> own = new ArrayList<>();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        IEntity entity = new TestEntity(registryId, "mob", registryId);
+                        store.add(entity);
+                        own.add(entity);
+                        if (i % 2 == 1) {
+                            IEntity victim = own.remove(own.size() - 2);
+                            assertTrue(store.remove(victim));
+                            killed.add(victim);
+                        }
+                    }
+                    alive.addAll(own);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        Thread reader = new Thread(() -> {
+            try {
+                start.await();
+                List<IEntity> out = new ArrayList<>();
+                int[] visited = new int[1];
+                while (running.get()) {
+                    out.clear();
+                    store.collectInGroups(all, out);
+                    visited[0] = 0;
+                    store.forEachWithId("even", entity -> visited[0]++);
+                    assertTrue(store.countWithId("odd") >= 0);
+                    for (IEntity entity : out) {
+                        assertTrue(entity.hasGroup("mob"));
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        reader.start();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        running.set(false);
+        reader.join();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+
+        int expected = THREADS * PER_THREAD / 2;
+        assertEquals(expected, alive.size());
+        assertEquals(expected, store.size());
+        assertEquals(expected / 2, store.countWithId("even"));
+        assertEquals(expected / 2, store.countWithId("odd"));
+        List<IEntity> inGroup = new ArrayList<>();
+        store.collectInGroups(all, inGroup);
+        assertEquals(expected, inGroup.size());
+        List<IEntity> even = new ArrayList<>();
+        store.collectInGroups(groupIndex.queryMask(new String[]{"mob", "even"}), even);
+        assertEquals(expected / 2, even.size());
+        for (IEntity entity : alive) {
+            assertSame(entity, store.find(entity.currentUUID()));
+        }
+        for (IEntity entity : killed) {
+            assertNull(store.find(entity.currentUUID()));
+        }
+    }
+
+    @Test
+    void batchesFromThreadsAreAllOrNothing() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                try {
+                    for (int round = 0; round < 50; round++) {
+                        List<IEntity> batch = new ArrayList<>();
+                        for (int i = 0; i < 100; i++) {
+                            batch.add(new TestEntity("batch", "mob"));
+                        }
+                        store.addAll(batch);
+                        List<IEntity> removed = new ArrayList<>();
+                        store.removeAll(batch, removed);
+                        assertEquals(batch.size(), removed.size());
+                        int size = store.size();
+                        assertTrue(size >= 0 && size % 100 == 0, "Partial batch visible: " + size);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertEquals(0, store.size());
+        assertEquals(0, store.countWithId("batch"));
+    }
+
+    @Test
+    void writeFromVisitorIsRejected() {
+        for (int i = 0; i < 64; i++) {
+            store.add(new TestEntity("mob", "mob"));
+        }
+        GroupMask all = groupIndex.queryMask(new String[]{"mob"});
+        assertThrows(IllegalStateException.class,
+                () -> store.forEachInGroups(all, entity -> store.add(new TestEntity("mob", "mob"))));
+        assertThrows(IllegalStateException.class,
+                () -> store.forEachWithId("mob", store::remove));
+        assertThrows(IllegalStateException.class,
+                () -> store.forEachWithId("mob", entity -> store.addAll(List.of(new TestEntity("mob", "mob")))));
+        assertEquals(64, store.size());
+
+        store.add(new TestEntity("mob", "mob"));
+        assertEquals(65, store.size());
+    }
+
+    @Test
+    void visitorsWritingIntoEachOtherSegmentsDoNotDeadlock() {
+        for (int i = 0; i < 1_000; i++) {
+            store.add(new TestEntity("mob", "mob"));
+        }
+        GroupMask all = groupIndex.queryMask(new String[]{"mob"});
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int round = 0; round < 100; round++) {
+                        try {
+                            store.forEachInGroups(all, entity -> store.add(new TestEntity("mob", "mob")));
+                            failure.compareAndSet(null, new AssertionError("Write from a visitor was accepted"));
+                        } catch (IllegalStateException expected) {
+                            // Rejected before taking a write lock
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (failure.get() != null) throw new AssertionError(failure.get());
+        });
+        assertEquals(1_000, store.size());
+    }
+}
@@ -0,0 +1,128 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.evolution.EvolutionCondition;
+import fr.olympus.prometheus.evolution.EvolutionEntity;
+import fr.olympus.prometheus.register.EntityRegistryEntry;
+import fr.olympus.prometheus.register.EvolutionRegistryEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvolutionGraphTest {
+
+    private final PrometheusData data = new PrometheusData();
+
+    private final AtomicInteger larvae = new AtomicInteger();
+
+    private final AtomicInteger conditions = new AtomicInteger();
+
+    private void register(int poolCapacity) {
+        data.registerAll(
+                List.of(new EntityRegistryEntry("larva", () -> {
+                            larvae.incrementAndGet();
+                            return new Larva();
+                        }, new String[]{"mob"}, poolCapacity),
+                        new EntityRegistryEntry("adult", () -> new TestEntity("adult"), new String[]{"mob"})),
+                List.of(new EvolutionRegistryEntry("grow", () -> {
+                    conditions.incrementAndGet();
+                    return new Grow();
+                })));
+    }
+
+    @Test
+    void evolutionsAreAnsweredByRegistryId() {
+        register(0);
+        EvolutionGraph graph = data.getEvolutionGraph();
+        Larva larva = new Larva();
+        larva.next = List.of("grow");
+        assertTrue(graph.hasEvolution(larva, "grow"));
+        assertFalse(graph.hasEvolution(larva, "shrink"));
+        assertEquals(List.of("grow"), graph.getNextEvolutions(larva));
+        assertEquals(List.of("adult"), graph.getNextEntities("larva"));
+
+        larva.next = new ArrayList<>(List.of("shrink"));
+        assertTrue(graph.hasEvolution(larva, "grow"));
+
+        larva.runtime = true;
+        assertFalse(graph.hasEvolution(larva, "grow"));
+        assertTrue(graph.hasEvolution(larva, "shrink"));
+        assertEquals(List.of("shrink"), graph.getNextEvolutions(larva));
+    }
+
+    @Test
+    void unchangedEntriesAreNotInstantiatedAgain() {
+        register(0);
+        data.getEvolutionGraph();
+        assertEquals(1, larvae.get());
+        assertEquals(1, conditions.get());
+
+        data.registerEntity(new EntityRegistryEntry("egg", () -> new TestEntity("egg"), new String[]{"mob"}));
+        data.getEvolutionGraph();
+        assertEquals(1, larvae.get());
+        assertEquals(1, conditions.get());
+    }
+
+    @Test
+    void graphInstancesArePooled() {
+        register(4);
+        data.getEvolutionGraph();
+        data.createEntity("larva");
+        assertEquals(1, larvae.get());
+        assertEquals(1, data.getPoolStats("larva").hits());
+    }
+
+    /**
+     * Entity evolving into an adult, whose list of evolutions can be replaced.
+     */
+    private static final class Larva extends TestEntity implements EvolutionEntity {
+
+        private static final List<String> NEXT = List.of("grow");
+
+        private List<String> next = NEXT;
+
+        private boolean runtime;
+
+        private final List<String> previous = new ArrayList<>();
+
+        private Larva() {
+            super("larva");
+        }
+
+        @Override
+        public List<String> getNextEvolutions() {
+            return next;
+        }
+
+        @Override
+        public List<String> getPreviousEvolutions() {
+            return previous;
+        }
+
+        @Override
+        public boolean hasRuntimeEvolutions() {
+            return runtime;
+        }
+    }
+
+    /**
+     * Condition spawning an adult.
+     */
+    private static final class Grow implements EvolutionCondition {
+
+        @Override
+        public <T extends EvolutionEntity> boolean canEvolve(T entity) {
+            return true;
+        }
+
+        @Override
+        public String getEntityId() {
+            return "adult";
+        }
+    }
+}
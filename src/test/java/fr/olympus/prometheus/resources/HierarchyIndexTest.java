@@ -0,0 +1,128 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.register.EntityRegistryEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchyIndexTest {
+
+    private final EntityStore store = new EntityStore(new GroupIndex());
+    private final HierarchyIndex index = new HierarchyIndex(store);
+
+    private void load(IEntity entity) {
+        store.add(entity);
+        index.loaded(entity);
+    }
+
+    private void destroy(IEntity entity) {
+        store.remove(entity);
+        index.removed(entity);
+    }
+
+    @Test
+    void childrenLoadedLaterAreAttached() {
+        TestEntity first = new TestEntity("mob", "mob");
+        TestEntity second = new TestEntity("mob", "mob");
+        load(first);
+        TestFamily family = new TestFamily(List.of(first.currentUUID(), second.currentUUID()));
+        load(family);
+        assertSame(family, index.parentOf(first));
+        assertNull(index.parentOf(second));
+
+        load(second);
+        assertSame(family, index.parentOf(second));
+        assertEquals(2, index.childCount(family));
+    }
+
+    @Test
+    void destroyedFamilyDropsItsPendingChildren() {
+        TestFamily family = new TestFamily(List.of(UUID.randomUUID(), UUID.randomUUID()));
+        load(family);
+        assertFalse(index.isEmpty());
+
+        destroy(family);
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void pendingChildClaimedByAnotherFamilyIsOwnedByIt() {
+        UUID child = UUID.randomUUID();
+        TestFamily first = new TestFamily(List.of(child));
+        TestFamily second = new TestFamily(List.of(child));
+        load(first);
+        load(second);
+        destroy(first);
+        assertFalse(index.isEmpty());
+
+        TestEntity loaded = new TestEntity("mob", "mob");
+        loaded.setRegistryMeta("mob", new String[]{"mob"}, child);
+        load(loaded);
+        assertSame(second, index.parentOf(loaded));
+        destroy(second);
+        destroy(loaded);
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void visitorsReadingLinksDoNotDeadlockWithFamilyLoads() {
+        PrometheusData data = new PrometheusData(PrometheusConfig.builder().concurrent(true).concurrencyLevel(4).build());
+        data.registerEntity(new EntityRegistryEntry("mob", () -> new TestEntity("mob"), new String[]{"mob"}));
+        List<IEntity> mobs = data.createEntities("mob", 2_000);
+        GroupQuery query = data.compileGroupQuery("mob");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            List<Thread> threads = new ArrayList<>();
+            threads.add(new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        data.forEachInGroups(query, data::getParent);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        data.destroyEntity(data.createEntity("mob"));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (int i = 0; i < 2_000; i++) {
+                IEntity child = mobs.get(i);
+                TestFamily family = new TestFamily(List.of(child.currentUUID(), UUID.randomUUID()));
+                data.loadEntities(List.of(family));
+                assertSame(family, data.getParent(child));
+                data.destroyEntity(family);
+            }
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        });
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertEquals(2_000, data.getLoadedEntitiesCount());
+    }
+}
@@ -0,0 +1,135 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.register.EntityRegistryEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PrometheusDataTest {
+
+    private final PrometheusData data = new PrometheusData();
+
+    @Test
+    void newEntityKeepsTheGivenUuid() {
+        data.registerEntity(new EntityRegistryEntry("mob", () -> new TestEntity("mob"), new String[]{"mob"}));
+        UUID uuid = new UUID(42, 7);
+        IEntity entity = data.newEntity("mob", uuid);
+        assertEquals(uuid, entity.currentUUID());
+        assertEquals("mob", entity.getRegistryId());
+    }
+
+    @Test
+    void entityIgnoringItsUuidIsRejected() {
+        data.registerEntity(new EntityRegistryEntry("forgetful", ForgetfulEntity::new, new String[]{"mob"}));
+        assertThrows(IllegalStateException.class, () -> data.newEntity("forgetful", new UUID(1, 2)));
+        assertThrows(IllegalStateException.class, () -> data.createEntity("forgetful"));
+        assertEquals(0, data.getLoadedEntitiesCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void entityWhoseUuidChangedIsStillDestroyed(boolean concurrent) {
+        PrometheusData data = new PrometheusData(PrometheusConfig.builder().concurrent(concurrent).build());
+        data.registerEntity(new EntityRegistryEntry("mob", () -> new TestEntity("mob"), new String[]{"mob"}));
+        List<IEntity> mobs = data.createEntities("mob", 64);
+        IEntity moved = mobs.get(10);
+        UUID loadedUuid = moved.currentUUID();
+        moved.setRegistryMeta("mob", new String[]{"mob"}, new UUID(5, 6));
+
+        data.destroyEntity(moved);
+        assertEquals(63, data.getLoadedEntitiesCount());
+        assertNull(data.getLoadedEntityWithUUID(loadedUuid));
+        assertFalse(data.getLoadedEntitiesWithId("mob").contains(moved));
+    }
+
+    @Test
+    void entityWithoutUuidOverloadCompilesAndIsRejected() {
+        data.registerEntity(new EntityRegistryEntry("legacy", LegacyEntity::new, new String[]{"mob"}));
+        assertThrows(IllegalStateException.class, () -> data.newEntity("legacy", new UUID(3, 4)));
+        assertEquals(0, data.getLoadedEntitiesCount());
+    }
+
+    /**
+     * Entity replacing the assigned UUID by a random one.
+     */
+    private static final class ForgetfulEntity extends TestEntity {
+
+        private ForgetfulEntity() {
+            super("forgetful");
+        }
+
+        @Override
+        public void setRegistryMeta(String registryId, String[] groups, UUID uuid) {
+            super.setRegistryMeta(registryId, groups, UUID.randomUUID());
+        }
+    }
+
+    /**
+     * Entity implementing {@link IEntity} directly, written before registry metadata could carry a UUID.
+     */
+    private static final class LegacyEntity implements IEntity {
+
+        private String registryId;
+        private String[] groups;
+        private UUID uuid;
+        private boolean alive = true;
+
+        @Override
+        public String getRegistryId() {
+            return registryId;
+        }
+
+        @Override
+        public String getName() {
+            return registryId;
+        }
+
+        @Override
+        public void setRegistryMeta(String registryId, String[] groups) {
+            this.registryId = registryId;
+            this.groups = groups;
+            this.uuid = UUID.randomUUID();
+        }
+
+        @Override
+        public boolean isAlive() {
+            return alive;
+        }
+
+        @Override
+        public void setAlive(boolean alive) {
+            this.alive = alive;
+        }
+
+        @Override
+        public UUID currentUUID() {
+            return uuid;
+        }
+
+        @Override
+        public String[] entityGroup() {
+            return groups;
+        }
+
+        @Override
+        public boolean hasGroup(String group) {
+            return Arrays.asList(groups).contains(group);
+        }
+
+        @Override
+        public boolean hasGroups(String[] groups) {
+            return Arrays.asList(this.groups).containsAll(Arrays.asList(groups));
+        }
+    }
+}
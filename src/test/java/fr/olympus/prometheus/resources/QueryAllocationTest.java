@@ -0,0 +1,114 @@
+package fr.olympus.prometheus.resources;
+
+import com.sun.management.ThreadMXBean;
+import fr.olympus.prometheus.PrometheusConfig;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.register.EntityRegistryEntry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the allocation-free query paths of {@link PrometheusData} allocate nothing per call,
+ * with the single-threaded and the concurrent storage.
+ */
+class QueryAllocationTest {
+
+    /**
+     * Calls before the measurement, enough for the JIT to compile the query with C2.
+     */
+    private static final int WARMUP = 50_000;
+
+    private static final int ITERATIONS = 10_000;
+
+    private static final String[] GROUPS = {"mob", "g0"};
+    private static final String[] IDS = {"mob0", "mob1"};
+
+    private final List<IEntity> out = new ArrayList<>();
+    private final Counter counter = new Counter();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void queriesDoNotAllocate(boolean concurrent) {
+        PrometheusData data = new PrometheusData(PrometheusConfig.builder().concurrent(concurrent).build());
+        data.registerEntity(new EntityRegistryEntry("mob0", () -> new TestEntity("mob0"), new String[]{"mob", "g0"}));
+        data.registerEntity(new EntityRegistryEntry("mob1", () -> new TestEntity("mob1"), new String[]{"mob", "g1"}));
+        List<IEntity> mobs = new ArrayList<>(data.createEntities("mob0", 500));
+        mobs.addAll(data.createEntities("mob1", 500));
+        UUID uuid = mobs.get(123).currentUUID();
+        GroupQuery query = data.compileGroupQuery(GROUPS);
+
+        assertFlat("collectLoadedEntitiesInGroups", () -> {
+            out.clear();
+            data.collectLoadedEntitiesInGroups(out, query);
+        });
+        assertEquals(500, out.size());
+        assertFlat("forEachInGroups(GroupQuery)", () -> data.forEachInGroups(query, counter));
+        assertFlat("forEachInGroups(String...)", () -> data.forEachInGroups(counter, GROUPS));
+        assertFlat("collectLoadedEntitiesWithId", () -> {
+            out.clear();
+            data.collectLoadedEntitiesWithId(out, "mob1");
+        });
+        assertEquals(500, out.size());
+        assertFlat("forEachWithId", () -> data.forEachWithId("mob0", counter));
+        assertFlat("forEachWithIds", () -> data.forEachWithIds(counter, IDS));
+        assertFlat("getLoadedEntitiesCountWithId", () -> data.getLoadedEntitiesCountWithId("mob0"));
+        assertFlat("getLoadedEntitiesCount", data::getLoadedEntitiesCount);
+        assertFlat("getLoadedEntityWithUUID", () -> data.getLoadedEntityWithUUID(uuid));
+        assertTrue(counter.count > 0);
+    }
+
+    /**
+     * Runs a query many times and checks that it allocates nothing per call once compiled.
+     * The query is measured over two batches and the smaller one must stay below one byte per call:
+     * a query allocating per call allocates at least an object header every time,
+     * while a late compilation or the measurement itself allocates a few hundred bytes in a single batch.
+     * @param name The name of the query, for the failure message.
+     * @param body The query.
+     */
+    private static void assertFlat(String name, Runnable body) {
+        ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            body.run();
+        }
+        long first = measure(bean, body);
+        long second = measure(bean, body);
+        long allocated = Math.min(first, second);
+        assertTrue(allocated < ITERATIONS, name + " allocated " + first + " then " + second + " bytes over " + ITERATIONS + " calls");
+    }
+
+    /**
+     * Measures the bytes allocated by the current thread over a batch of calls.
+     * @param bean The thread bean.
+     * @param body The query.
+     * @return The allocated bytes.
+     */
+    private static long measure(ThreadMXBean bean, Runnable body) {
+        long before = bean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            body.run();
+        }
+        return bean.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    /**
+     * Action counting the visited entities.
+     */
+    private static final class Counter implements Consumer<IEntity> {
+
+        private long count;
+
+        @Override
+        public void accept(IEntity entity) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.Entity;
+
+import java.util.UUID;
+
+/**
+ * Entity of the store tests, loaded directly into a store without registry.
+ */
+class TestEntity extends Entity {
+
+    TestEntity(String registryId, String... groups) {
+        super(registryId);
+        setRegistryMeta(registryId, groups, UUID.randomUUID());
+    }
+}
@@ -0,0 +1,24 @@
+package fr.olympus.prometheus.resources;
+
+import fr.olympus.prometheus.entity.FamilyEntity;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Family entity of the hierarchy tests, declaring its children by UUID.
+ */
+class TestFamily extends TestEntity implements FamilyEntity {
+
+    private final List<UUID> children;
+
+    TestFamily(List<UUID> children) {
+        super("family", "family");
+        this.children = children;
+    }
+
+    @Override
+    public List<UUID> getChildUUIDs() {
+        return children;
+    }
+}
@@ -0,0 +1,159 @@
+package fr.olympus.prometheus.snapshot;
+
+import fr.olympus.prometheus.Prometheus;
+import fr.olympus.prometheus.entity.Entity;
+import fr.olympus.prometheus.entity.IEntity;
+import fr.olympus.prometheus.entity.PrimitiveStatableEntity;
+import fr.olympus.prometheus.entity.StatBlock;
+import fr.olympus.prometheus.entity.StatableEntity;
+import fr.olympus.prometheus.event.EntityEventBus;
+import fr.olympus.prometheus.event.EntityEventFilter;
+import fr.olympus.prometheus.event.EntityEventType;
+import fr.olympus.prometheus.register.EntityRegistryEntry;
+import fr.olympus.prometheus.resources.PrometheusData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Save and load round trips through the Prometheus instance, which is shared by the tests of the JVM.
+ */
+class WorldSnapshotTest {
+
+    private static final String MOB = "snapshot:mob";
+
+    private static final String PRIMITIVE_MOB = "snapshot:primitive";
+
+    @TempDir
+    Path directory;
+
+    private PrometheusData data;
+
+    @BeforeEach
+    void setUp() {
+        if (!Prometheus.isInitialized()) {
+            Prometheus.init();
+        }
+        data = Prometheus.getData();
+        data.registerEntity(new EntityRegistryEntry(MOB, MapMob::new, new String[]{"mob"}));
+        data.registerEntity(new EntityRegistryEntry(PRIMITIVE_MOB, PrimitiveMob::new, new String[]{"mob"}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (IEntity entity : List.copyOf(data.getLoadedEntities())) {
+            data.destroyEntity(entity);
+        }
+    }
+
+    @Test
+    void statsKeepTheirTypes() throws IOException {
+        Map<String, Number> mapStats = Map.of("int", 3, "long", 4L, "short", (short) 5, "byte", (byte) 6,
+                "float", 1.5f, "double", 2.5);
+        MapMob mob = (MapMob) data.createEntity(MOB);
+        mob.getStatsValues().putAll(mapStats);
+        PrimitiveMob primitive = (PrimitiveMob) data.createEntity(PRIMITIVE_MOB);
+        primitive.mergeStats(Map.of("hp", 7L, "speed", 0.5));
+        Path file = directory.resolve("world.snapshot");
+        assertEquals(2, WorldSnapshot.save(file));
+        tearDown();
+
+        Map<UUID, IEntity> restored = new HashMap<>();
+        for (IEntity entity : WorldSnapshot.load(file)) {
+            restored.put(entity.currentUUID(), entity);
+        }
+        assertEquals(2, data.getLoadedEntitiesCount());
+        assertEquals(mapStats, ((MapMob) restored.get(mob.currentUUID())).getStatsValues());
+        assertEquals(Map.of("hp", 7L, "speed", 0.5), ((PrimitiveMob) restored.get(primitive.currentUUID())).getStatsValues());
+    }
+
+    @Test
+    void journalReplaysChangesAndKills() throws IOException {
+        Path snapshot = directory.resolve("base.snapshot");
+        Path journal = directory.resolve("world.journal");
+        MapMob kept = (MapMob) data.createEntity(MOB);
+        MapMob killed = (MapMob) data.createEntity(MOB);
+        MapMob spawned;
+        try (WorldJournal opened = WorldJournal.open(snapshot, journal)) {
+            kept.mergeStats(Map.of("hp", 10));
+            killed.kill();
+            spawned = (MapMob) data.createEntity(MOB);
+            spawned.mergeStats(Map.of("speed", 1.5f));
+            assertEquals(3, opened.commit());
+        }
+        tearDown();
+
+        assertEquals(1, WorldJournal.replay(snapshot, journal));
+        assertEquals(2, data.getLoadedEntitiesCount());
+        assertNull(data.getLoadedEntityWithUUID(killed.currentUUID()));
+        assertEquals(Map.of("hp", 10), ((MapMob) data.getLoadedEntityWithUUID(kept.currentUUID())).getStatsValues());
+        assertEquals(Map.of("speed", 1.5f), ((MapMob) data.getLoadedEntityWithUUID(spawned.currentUUID())).getStatsValues());
+    }
+
+    @Test
+    void restoredStatsAreNotPublished() throws IOException {
+        MapMob mob = (MapMob) data.createEntity(MOB);
+        mob.mergeStats(Map.of("hp", 10L));
+        Path file = directory.resolve("world.snapshot");
+        WorldSnapshot.save(file);
+        tearDown();
+
+        List<EntityEventType> events = new ArrayList<>();
+        try (EntityEventBus.Subscription subscription = data.getEventBus().subscribe(event -> events.add(event.getType()),
+                EntityEventFilter.all())) {
+            ((MapMob) data.newEntity(MOB, UUID.randomUUID())).mergeStats(Map.of("hp", 1L));
+            List<IEntity> restored = WorldSnapshot.load(file);
+            subscription.poll();
+
+            assertEquals(1, restored.size());
+            assertEquals(10L, ((MapMob) restored.get(0)).getStatsValues().get("hp"));
+            assertEquals(List.of(EntityEventType.SPAWN), events);
+        }
+    }
+
+    /**
+     * Entity keeping its statistics in a {@link StatBlock}.
+     */
+    static final class PrimitiveMob extends Entity implements PrimitiveStatableEntity {
+
+        private final StatBlock stats = new StatBlock();
+
+        PrimitiveMob() {
+            super(PRIMITIVE_MOB);
+        }
+
+        @Override
+        public StatBlock getStatBlock() {
+            return stats;
+        }
+    }
+
+    /**
+     * Entity keeping its statistics in a map.
+     */
+    static final class MapMob extends Entity implements StatableEntity {
+
+        private final Map<String, Number> stats = new HashMap<>();
+
+        MapMob() {
+            super(MOB);
+        }
+
+        @Override
+        public Map<String, Number> getStatsValues() {
+            return stats;
+        }
+    }
+}